@@ -0,0 +1,77 @@
+package cc.ddrpa.dorian.elias.benchmark;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import cc.ddrpa.dorian.elias.core.validation.ColumnProperties;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将数据库元数据与 ColumnSpec 比对，每 4 列中有 1 列的长度与定义不一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ColumnPropertiesBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int entityCount;
+    @Param({"5"})
+    private int hierarchyDepth;
+
+    private List<ColumnSpec> columnSpecs;
+    private List<ColumnProperties> columnProperties;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticModel model = SyntheticModel.compile(entityCount, hierarchyDepth);
+        columnSpecs = new ArrayList<>();
+        columnProperties = new ArrayList<>();
+        for (Class<?> entity : model.loadEntities(model.newClassLoader())) {
+            TableSpec tableSpec = SpecMaker.makeTableSpec(entity);
+            for (ColumnSpec columnSpec : tableSpec.getColumns()) {
+                boolean mismatch = columnSpecs.size() % 4 == 0;
+                columnSpecs.add(columnSpec);
+                columnProperties.add(new ColumnProperties(metadataOf(columnSpec, mismatch)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void validate(Blackhole blackhole) {
+        for (int i = 0; i < columnSpecs.size(); i++) {
+            blackhole.consume(columnProperties.get(i).validate(columnSpecs.get(i)));
+        }
+    }
+
+    /**
+     * 模拟 INFORMATION_SCHEMA.COLUMNS 中的一行
+     */
+    private static Map<String, Object> metadataOf(ColumnSpec columnSpec, boolean mismatch) {
+        Map<String, Object> row = new HashMap<>();
+        Long length = columnSpec.getLength();
+        if (mismatch && Objects.nonNull(length)) {
+            length = length * 2;
+        }
+        row.put("COLUMN_NAME", columnSpec.getName());
+        row.put("DATA_TYPE", columnSpec.getDataType());
+        row.put("COLUMN_TYPE", Objects.isNull(length)
+                ? columnSpec.getColumnType()
+                : columnSpec.getDataType() + "(" + length + ")");
+        row.put("IS_NULLABLE", columnSpec.isNullable() ? "YES" : "NO");
+        row.put("CHARACTER_MAXIMUM_LENGTH", length);
+        row.put("COLUMN_DEFAULT", columnSpec.getDefaultValue());
+        return row;
+    }
+}
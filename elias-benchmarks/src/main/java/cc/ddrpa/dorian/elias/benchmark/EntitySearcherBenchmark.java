@@ -0,0 +1,42 @@
+package cc.ddrpa.dorian.elias.benchmark;
+
+import cc.ddrpa.dorian.elias.core.EntitySearcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查找实体类，分别测试类路径扫描和编译期索引
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EntitySearcherBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int entityCount;
+    @Param({"5"})
+    private int hierarchyDepth;
+    @Param({"false", "true"})
+    private boolean useIndex;
+
+    private SyntheticModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = SyntheticModel.compile(entityCount, hierarchyDepth);
+    }
+
+    @Benchmark
+    public Set<Class<?>> search() {
+        return new EntitySearcher()
+                .setClassLoader(model.newClassLoader())
+                .setUseIndex(useIndex)
+                .addPackage(SyntheticModel.BASE_PACKAGE)
+                .search();
+    }
+}
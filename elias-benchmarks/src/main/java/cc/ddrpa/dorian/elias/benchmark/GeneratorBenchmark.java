@@ -0,0 +1,70 @@
+package cc.ddrpa.dorian.elias.benchmark;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import cc.ddrpa.dorian.elias.generator.MySQL57Generator;
+import cc.ddrpa.dorian.elias.generator.PebbleSQLGenerator;
+import cc.ddrpa.dorian.elias.generator.SQLGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渲染 DDL，对比直接拼接和 Pebble 模板
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int entityCount;
+    @Param({"5"})
+    private int hierarchyDepth;
+    @Param({"direct", "pebble"})
+    private String renderer;
+
+    private List<TableSpec> tableSpecs;
+    private ColumnModifySpec columnModifySpec;
+    private SQLGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticModel model = SyntheticModel.compile(entityCount, hierarchyDepth);
+        tableSpecs = model.loadEntities(model.newClassLoader()).stream()
+                .map(SpecMaker::makeTableSpec)
+                .toList();
+        columnModifySpec = new ColumnModifySpec()
+                .setColumnType("varchar(512)")
+                .setNullable(false)
+                .setDefaultValue("");
+        generator = "pebble".equals(renderer)
+                ? new PebbleSQLGenerator().setDropIfExists(false)
+                : new MySQL57Generator().setDropIfExists(false);
+    }
+
+    @Benchmark
+    public void createTable(Blackhole blackhole) throws IOException {
+        for (TableSpec tableSpec : tableSpecs) {
+            blackhole.consume(generator.createTable(tableSpec));
+        }
+    }
+
+    @Benchmark
+    public void modifyColumn(Blackhole blackhole) throws IOException {
+        for (TableSpec tableSpec : tableSpecs) {
+            for (ColumnSpec columnSpec : tableSpec.getColumns()) {
+                blackhole.consume(generator.modifyColumn(tableSpec.getName(),
+                        columnSpec.getName(), columnModifySpec));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cc.ddrpa.dorian.elias.benchmark;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 为模型中的所有实体类构建 TableSpec
+ * <p>
+ * SpecMaker 和 JDK 的反射缓存都按 Class 保存，重复处理同一批类只能测到缓存命中。
+ * 每次迭代前用新的 ClassLoader 重新加载模型，只计时一次调用，测量的是应用启动时的冷路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class SpecMakerBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int entityCount;
+    @Param({"5"})
+    private int hierarchyDepth;
+
+    private SyntheticModel model;
+    private List<Class<?>> entities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = SyntheticModel.compile(entityCount, hierarchyDepth);
+    }
+
+    @Setup(Level.Iteration)
+    public void loadEntities() {
+        entities = model.loadEntities(model.newClassLoader());
+    }
+
+    @Benchmark
+    public void makeTableSpec(Blackhole blackhole) {
+        for (Class<?> entity : entities) {
+            TableSpec tableSpec = SpecMaker.makeTableSpec(entity);
+            blackhole.consume(tableSpec);
+        }
+    }
+
+    @Benchmark
+    public void makeTableSpecs(Blackhole blackhole) {
+        blackhole.consume(SpecMaker.makeTableSpecs(entities));
+    }
+}
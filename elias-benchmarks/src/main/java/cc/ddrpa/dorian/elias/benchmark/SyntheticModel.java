@@ -0,0 +1,191 @@
+package cc.ddrpa.dorian.elias.benchmark;
+
+import cc.ddrpa.dorian.elias.core.EntityIndex;
+import cc.ddrpa.dorian.elias.core.processor.EntityIndexProcessor;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 运行时生成并编译的实体类模型
+ * <p>
+ * 所有实体类都继承自一条深度为 hierarchyDepth 的 BaseEntity 继承链，每 500 个实体类放在一个子包中。
+ * 编译结果缓存在 {@code java.io.tmpdir/elias-benchmarks} 下，同样规模的模型只需要编译一次。
+ * 编译时会运行 {@link EntityIndexProcessor}，因此可以分别测试基于类路径扫描和基于索引的查找
+ */
+public class SyntheticModel {
+
+    public static final String BASE_PACKAGE = "bench.model";
+    private static final int CLASSES_PER_PACKAGE = 500;
+
+    private final Path classesDirectory;
+    private final List<String> entityClassNames;
+
+    private SyntheticModel(Path classesDirectory, List<String> entityClassNames) {
+        this.classesDirectory = classesDirectory;
+        this.entityClassNames = entityClassNames;
+    }
+
+    /**
+     * 生成并编译模型，需要在 JDK 上运行
+     *
+     * @param entityCount
+     * @param hierarchyDepth
+     * @return
+     */
+    public static synchronized SyntheticModel compile(int entityCount, int hierarchyDepth) {
+        Path root = Path.of(System.getProperty("java.io.tmpdir"), "elias-benchmarks",
+                "model-" + entityCount + "-" + hierarchyDepth);
+        Path sources = root.resolve("src");
+        Path classes = root.resolve("classes");
+        List<String> entityClassNames = new ArrayList<>(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            entityClassNames.add(packageOf(i) + ".Entity" + i);
+        }
+        if (Files.isRegularFile(classes.resolve(EntityIndex.INDEX_LOCATION))) {
+            return new SyntheticModel(classes, entityClassNames);
+        }
+        try {
+            deleteRecursively(root);
+            List<Path> sourceFiles = writeSources(sources, entityCount, hierarchyDepth);
+            Files.createDirectories(classes);
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) {
+                throw new IllegalStateException(
+                        "No system Java compiler available, run benchmarks on a JDK");
+            }
+            try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null,
+                    StandardCharsets.UTF_8)) {
+                List<String> options = List.of(
+                        "-d", classes.toString(),
+                        "-classpath", System.getProperty("java.class.path"),
+                        "-processor", EntityIndexProcessor.class.getName(),
+                        "-nowarn");
+                boolean success = compiler.getTask(null, fileManager, null, options, null,
+                        fileManager.getJavaFileObjectsFromPaths(sourceFiles)).call();
+                if (!success) {
+                    throw new IllegalStateException("Failed to compile synthetic model in " + root);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SyntheticModel(classes, entityClassNames);
+    }
+
+    /**
+     * 创建一个新的 ClassLoader 加载模型，每个 ClassLoader 中的类都需要重新分析
+     *
+     * @return
+     */
+    public ClassLoader newClassLoader() {
+        try {
+            return new URLClassLoader(new URL[]{classesDirectory.toUri().toURL()},
+                    SyntheticModel.class.getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public List<Class<?>> loadEntities(ClassLoader classLoader) {
+        List<Class<?>> entities = new ArrayList<>(entityClassNames.size());
+        for (String className : entityClassNames) {
+            try {
+                entities.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return entities;
+    }
+
+    private static String packageOf(int index) {
+        return BASE_PACKAGE + ".p" + (index / CLASSES_PER_PACKAGE);
+    }
+
+    private static List<Path> writeSources(Path sources, int entityCount, int hierarchyDepth)
+            throws IOException {
+        List<Path> files = new ArrayList<>(entityCount + hierarchyDepth + 1);
+        files.add(write(sources, BASE_PACKAGE + ".base", "Status", """
+                public enum Status {
+                    ACTIVE, SUSPENDED, CLOSED
+                }
+                """));
+        files.add(write(sources, BASE_PACKAGE + ".base", "BaseEntity0", """
+                import com.baomidou.mybatisplus.annotation.IdType;
+                import com.baomidou.mybatisplus.annotation.TableId;
+
+                public abstract class BaseEntity0 {
+                    @TableId(type = IdType.AUTO)
+                    private Long id;
+                }
+                """));
+        for (int level = 1; level < hierarchyDepth; level++) {
+            files.add(write(sources, BASE_PACKAGE + ".base", "BaseEntity" + level, """
+                    public abstract class BaseEntity%1$d extends BaseEntity%2$d {
+                        private java.time.LocalDateTime modifiedAt%1$d;
+                        private String operator%1$d;
+                    }
+                    """.formatted(level, level - 1)));
+        }
+        String superClass = BASE_PACKAGE + ".base.BaseEntity" + (hierarchyDepth - 1);
+        for (int i = 0; i < entityCount; i++) {
+            files.add(write(sources, packageOf(i), "Entity" + i, """
+                    import cc.ddrpa.dorian.elias.core.annotation.EliasTable;
+                    import cc.ddrpa.dorian.elias.core.annotation.EliasTable.Index;
+                    import cc.ddrpa.dorian.elias.core.annotation.types.UseText;
+                    import javax.validation.constraints.NotNull;
+
+                    @EliasTable(tablePrefix = "tbl_", indexes = {
+                            @Index(columns = "code", unique = true),
+                            @Index(columns = "name, effective_date")
+                    })
+                    public class Entity%1$d extends %2$s {
+                        @NotNull
+                        private String code;
+                        private String name;
+                        private Integer quantity;
+                        private java.math.BigDecimal amount;
+                        private %3$s.base.Status status;
+                        private Boolean enabled;
+                        private java.time.LocalDate effectiveDate;
+                        @UseText
+                        private String description;
+                    }
+                    """.formatted(i, superClass, BASE_PACKAGE)));
+        }
+        return files;
+    }
+
+    private static Path write(Path sources, String packageName, String className, String body)
+            throws IOException {
+        Path file = sources.resolve(packageName.replace('.', '/')).resolve(className + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "package " + packageName + ";\n\n" + body);
+        return file;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package cc.ddrpa.dorian.elias.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * 编译期生成的实体类索引，由 {@link cc.ddrpa.dorian.elias.core.processor.EntityIndexProcessor} 写入
+ * {@value #INDEX_LOCATION}
+ * <p>
+ * 索引文件为 properties 格式，键为类的 binary name，值为修饰该类的注解全限定名，多个注解之间用逗号分隔。
+ * 每个索引文件只描述它所在的类路径根（jar 或目录）中的类，其他类路径根需要另外扫描
+ */
+public class EntityIndex {
+
+    public static final String INDEX_LOCATION = "META-INF/elias/entities.idx";
+    /**
+     * 设置为 true 时忽略索引文件，总是扫描类路径
+     */
+    public static final String IGNORE_INDEX_PROPERTY = "elias.index.ignore";
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityIndex.class);
+
+    private final Map<String, Set<String>> entries;
+    private final Set<String> indexedRoots;
+
+    EntityIndex(Map<String, Set<String>> entries, Set<String> indexedRoots) {
+        this.entries = entries;
+        this.indexedRoots = indexedRoots;
+    }
+
+    /**
+     * 读取类路径上所有的索引文件
+     *
+     * @param classLoader
+     * @return 如果类路径上不存在索引文件或是设置了 {@value #IGNORE_INDEX_PROPERTY}，返回空
+     */
+    public static Optional<EntityIndex> load(ClassLoader classLoader) {
+        if (Boolean.getBoolean(IGNORE_INDEX_PROPERTY)) {
+            return Optional.empty();
+        }
+        try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+            if (!urls.hasMoreElements()) {
+                return Optional.empty();
+            }
+            Map<String, Set<String>> entries = new LinkedHashMap<>();
+            Set<String> indexedRoots = new HashSet<>();
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                logger.debug("Loading entity index from {}", url);
+                String location = url.toExternalForm();
+                indexedRoots.add(location.substring(0, location.length() - INDEX_LOCATION.length()));
+                Properties properties = new Properties();
+                try (InputStream is = url.openStream()) {
+                    properties.load(is);
+                }
+                for (String className : properties.stringPropertyNames()) {
+                    Set<String> annotations = entries.computeIfAbsent(className,
+                            k -> new HashSet<>());
+                    for (String annotation : properties.getProperty(className).split(",")) {
+                        if (!annotation.isBlank()) {
+                            annotations.add(annotation.trim());
+                        }
+                    }
+                }
+            }
+            return Optional.of(new EntityIndex(entries, indexedRoots));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load entity index from " + INDEX_LOCATION,
+                    e);
+        }
+    }
+
+    /**
+     * 类路径根中是否存在索引文件
+     *
+     * @param root 类路径根，与 {@code ClassLoader.getResource} 返回的 URL 去掉资源路径后的形式一致，例如
+     *             {@code jar:file:/app/lib/entities.jar!/} 或 {@code file:/app/classes/}
+     * @return
+     */
+    public boolean covers(URL root) {
+        return indexedRoots.contains(root.toExternalForm());
+    }
+
+    /**
+     * 查找指定包（包括子包）中使用该注解修饰的类名
+     *
+     * @param packageRefs
+     * @param annotationName
+     * @return
+     */
+    public Set<String> getCandidateTypes(Collection<String> packageRefs, String annotationName) {
+        Set<String> candidates = new LinkedHashSet<>();
+        entries.forEach((className, annotations) -> {
+            if (annotations.contains(annotationName)
+                    && packageRefs.stream().anyMatch(p -> className.startsWith(p + "."))) {
+                candidates.add(className);
+            }
+        });
+        return candidates;
+    }
+}
@@ -2,19 +2,39 @@ package cc.ddrpa.dorian.elias.core;
 
 import cc.ddrpa.dorian.elias.core.annotation.EliasTable;
 import org.reflections.Reflections;
+import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
+import java.net.URL;
 import java.util.*;
 
 import static org.reflections.scanners.Scanners.SubTypes;
 import static org.reflections.scanners.Scanners.TypesAnnotated;
 
+/**
+ * 在指定的包中查找需要生成表的实体类
+ * <p>
+ * 包含搜索路径的类路径根（jar 或目录）中如果存在编译期生成的 {@link EntityIndex}，直接从索引中读取候选类；
+ * 其余的类路径根由所有包和所有注解共享同一次扫描。
+ * 查找结果会被缓存，直到搜索条件发生变化。该类是线程安全的，可以在 SchemaFactory 和 Spring Boot 自动配置之间共享
+ */
 public class EntitySearcher {
 
+    private static final Logger logger = LoggerFactory.getLogger(EntitySearcher.class);
+
     private final List<String> includePackages = new ArrayList<>(1);
-    private final Set<Class<?>> classes = new HashSet<>();
-    private final Set<Class<? extends Annotation>> annotationClasses = new HashSet<>();
+    private final Set<Class<? extends Annotation>> annotationClasses = new LinkedHashSet<>();
+    private ClassLoader classLoader = null;
+    private boolean useIndex = true;
+    private Map<Class<? extends Annotation>, Set<Class<?>>> cachedResult = null;
+
+    public EntitySearcher() {
+        annotationClasses.add(EliasTable.class);
+    }
 
     /**
      * 添加实体类搜索路径
@@ -22,8 +42,11 @@ public class EntitySearcher {
      * @param packageRef
      * @return
      */
-    public EntitySearcher addPackage(String packageRef) {
-        includePackages.add(packageRef);
+    public synchronized EntitySearcher addPackage(String packageRef) {
+        if (!includePackages.contains(packageRef)) {
+            includePackages.add(packageRef);
+            cachedResult = null;
+        }
         return this;
     }
 
@@ -33,8 +56,8 @@ public class EntitySearcher {
      * @param packageRefs
      * @return
      */
-    public EntitySearcher addPackages(Collection<String> packageRefs) {
-        includePackages.addAll(packageRefs);
+    public synchronized EntitySearcher addPackages(Collection<String> packageRefs) {
+        packageRefs.forEach(this::addPackage);
         return this;
     }
 
@@ -44,10 +67,35 @@ public class EntitySearcher {
      * @param annotationClass
      * @return
      */
-    public EntitySearcher useAnnotation(Class<? extends Annotation> annotationClass) {
-        annotationClasses.add(annotationClass);
+    public synchronized EntitySearcher useAnnotation(Class<? extends Annotation> annotationClass) {
+        if (annotationClasses.add(annotationClass)) {
+            cachedResult = null;
+        }
         return this;
+    }
 
+    /**
+     * 指定加载实体类和索引文件使用的 ClassLoader，默认使用当前线程的 context ClassLoader
+     *
+     * @param classLoader
+     * @return
+     */
+    public synchronized EntitySearcher setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        cachedResult = null;
+        return this;
+    }
+
+    /**
+     * 是否使用编译期生成的实体类索引，默认开启。没有索引的类路径根总是会被扫描，关闭后所有类路径根都会被扫描
+     *
+     * @param useIndex
+     * @return
+     */
+    public synchronized EntitySearcher setUseIndex(boolean useIndex) {
+        this.useIndex = useIndex;
+        cachedResult = null;
+        return this;
     }
 
     /**
@@ -55,49 +103,128 @@ public class EntitySearcher {
      *
      * @return
      */
-    public Set<Class<?>> search() {
-        for (String packageRef : includePackages) {
-            find(packageRef);
+    public synchronized Set<Class<?>> search() {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        searchByAnnotation().values().forEach(classes::addAll);
+        return Collections.unmodifiableSet(classes);
+    }
+
+    /**
+     * 查找类，并按命中的注解分组，同一个类可能同时出现在多个分组中
+     *
+     * @return
+     */
+    public synchronized Map<Class<? extends Annotation>, Set<Class<?>>> searchByAnnotation() {
+        if (Objects.isNull(cachedResult)) {
+            cachedResult = searchAll();
         }
-        if (!annotationClasses.isEmpty()) {
-            for (String packageRef : includePackages) {
-                for (Class<? extends Annotation> annotationClass : annotationClasses) {
-                    find(packageRef, annotationClass);
-                }
+        return cachedResult;
+    }
+
+    private ClassLoader resolveClassLoader() {
+        if (Objects.nonNull(classLoader)) {
+            return classLoader;
+        }
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return Objects.nonNull(contextClassLoader)
+                ? contextClassLoader
+                : EntitySearcher.class.getClassLoader();
+    }
+
+    private Map<Class<? extends Annotation>, Set<Class<?>>> searchAll() {
+        Map<Class<? extends Annotation>, Set<Class<?>>> result = new LinkedHashMap<>();
+        annotationClasses.forEach(a -> result.put(a, new LinkedHashSet<>()));
+        if (!includePackages.isEmpty()) {
+            ClassLoader loader = resolveClassLoader();
+            Optional<EntityIndex> index = useIndex
+                    ? EntityIndex.load(loader)
+                    : Optional.empty();
+            // 同一个包可能分布在多个 jar 或目录中，只有带索引的类路径根可以跳过扫描
+            Set<URL> roots = new LinkedHashSet<>();
+            includePackages.forEach(p -> roots.addAll(ClasspathHelper.forPackage(p, loader)));
+            List<URL> unindexedRoots = roots.stream()
+                    .filter(root -> index.map(i -> !i.covers(root)).orElse(true))
+                    .toList();
+            index.ifPresent(i -> lookup(i, loader, result));
+            if (!unindexedRoots.isEmpty()) {
+                scan(loader, unindexedRoots, result);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} of {} classpath roots resolved from {}, the rest scanned",
+                        roots.size() - unindexedRoots.size(), roots.size(),
+                        EntityIndex.INDEX_LOCATION);
+                result.forEach((annotationClass, classes) -> logger.debug(
+                        "Found {} classes annotated with @{}", classes.size(),
+                        annotationClass.getSimpleName()));
             }
         }
-        return classes;
+        Map<Class<? extends Annotation>, Set<Class<?>>> unmodifiable = new LinkedHashMap<>();
+        result.forEach((a, classes) -> unmodifiable.put(a, Collections.unmodifiableSet(classes)));
+        return Collections.unmodifiableMap(unmodifiable);
     }
 
-    private <A extends Annotation> void find(String packageRef, Class<A> annotationClass) {
-        Reflections reflections = new Reflections(
-                new ConfigurationBuilder().forPackage(packageRef));
-        Set<Class<?>> annotated = reflections.get(
-                SubTypes.of(TypesAnnotated.with(annotationClass)).asClass());
-        for (Class<?> clazz : annotated) {
-            A requiredAnnotation = clazz.getAnnotation(annotationClass);
-            if (Objects.isNull(requiredAnnotation)) {
-                // 如果 DTO 类继承了需要生成表的实体类，那么它会被反射找出来，但是获取这个注解时为 null
-                // 不需要为这种 DTO 生成表
-                continue;
+    /**
+     * 从编译期生成的索引中查找
+     *
+     * @param index
+     * @param loader
+     * @param result
+     */
+    private void lookup(EntityIndex index, ClassLoader loader,
+                        Map<Class<? extends Annotation>, Set<Class<?>>> result) {
+        for (Class<? extends Annotation> annotationClass : annotationClasses) {
+            for (String className : index.getCandidateTypes(includePackages,
+                    annotationClass.getName())) {
+                try {
+                    Class<?> clazz = Class.forName(className, false, loader);
+                    // 增量编译后索引中可能残留已经移除注解的类
+                    if (clazz.isAnnotationPresent(annotationClass)) {
+                        result.get(annotationClass).add(clazz);
+                    }
+                } catch (ClassNotFoundException | LinkageError e) {
+                    logger.debug("Skip indexed class {} which can not be loaded", className, e);
+                }
             }
-            classes.add(clazz);
         }
     }
 
-    private void find(String packageRef) {
-        Reflections reflections = new Reflections(
-                new ConfigurationBuilder().forPackage(packageRef));
+    /**
+     * 对没有索引的类路径根执行一次扫描，然后从同一份扫描结果中查询每个注解
+     *
+     * @param loader
+     * @param roots
+     * @param result
+     */
+    private void scan(ClassLoader loader, Collection<URL> roots,
+                      Map<Class<? extends Annotation>, Set<Class<?>>> result) {
+        ConfigurationBuilder configuration = new ConfigurationBuilder()
+                .addClassLoaders(loader)
+                .setScanners(TypesAnnotated, SubTypes)
+                .setUrls(roots);
+        // 类路径根中还包含其他包的类，需要额外过滤
+        FilterBuilder inputsFilter = new FilterBuilder();
+        includePackages.forEach(inputsFilter::includePackage);
+        configuration.filterInputsBy(inputsFilter);
+        Reflections reflections = new Reflections(configuration);
+        for (Class<? extends Annotation> annotationClass : annotationClasses) {
+            result.get(annotationClass).addAll(find(reflections, annotationClass));
+        }
+    }
+
+    private <A extends Annotation> Set<Class<?>> find(Reflections reflections,
+                                                      Class<A> annotationClass) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
         Set<Class<?>> annotated = reflections.get(
-                SubTypes.of(TypesAnnotated.with(EliasTable.class)).asClass());
+                SubTypes.of(TypesAnnotated.with(annotationClass)).asClass());
         for (Class<?> clazz : annotated) {
-            EliasTable eliasTable = clazz.getAnnotation(EliasTable.class);
-            if (Objects.isNull(eliasTable)) {
+            A requiredAnnotation = clazz.getAnnotation(annotationClass);
+            if (Objects.isNull(requiredAnnotation)) {
                 // 如果 DTO 类继承了需要生成表的实体类，那么它会被反射找出来，但是获取这个注解时为 null
                 // 不需要为这种 DTO 生成表
                 continue;
             }
             classes.add(clazz);
         }
+        return Collections.unmodifiableSet(classes);
     }
 }
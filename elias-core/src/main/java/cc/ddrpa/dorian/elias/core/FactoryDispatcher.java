@@ -0,0 +1,98 @@
+package cc.ddrpa.dorian.elias.core;
+
+import cc.ddrpa.dorian.elias.core.factory.SpecBuilderFactory;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按优先级为字段选择 SpecBuilderFactory
+ * <p>
+ * 对声明了分派提示的 factory，按字段类型名称和字段上的注解建立索引，取其中优先级最高者；
+ * 未声明提示的 factory 仍调用 fit，但只检查优先级高于索引结果的那部分。
+ * 结果与按注册顺序逐个调用 fit 一致，并按 (声明类, 字段名) 缓存
+ */
+class FactoryDispatcher {
+
+    private static final int NOT_FOUND = Integer.MAX_VALUE;
+
+    private final List<SpecBuilderFactory> factories;
+    private final Map<String, Integer> typeIndex = new HashMap<>();
+    private final Map<Class<? extends Annotation>, Integer> annotationIndex = new HashMap<>();
+    private final int[] dynamicFactories;
+    private final ClassValue<Map<String, Integer>> resolved = new ClassValue<>() {
+        @Override
+        protected Map<String, Integer> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    FactoryDispatcher(List<SpecBuilderFactory> factories) {
+        this.factories = List.copyOf(factories);
+        List<Integer> dynamic = new ArrayList<>();
+        for (int priority = 0; priority < this.factories.size(); priority++) {
+            SpecBuilderFactory factory = this.factories.get(priority);
+            Set<String> typeNames = factory.acceptedTypeNames();
+            if (Objects.isNull(typeNames)) {
+                dynamic.add(priority);
+                continue;
+            }
+            // 先注册的 factory 优先级更高，不覆盖已有的索引项
+            for (String typeName : typeNames) {
+                typeIndex.putIfAbsent(typeName, priority);
+            }
+            for (Class<? extends Annotation> annotation : factory.acceptedAnnotations()) {
+                annotationIndex.putIfAbsent(annotation, priority);
+            }
+        }
+        this.dynamicFactories = dynamic.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    List<SpecBuilderFactory> getFactories() {
+        return factories;
+    }
+
+    /**
+     * 获取适用于字段的 factory
+     *
+     * @param field
+     * @return 没有适用的 factory 时返回 null
+     */
+    SpecBuilderFactory dispatch(FieldDescriptor field) {
+        int priority = resolved.get(field.getDeclaringClass())
+                .computeIfAbsent(field.getName(), name -> resolve(field));
+        return priority == NOT_FOUND ? null : factories.get(priority);
+    }
+
+    private int resolve(FieldDescriptor field) {
+        // 注解决定的 factory（如 TypeOverride）往往优先级更高，先检查注解
+        int best = NOT_FOUND;
+        if (!annotationIndex.isEmpty()) {
+            for (Annotation annotation : field.getAnnotations()) {
+                Integer priority = annotationIndex.get(annotation.annotationType());
+                if (Objects.nonNull(priority) && priority < best) {
+                    best = priority;
+                }
+            }
+        }
+        Integer priority = typeIndex.get(field.getTypeName());
+        if (Objects.nonNull(priority) && priority < best) {
+            best = priority;
+        }
+        for (int candidate : dynamicFactories) {
+            if (candidate >= best) {
+                break;
+            }
+            if (factories.get(candidate).fit(field)) {
+                return candidate;
+            }
+        }
+        return best;
+    }
+}
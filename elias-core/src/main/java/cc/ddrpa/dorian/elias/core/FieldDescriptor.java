@@ -0,0 +1,91 @@
+package cc.ddrpa.dorian.elias.core;
+
+import cc.ddrpa.dorian.elias.core.annotation.DefaultValue;
+import cc.ddrpa.dorian.elias.core.annotation.EliasIgnore;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+/**
+ * 类成员的快照
+ * <p>
+ * 创建时只调用一次 {@link Field#getDeclaredAnnotations()}，之后的注解判断都在快照上完成。
+ * 第三方注解通过 {@link cc.ddrpa.dorian.elias.core.integration.AnnotationIntegration} 读取
+ */
+public final class FieldDescriptor {
+
+    private final Field field;
+    private final String typeName;
+    private final Annotation[] annotations;
+
+    private FieldDescriptor(Field field) {
+        this.field = field;
+        this.typeName = field.getType().getName();
+        this.annotations = field.getDeclaredAnnotations();
+    }
+
+    public static FieldDescriptor of(Field field) {
+        return new FieldDescriptor(Objects.requireNonNull(field));
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    /**
+     * 字段类型名称，等同于 {@code getType().getName()}
+     *
+     * @return
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public Class<?> getDeclaringClass() {
+        return field.getDeclaringClass();
+    }
+
+    public boolean isStatic() {
+        return Modifier.isStatic(field.getModifiers());
+    }
+
+    /**
+     * 字段上声明的全部注解，调用方不应修改返回的数组
+     *
+     * @return
+     */
+    public Annotation[] getAnnotations() {
+        return annotations;
+    }
+
+    public boolean hasAnnotation(Class<? extends Annotation> annotationClass) {
+        return Objects.nonNull(getAnnotation(annotationClass));
+    }
+
+    public <A extends Annotation> A getAnnotation(Class<A> annotationClass) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType() == annotationClass) {
+                return annotationClass.cast(annotation);
+            }
+        }
+        return null;
+    }
+
+    public DefaultValue getDefaultValue() {
+        return getAnnotation(DefaultValue.class);
+    }
+
+    public boolean isEliasIgnore() {
+        return hasAnnotation(EliasIgnore.class);
+    }
+}
@@ -3,21 +3,23 @@ package cc.ddrpa.dorian.elias.core;
 import cc.ddrpa.dorian.elias.core.annotation.EliasTable;
 import cc.ddrpa.dorian.elias.core.annotation.TypeOverride;
 import cc.ddrpa.dorian.elias.core.factory.*;
+import cc.ddrpa.dorian.elias.core.integration.AnnotationIntegration;
+import cc.ddrpa.dorian.elias.core.integration.IntegrationRegistry;
+import cc.ddrpa.dorian.elias.core.naming.NamingStrategy;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
 import cc.ddrpa.dorian.elias.core.spec.SpatialIndexSpec;
 import cc.ddrpa.dorian.elias.core.spec.TableSpec;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
-import org.reflections.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-
-import static org.reflections.ReflectionUtils.Fields;
+import java.util.stream.IntStream;
 
 public class SpecMaker {
 
@@ -27,8 +29,7 @@ public class SpecMaker {
      * href="https://docs.oracle.com/cd/E19501-01/819-3659/gcmaz/">Supported Data Types</a> 实现，
      * {@link TypeOverride} 注解的优先级高于其他判断，其他类型推断优先级见 factory 实例的注册顺序
      */
-    private static final List<SpecBuilderFactory> factories = List.of(
-            new TypeOverrideSpecBuilderFactory(),
+    private static final List<SpecBuilderFactory> BUILTIN_FACTORIES = List.of(
             new TextSpecBuilderFactory(),
             new IntegerSpecBuilderFactory(),
             new DateTimeSpecBuilderFactory(),
@@ -42,6 +43,77 @@ public class SpecMaker {
             new CharSpecBuilderFactory(),
             new GeometrySpecBuilderFactory()
     );
+    private static final SpecBuilderFactory TYPE_OVERRIDE_FACTORY = new TypeOverrideSpecBuilderFactory();
+    private static final TextSpecBuilderFactory FALLBACK_FACTORY = new TextSpecBuilderFactory();
+    private static final List<SpecBuilderFactory> customFactories = new ArrayList<>();
+    private static volatile FactoryDispatcher dispatcher = newDispatcher();
+
+    /**
+     * 获取按优先级排列的 SpecBuilderFactory 列表
+     *
+     * @return
+     */
+    public static List<SpecBuilderFactory> getFactories() {
+        return dispatcher.getFactories();
+    }
+
+    /**
+     * 获取按优先级排列的预设 SpecBuilderFactory 列表，包含处理 {@link TypeOverride} 的 factory，不包含自定义 factory
+     * <p>
+     * 编译期的 {@link cc.ddrpa.dorian.elias.core.processor.IndexDeclarationProcessor} 按这一列表推断字段由哪个 factory 处理
+     *
+     * @return
+     */
+    public static List<SpecBuilderFactory> getBuiltinFactories() {
+        List<SpecBuilderFactory> factories = new ArrayList<>(BUILTIN_FACTORIES.size() + 1);
+        factories.add(TYPE_OVERRIDE_FACTORY);
+        factories.addAll(BUILTIN_FACTORIES);
+        return Collections.unmodifiableList(factories);
+    }
+
+    /**
+     * 注册自定义 SpecBuilderFactory
+     * <p>
+     * 自定义 factory 的优先级低于 {@link TypeOverride}，高于所有预设 factory，多个自定义 factory 按注册顺序排列。
+     * 实现 {@link SpecBuilderFactory#acceptedTypeNames()} 可以让 factory 参与索引分派，否则会对每个字段调用 fit。
+     * 注册后已缓存的分派结果失效
+     *
+     * @param factory
+     */
+    public static synchronized void registerFactory(SpecBuilderFactory factory) {
+        customFactories.add(Objects.requireNonNull(factory));
+        dispatcher = newDispatcher();
+    }
+
+    /**
+     * 移除全部自定义 SpecBuilderFactory，已缓存的分派结果失效
+     * <p>
+     * 用于 DevTools 重启前清除上一次运行中的注册，重启后应用代码会重新注册
+     */
+    public static synchronized void clearFactories() {
+        customFactories.clear();
+        dispatcher = newDispatcher();
+    }
+
+    /**
+     * 设置没有注解声明名称时推导表名和列名的命名规则，默认为 {@link cc.ddrpa.dorian.elias.core.naming.SnakeCaseNamingStrategy}
+     * <p>
+     * 设置后已缓存的表名和列名失效
+     *
+     * @param strategy
+     */
+    public static synchronized void setNamingStrategy(NamingStrategy strategy) {
+        SpecUtils.setNamingStrategy(strategy);
+    }
+
+    private static FactoryDispatcher newDispatcher() {
+        List<SpecBuilderFactory> factories = new ArrayList<>(
+                BUILTIN_FACTORIES.size() + customFactories.size() + 1);
+        factories.add(TYPE_OVERRIDE_FACTORY);
+        factories.addAll(customFactories);
+        factories.addAll(BUILTIN_FACTORIES);
+        return new FactoryDispatcher(factories);
+    }
 
     /**
      * 将 Java 类转换为 TableSpec
@@ -50,36 +122,91 @@ public class SpecMaker {
      * @return
      */
     public static TableSpec makeTableSpec(Class<?> clazz) {
+        return makeTableSpec(clazz, SpecMaker::makeDeclaredColumns);
+    }
+
+    /**
+     * 在 ForkJoinPool 上批量将 Java 类转换为 TableSpec，返回顺序与参数的迭代顺序一致
+     * <p>
+     * 同一批次中，父类声明的列只推断一次，继承同一父类的实体类之间共享推断结果。
+     * 某个类转换失败时不会中断其他类的转换，全部完成后统一抛出异常
+     *
+     * @param classes
+     * @return
+     * @throws IllegalStateException 有类转换失败时，每个失败的类对应一个 suppressed 异常
+     */
+    public static List<TableSpec> makeTableSpecs(Collection<Class<?>> classes) {
+        List<Class<?>> classList = List.copyOf(classes);
+        Map<Class<?>, List<ColumnSpecBuilder>> sharedColumns = new ConcurrentHashMap<>();
+        Function<Class<?>, List<ColumnSpecBuilder>> declaredColumns =
+                declaringClass -> sharedColumns.computeIfAbsent(declaringClass,
+                        SpecMaker::makeDeclaredColumns);
+        TableSpec[] tableSpecs = new TableSpec[classList.size()];
+        RuntimeException[] failures = new RuntimeException[classList.size()];
+        IntStream.range(0, classList.size())
+                .parallel()
+                .forEach(i -> {
+                    try {
+                        tableSpecs[i] = makeTableSpec(classList.get(i), declaredColumns);
+                    } catch (RuntimeException e) {
+                        failures[i] = e;
+                    }
+                });
+        List<String> failedClasses = new ArrayList<>();
+        for (int i = 0; i < failures.length; i++) {
+            if (Objects.nonNull(failures[i])) {
+                failedClasses.add(classList.get(i).getName());
+            }
+        }
+        if (!failedClasses.isEmpty()) {
+            IllegalStateException exception = new IllegalStateException(
+                    "Failed to make TableSpec for " + failedClasses.size() + " classes: "
+                            + String.join(", ", failedClasses));
+            for (int i = 0; i < failures.length; i++) {
+                if (Objects.nonNull(failures[i])) {
+                    exception.addSuppressed(new IllegalStateException(
+                            "Failed to make TableSpec for class: " + classList.get(i).getName(),
+                            failures[i]));
+                }
+            }
+            throw exception;
+        }
+        return Arrays.asList(tableSpecs);
+    }
+
+    private static TableSpec makeTableSpec(Class<?> clazz,
+                                           Function<Class<?>, List<ColumnSpecBuilder>> declaredColumns) {
         TableSpec tableSpec = new TableSpec();
         tableSpec.setName(SpecUtils.getTableName(clazz));
-        // 处理类成员
-        Set<Field> fields = ReflectionUtils.get(Fields.of(clazz));
-        // java.io.Serial 在 Java 11 中不可用，且该注解不会在运行时出现，无法用于判断是否忽略
-        List<ColumnSpec> columns = fields.stream()
-                .filter(SpecUtils::shouldIgnoreColumn)
-                .map(f -> {
-                    Class<?> fClazz = f.getDeclaringClass();
-                    int depth = 0;
-                    while (fClazz != null) {
-                        depth++;
-                        fClazz = fClazz.getSuperclass();
-                    }
-                    return Pair.of(depth, f);
-                })
-                .sorted(Comparator.comparingInt(Pair::getLeft))
-                .map(Pair::getRight)
-                .map(SpecMaker::processField)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        // 处理类成员，父类声明的列在前
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        List<ColumnSpec> columns = new ArrayList<>();
+        for (Class<?> declaringClass : hierarchy) {
+            for (ColumnSpecBuilder builder : declaredColumns.apply(declaringClass)) {
+                columns.add(builder.build());
+            }
+        }
         if (columns.stream().filter(ColumnSpec::isPrimaryKey).count() > 1) {
             throw new IllegalStateException(
                     "Multiple primary keys found in class: " + clazz.getName());
         }
         tableSpec.setColumns(columns);
         EliasTable eliasTableAnnotation = clazz.getAnnotation(EliasTable.class);
+        List<IndexSpec> declaredIndexes = new ArrayList<>();
+        if (eliasTableAnnotation != null) {
+            declaredIndexes.addAll(toIndexSpecs(eliasTableAnnotation));
+        }
+        // 第三方注解声明的索引，例如 JPA Table.indexes
+        for (AnnotationIntegration integration : IntegrationRegistry.getIntegrations()) {
+            declaredIndexes.addAll(integration.resolveIndexes(clazz));
+        }
+        if (!declaredIndexes.isEmpty()) {
+            tableSpec.setIndexes(createIndexSpecs(declaredIndexes, columns));
+        }
         if (eliasTableAnnotation != null && eliasTableAnnotation.indexes().length > 0) {
-            List<IndexSpec> indexSpecs = createIndexSpecs(eliasTableAnnotation, columns);
-            tableSpec.setIndexes(indexSpecs);
             List<SpatialIndexSpec> spatialIndexSpecs = createSpatialIndexSpecs(eliasTableAnnotation,
                     columns);
             tableSpec.setSpatialIndexSpecs(spatialIndexSpecs);
@@ -88,13 +215,27 @@ public class SpecMaker {
     }
 
     /**
-     * 解析索引配置
+     * 解析索引配置，编译期的 {@link cc.ddrpa.dorian.elias.core.processor.IndexDeclarationProcessor} 也会使用同样的规则检查索引声明
      *
      * @param eliasTableAnno
      * @param columnSpecs
      * @return
+     * @throws IllegalStateException 索引声明不合法时
      */
-    protected static List<IndexSpec> createIndexSpecs(EliasTable eliasTableAnno,
+    public static List<IndexSpec> createIndexSpecs(EliasTable eliasTableAnno,
+                                                      List<ColumnSpec> columnSpecs) {
+        return createIndexSpecs(toIndexSpecs(eliasTableAnno), columnSpecs);
+    }
+
+    /**
+     * 解析索引声明，未指定名称的索引按列名生成名称
+     *
+     * @param declaredIndexes 索引声明，名称可以为空
+     * @param columnSpecs
+     * @return
+     * @throws IllegalStateException 索引声明不合法时
+     */
+    public static List<IndexSpec> createIndexSpecs(List<IndexSpec> declaredIndexes,
                                                       List<ColumnSpec> columnSpecs) {
         Set<String> existedColumnNameSet = columnSpecs.stream()
                 .map(ColumnSpec::getName)
@@ -103,22 +244,22 @@ public class SpecMaker {
                 .filter(columnSpec -> !columnSpec.isNullable())
                 .map(ColumnSpec::getName)
                 .collect(Collectors.toSet());
-        Map<String, IndexSpec> indexSpecMap = Arrays.stream(eliasTableAnno.indexes())
-                .map(indexAnno -> {
+        Map<String, IndexSpec> indexSpecMap = declaredIndexes.stream()
+                .map(declaredIndex -> {
                     String indexName;
-                    String columnList = indexAnno.columns();
+                    String columnList = declaredIndex.getColumns();
                     if (StringUtils.isBlank(columnList)) {
                         throw new IllegalStateException(
                                 "Index column list is empty, please specify columns in @EliasTable.indexes");
                     }
-                    if (StringUtils.isNoneBlank(indexAnno.name())) {
-                        indexName = indexAnno.name();
+                    if (StringUtils.isNoneBlank(declaredIndex.getName())) {
+                        indexName = declaredIndex.getName();
                     } else {
                         List<String> annotatedColumns = Arrays.stream(
-                                        indexAnno.columns().split(","))
+                                        declaredIndex.getColumns().split(","))
                                 .map(columnSpec -> columnSpec.trim().split(" ")[0])
                                 .toList();
-                        if (indexAnno.unique()) {
+                        if (declaredIndex.isUnique()) {
                             indexName = "uk_";
                             // 唯一索引成员必须满足 not_null 条件
                             if (annotatedColumns.stream()
@@ -141,25 +282,35 @@ public class SpecMaker {
                     }
                     return new IndexSpec()
                             .setName(indexName)
-                            .setUnique(indexAnno.unique())
-                            .setColumns(indexAnno.columns());
+                            .setUnique(declaredIndex.isUnique())
+                            .setColumns(declaredIndex.getColumns());
                 })
                 .collect(Collectors.toMap(IndexSpec::getName, spec -> spec));
-        if (eliasTableAnno.indexes().length != indexSpecMap.size()) {
+        if (declaredIndexes.size() != indexSpecMap.size()) {
             throw new IllegalStateException(
                     "Duplicate index names found in EliasTable annotation, some indexes may be ignored.");
         }
         return new ArrayList<>(indexSpecMap.values());
     }
 
+    private static List<IndexSpec> toIndexSpecs(EliasTable eliasTableAnno) {
+        return Arrays.stream(eliasTableAnno.indexes())
+                .map(indexAnno -> new IndexSpec()
+                        .setName(indexAnno.name())
+                        .setUnique(indexAnno.unique())
+                        .setColumns(indexAnno.columns()))
+                .toList();
+    }
+
     /**
      * 解析空间索引配置
      *
      * @param eliasTableAnno
      * @param columnSpecs
      * @return
+     * @throws IllegalStateException 空间索引声明不合法时
      */
-    protected static List<SpatialIndexSpec> createSpatialIndexSpecs(
+    public static List<SpatialIndexSpec> createSpatialIndexSpecs(
             EliasTable eliasTableAnno, List<ColumnSpec> columnSpecs) {
         Map<String, SpatialIndexSpec> indexSpecMap = new HashMap<>();
         if (eliasTableAnno.autoSpatialIndexForGeometry()) {
@@ -214,22 +365,34 @@ public class SpecMaker {
         return new ArrayList<>(indexSpecMap.values());
     }
 
+    /**
+     * 推断某个类自身声明的列，不包括父类
+     *
+     * @param declaringClass
+     * @return
+     */
+    private static List<ColumnSpecBuilder> makeDeclaredColumns(Class<?> declaringClass) {
+        // java.io.Serial 在 Java 11 中不可用，且该注解不会在运行时出现，无法用于判断是否忽略
+        return Arrays.stream(declaringClass.getDeclaredFields())
+                .map(FieldDescriptor::of)
+                .filter(SpecUtils::shouldIgnoreColumn)
+                .map(SpecMaker::processField)
+                .toList();
+    }
+
     /**
      * 将类的属性转换为列定义
      *
      * @param field
      * @return
      */
-    private static ColumnSpec processField(Field field) {
+    private static ColumnSpecBuilder processField(FieldDescriptor field) {
         logger.trace("process field: {}", field.getName());
-        String fieldTypeName = field.getType().getName();
-        Optional<SpecBuilderFactory> factory = factories.stream().
-                filter(f -> f.fit(fieldTypeName, field))
-                .findFirst();
-        if (factory.isEmpty()) {
-            logger.info("No suitable SpecBuilderFactory found for field {} with type {}, fallback to TEXT", field.getName(), fieldTypeName);
-            return new TextSpecBuilderFactory().builder(field, true).build();
+        SpecBuilderFactory factory = dispatcher.dispatch(field);
+        if (Objects.isNull(factory)) {
+            logger.info("No suitable SpecBuilderFactory found for field {} with type {}, fallback to TEXT", field.getName(), field.getTypeName());
+            return FALLBACK_FACTORY.builder(field, true);
         }
-        return factory.get().builder(field).build();
+        return factory.builder(field);
     }
 }
\ No newline at end of file
@@ -2,17 +2,29 @@ package cc.ddrpa.dorian.elias.core;
 
 import cc.ddrpa.dorian.elias.core.annotation.EliasIgnore;
 import cc.ddrpa.dorian.elias.core.annotation.EliasTable;
-import com.baomidou.mybatisplus.annotation.TableField;
-import com.baomidou.mybatisplus.annotation.TableName;
+import cc.ddrpa.dorian.elias.core.integration.AnnotationIntegration;
+import cc.ddrpa.dorian.elias.core.integration.IntegrationRegistry;
+import cc.ddrpa.dorian.elias.core.naming.NamingStrategy;
+import cc.ddrpa.dorian.elias.core.naming.SnakeCaseNamingStrategy;
 import org.apache.commons.lang3.StringUtils;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 public class SpecUtils {
 
+    private static final Pattern CAMEL_CASE_BOUNDARY = Pattern.compile("(?<=[a-z])[A-Z]");
+
+    private static volatile NamingStrategy namingStrategy = new SnakeCaseNamingStrategy();
+    /**
+     * 按类缓存推导出的表名和列名，使用 ClassValue 而不是以 Class 为键的 Map，避免缓存阻止类加载器被回收
+     */
+    private static volatile ClassValue<String> tableNames = newTableNameCache();
+    private static volatile ClassValue<Map<String, String>> columnNames = newColumnNameCache();
+
     private SpecUtils() {
         throw new UnsupportedOperationException("Utility class cannot be instantiated");
     }
@@ -23,8 +35,17 @@ public class SpecUtils {
      * @param field
      */
     public static boolean shouldIgnoreColumn(Field field) {
+        return shouldIgnoreColumn(FieldDescriptor.of(field));
+    }
+
+    /**
+     * 判断某个字段是否需要忽略
+     *
+     * @param field
+     */
+    public static boolean shouldIgnoreColumn(FieldDescriptor field) {
         // 如果字段是静态的，忽略
-        if (Modifier.isStatic(field.getModifiers())) {
+        if (field.isStatic()) {
             return false;
         }
         // 忽略 serialVersionUID
@@ -34,15 +55,16 @@ public class SpecUtils {
         /**
          * 如果字段有 {@link EliasIgnore 注解 }，忽略
          */
-        if (field.isAnnotationPresent(EliasIgnore.class)) {
+        if (field.isEliasIgnore()) {
             return false;
         }
         /**
-         * 如果字段有 {@link com.baomidou.mybatisplus.annotation.TableField} 注解且 exist 为 false，忽略
+         * 如果第三方注解声明字段不对应列，例如 {@link com.baomidou.mybatisplus.annotation.TableField} 的 exist 为 false，忽略
          */
-        if (field.isAnnotationPresent(com.baomidou.mybatisplus.annotation.TableField.class)) {
-            TableField tableField = field.getAnnotation(TableField.class);
-            return tableField.exist();
+        for (AnnotationIntegration integration : IntegrationRegistry.getIntegrations()) {
+            if (integration.isTransient(field)) {
+                return false;
+            }
         }
         return true;
     }
@@ -54,8 +76,22 @@ public class SpecUtils {
      * @return
      */
     public static String camelCaseToSnakeCase(String text) {
-        Matcher m = Pattern.compile("(?<=[a-z])[A-Z]").matcher(text);
-        return m.replaceAll(match -> "_" + match.group().toLowerCase());
+        return CAMEL_CASE_BOUNDARY.matcher(text).replaceAll(match -> "_" + match.group().toLowerCase());
+    }
+
+    public static NamingStrategy getNamingStrategy() {
+        return namingStrategy;
+    }
+
+    /**
+     * 替换命名规则并清空已缓存的表名和列名，应通过 {@link SpecMaker#setNamingStrategy(NamingStrategy)} 调用
+     *
+     * @param strategy
+     */
+    static synchronized void setNamingStrategy(NamingStrategy strategy) {
+        namingStrategy = Objects.requireNonNull(strategy);
+        tableNames = newTableNameCache();
+        columnNames = newColumnNameCache();
     }
 
     /**
@@ -65,19 +101,24 @@ public class SpecUtils {
      * @return
      */
     public static String getTableName(Class<?> clazz) {
-        if (clazz.isAnnotationPresent(TableName.class)) {
-            TableName tableNameAnnotation = clazz.getAnnotation(TableName.class);
-            if (StringUtils.isNoneBlank(tableNameAnnotation.value())) {
-                return tableNameAnnotation.value();
+        return tableNames.get(clazz);
+    }
+
+    private static String resolveTableName(Class<?> clazz) {
+        // 优先级 TableName / JPA Table 声明 > EliasTable 前缀 > 按命名规则从类名推导
+        for (AnnotationIntegration integration : IntegrationRegistry.getIntegrations()) {
+            String tableName = integration.resolveTableName(clazz);
+            if (Objects.nonNull(tableName)) {
+                return tableName;
             }
-        } else if (clazz.isAnnotationPresent(EliasTable.class)) {
+        }
+        if (clazz.isAnnotationPresent(EliasTable.class)) {
             EliasTable eliasTableAnnotation = clazz.getAnnotation(EliasTable.class);
             if (StringUtils.isNoneBlank(eliasTableAnnotation.tablePrefix())) {
-                return eliasTableAnnotation.tablePrefix() + camelCaseToSnakeCase(
-                        clazz.getSimpleName()).toLowerCase();
+                return eliasTableAnnotation.tablePrefix() + namingStrategy.getTableName(clazz);
             }
         }
-        return camelCaseToSnakeCase(clazz.getSimpleName()).toLowerCase();
+        return namingStrategy.getTableName(clazz);
     }
 
     /**
@@ -87,12 +128,46 @@ public class SpecUtils {
      * @return
      */
     public static String getColumnName(Field field) {
-        if (field.isAnnotationPresent(TableField.class)) {
-            TableField tableFieldAnnotation = field.getAnnotation(TableField.class);
-            if (StringUtils.isNoneBlank(tableFieldAnnotation.value())) {
-                return tableFieldAnnotation.value();
+        return getColumnName(FieldDescriptor.of(field));
+    }
+
+    /**
+     * 推断列名
+     *
+     * @param field
+     * @return
+     */
+    public static String getColumnName(FieldDescriptor field) {
+        return columnNames.get(field.getDeclaringClass())
+                .computeIfAbsent(field.getName(), name -> resolveColumnName(field));
+    }
+
+    private static String resolveColumnName(FieldDescriptor field) {
+        // 优先级 TableField / TableId / JPA Column 声明 > 按命名规则从 property 推导
+        for (AnnotationIntegration integration : IntegrationRegistry.getIntegrations()) {
+            String columnName = integration.resolveColumnName(field);
+            if (Objects.nonNull(columnName)) {
+                return columnName;
             }
         }
-        return camelCaseToSnakeCase(field.getName());
+        return namingStrategy.getColumnName(field.getField());
+    }
+
+    private static ClassValue<String> newTableNameCache() {
+        return new ClassValue<>() {
+            @Override
+            protected String computeValue(Class<?> type) {
+                return resolveTableName(type);
+            }
+        };
+    }
+
+    private static ClassValue<Map<String, String>> newColumnNameCache() {
+        return new ClassValue<>() {
+            @Override
+            protected Map<String, String> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
     }
-}
\ No newline at end of file
+}
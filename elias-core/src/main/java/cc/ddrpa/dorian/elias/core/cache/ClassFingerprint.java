@@ -0,0 +1,100 @@
+package cc.ddrpa.dorian.elias.core.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 基于字节码计算类的指纹
+ * <p>
+ * 实体类的指纹覆盖它自身、所有父类（直到 Object），以及这些类中声明的枚举类型字段的字节码，
+ * 修改 BaseEntity 或是给枚举添加成员都会使指纹失效
+ */
+public class ClassFingerprint {
+
+    public static final int LENGTH = 32;
+
+    private ClassFingerprint() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * 计算实体类的指纹
+     *
+     * @param clazz
+     * @return 如果某个相关类的字节码无法读取（例如运行时动态生成的类），返回空
+     */
+    public static Optional<byte[]> of(Class<?> clazz) {
+        Set<Class<?>> related = new LinkedHashSet<>();
+        Class<?> current = clazz;
+        while (Objects.nonNull(current) && current != Object.class) {
+            related.add(current);
+            current = current.getSuperclass();
+        }
+        Set<Class<?>> enumTypes = new LinkedHashSet<>();
+        for (Class<?> type : related) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getType().isEnum()) {
+                    enumTypes.add(field.getType());
+                }
+            }
+        }
+        related.addAll(enumTypes);
+        return digest(related);
+    }
+
+    /**
+     * 计算一组类的联合指纹
+     *
+     * @param classes
+     * @return 如果某个类的字节码无法读取，返回空
+     */
+    public static Optional<byte[]> digest(Collection<Class<?>> classes) {
+        MessageDigest digest = newDigest();
+        for (Class<?> type : classes) {
+            Optional<byte[]> bytecode = readBytecode(type);
+            if (bytecode.isEmpty()) {
+                return Optional.empty();
+            }
+            digest.update(type.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update(bytecode.get());
+        }
+        return Optional.of(digest.digest());
+    }
+
+    /**
+     * 读取类的字节码
+     *
+     * @param type
+     * @return
+     */
+    public static Optional<byte[]> readBytecode(Class<?> type) {
+        ClassLoader classLoader = Objects.requireNonNullElse(type.getClassLoader(),
+                ClassLoader.getSystemClassLoader());
+        String resourceName = type.getName().replace('.', '/') + ".class";
+        try (InputStream is = classLoader.getResourceAsStream(resourceName)) {
+            if (Objects.isNull(is)) {
+                return Optional.empty();
+            }
+            return Optional.of(is.readAllBytes());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
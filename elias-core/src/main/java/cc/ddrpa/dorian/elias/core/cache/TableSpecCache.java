@@ -0,0 +1,282 @@
+package cc.ddrpa.dorian.elias.core.cache;
+
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.SpecUtils;
+import cc.ddrpa.dorian.elias.core.factory.SpecBuilderFactory;
+import cc.ddrpa.dorian.elias.core.integration.AnnotationIntegration;
+import cc.ddrpa.dorian.elias.core.integration.IntegrationRegistry;
+import cc.ddrpa.dorian.elias.core.naming.NamingStrategy;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 持久化在磁盘上的 TableSpec 缓存
+ * <p>
+ * 缓存文件在打开时一次性读入堆内存，不会持有文件句柄或内存映射，保存时可以直接替换文件（Windows 上无法替换仍被映射的文件）。每个条目以实体类的 {@link ClassFingerprint} 为键，实体类或其父类的字节码发生变化时条目失效。
+ * Elias 自身的类型推断规则（SpecMaker 和已注册的 SpecBuilderFactory）发生变化时整个文件失效。未命中时通过反射重新构建 TableSpec
+ * <p>
+ * 文件格式：
+ * <pre>
+ * magic(int) version(int) rulesSignature(32 bytes) entryCount(int)
+ * entry: className(string) fingerprint(32 bytes) payloadLength(int) payload({@link TableSpecCodec})
+ * </pre>
+ */
+public class TableSpecCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableSpecCache.class);
+    private static final int MAGIC = 0x454C4941;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final byte[] rulesSignature;
+    private final Map<String, Entry> persistedEntries;
+    private final Map<String, Entry> currentEntries = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Optional<byte[]>> fingerprints = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private volatile boolean dirty = false;
+
+    private TableSpecCache(Path file, byte[] rulesSignature, Map<String, Entry> persistedEntries) {
+        this.file = file;
+        this.rulesSignature = rulesSignature;
+        this.persistedEntries = persistedEntries;
+    }
+
+    /**
+     * 打开缓存文件，文件不存在、已损坏或是类型推断规则已经变化时，返回一个空的缓存
+     *
+     * @param file
+     * @return
+     */
+    public static TableSpecCache open(Path file) {
+        byte[] rulesSignature = rulesSignature();
+        Map<String, Entry> entries = new HashMap<>();
+        if (Files.isRegularFile(file)) {
+            try {
+                entries = readEntries(file, rulesSignature);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Unable to read TableSpec cache {}, rebuilding: {}", file,
+                        e.getMessage());
+                entries = new HashMap<>();
+            }
+        }
+        return new TableSpecCache(file, rulesSignature, entries);
+    }
+
+    /**
+     * 从缓存中获取 TableSpec，每次调用都会返回一个新的对象
+     *
+     * @param clazz
+     * @return 未命中或实体类已经变化时返回空
+     */
+    public Optional<TableSpec> get(Class<?> clazz) {
+        Optional<byte[]> fingerprint = fingerprint(clazz);
+        if (fingerprint.isEmpty()) {
+            return Optional.empty();
+        }
+        Entry entry = persistedEntries.get(clazz.getName());
+        if (Objects.isNull(entry) || !Arrays.equals(entry.fingerprint, fingerprint.get())) {
+            return Optional.empty();
+        }
+        currentEntries.put(clazz.getName(), entry);
+        hits.incrementAndGet();
+        return Optional.of(TableSpecCodec.decode(ByteBuffer.wrap(entry.payload)));
+    }
+
+    /**
+     * 写入缓存，调用 {@link #save()} 后才会持久化
+     *
+     * @param clazz
+     * @param tableSpec
+     */
+    public void put(Class<?> clazz, TableSpec tableSpec) {
+        Optional<byte[]> fingerprint = fingerprint(clazz);
+        if (fingerprint.isEmpty()) {
+            return;
+        }
+        currentEntries.put(clazz.getName(),
+                new Entry(fingerprint.get(), TableSpecCodec.encode(tableSpec)));
+        dirty = true;
+    }
+
+    /**
+     * 从缓存中获取 TableSpec，未命中时通过 {@link SpecMaker#makeTableSpec(Class)} 构建并写入缓存
+     *
+     * @param clazz
+     * @return
+     */
+    public TableSpec getOrMake(Class<?> clazz) {
+        return get(clazz).orElseGet(() -> {
+            misses.incrementAndGet();
+            TableSpec tableSpec = SpecMaker.makeTableSpec(clazz);
+            put(clazz, tableSpec);
+            return tableSpec;
+        });
+    }
+
+    /**
+     * 批量获取 TableSpec，未命中的类通过 {@link SpecMaker#makeTableSpecs(Collection)} 并行构建并写入缓存，
+     * 返回顺序与参数的迭代顺序一致
+     *
+     * @param classes
+     * @return
+     * @throws IllegalStateException 有类转换失败时
+     */
+    public List<TableSpec> getOrMake(Collection<Class<?>> classes) {
+        List<Class<?>> classList = List.copyOf(classes);
+        TableSpec[] tableSpecs = new TableSpec[classList.size()];
+        List<Integer> missedIndexes = new ArrayList<>();
+        List<Class<?>> missedClasses = new ArrayList<>();
+        for (int i = 0; i < classList.size(); i++) {
+            Optional<TableSpec> cached = get(classList.get(i));
+            if (cached.isPresent()) {
+                tableSpecs[i] = cached.get();
+            } else {
+                missedIndexes.add(i);
+                missedClasses.add(classList.get(i));
+            }
+        }
+        if (!missedClasses.isEmpty()) {
+            misses.addAndGet(missedClasses.size());
+            List<TableSpec> made = SpecMaker.makeTableSpecs(missedClasses);
+            for (int i = 0; i < made.size(); i++) {
+                put(missedClasses.get(i), made.get(i));
+                tableSpecs[missedIndexes.get(i)] = made.get(i);
+            }
+        }
+        return Arrays.asList(tableSpecs);
+    }
+
+    /**
+     * 将本次使用过的条目写回缓存文件，没有变化时不会重写文件
+     *
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        logger.debug("TableSpec cache {}: {} hits, {} misses", file, hits.get(), misses.get());
+        if (!dirty && currentEntries.size() == persistedEntries.size()) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(rulesSignature);
+                Map<String, Entry> sorted = new TreeMap<>(currentEntries);
+                out.writeInt(sorted.size());
+                for (Map.Entry<String, Entry> e : sorted.entrySet()) {
+                    TableSpecCodec.writeString(out, e.getKey());
+                    out.write(e.getValue().fingerprint);
+                    out.writeInt(e.getValue().payload.length);
+                    out.write(e.getValue().payload);
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private Optional<byte[]> fingerprint(Class<?> clazz) {
+        return fingerprints.computeIfAbsent(clazz, ClassFingerprint::of);
+    }
+
+    private static Map<String, Entry> readEntries(Path file, byte[] rulesSignature)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Unrecognized cache file format");
+        }
+        byte[] signature = new byte[ClassFingerprint.LENGTH];
+        buffer.get(signature);
+        Map<String, Entry> entries = new HashMap<>();
+        if (!Arrays.equals(signature, rulesSignature)) {
+            logger.debug("Type inference rules changed, TableSpec cache {} discarded", file);
+            return entries;
+        }
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            String className = TableSpecCodec.readString(buffer);
+            byte[] fingerprint = new byte[ClassFingerprint.LENGTH];
+            buffer.get(fingerprint);
+            byte[] payload = new byte[buffer.getInt()];
+            buffer.get(payload);
+            entries.put(className, new Entry(fingerprint, payload));
+        }
+        return entries;
+    }
+
+    /**
+     * Elias 类型推断规则的签名，覆盖缓存格式版本、命名规则的配置，以及 SpecMaker、所有已注册 SpecBuilderFactory、
+     * 已启用注解适配和命名规则的字节码
+     *
+     * @return
+     */
+    public static byte[] rulesSignature() {
+        List<Class<?>> ruleClasses = new ArrayList<>(List.of(
+                SpecMaker.class, SpecUtils.class, FieldDescriptor.class, SpecBuilderFactory.class,
+                ColumnSpecBuilder.class, TableSpecCodec.class));
+        for (SpecBuilderFactory factory : SpecMaker.getFactories()) {
+            ruleClasses.add(factory.getClass());
+        }
+        for (AnnotationIntegration integration : IntegrationRegistry.getIntegrations()) {
+            ruleClasses.add(integration.getClass());
+        }
+        NamingStrategy namingStrategy = SpecUtils.getNamingStrategy();
+        ruleClasses.add(namingStrategy.getClass());
+        MessageDigest digest = ClassFingerprint.newDigest();
+        digest.update(Integer.toString(FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+        // 命名规则的类名和字节码在下面处理，这里只加入其配置
+        digest.update(namingStrategy.configuration().getBytes(StandardCharsets.UTF_8));
+        for (Class<?> ruleClass : ruleClasses) {
+            digest.update(ruleClass.getName().getBytes(StandardCharsets.UTF_8));
+            ClassFingerprint.readBytecode(ruleClass).ifPresent(digest::update);
+        }
+        return digest.digest();
+    }
+
+    private static final class Entry {
+
+        private final byte[] fingerprint;
+        private final byte[] payload;
+
+        private Entry(byte[] fingerprint, byte[] payload) {
+            this.fingerprint = fingerprint;
+            this.payload = payload;
+        }
+    }
+}
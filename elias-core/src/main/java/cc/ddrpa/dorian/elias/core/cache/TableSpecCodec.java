@@ -0,0 +1,170 @@
+package cc.ddrpa.dorian.elias.core.cache;
+
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
+import cc.ddrpa.dorian.elias.core.spec.SpatialIndexSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * TableSpec 的紧凑二进制编码
+ * <p>
+ * 字符串编码为 4 字节长度 + UTF-8 字节，长度为 -1 表示 null；列的布尔属性以及 length、precision/scale 是否存在记录在 1 字节的 flags 中
+ */
+public class TableSpecCodec {
+
+    private static final int FLAG_NULLABLE = 1;
+    private static final int FLAG_PRIMARY_KEY = 1 << 1;
+    private static final int FLAG_AUTO_INCREMENT = 1 << 2;
+    private static final int FLAG_LENGTH = 1 << 3;
+    private static final int FLAG_PRECISION_AND_SCALE = 1 << 4;
+
+    private TableSpecCodec() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static byte[] encode(TableSpec tableSpec) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            writeString(out, tableSpec.getName());
+            out.writeInt(tableSpec.getColumns().size());
+            for (ColumnSpec column : tableSpec.getColumns()) {
+                writeColumn(out, column);
+            }
+            out.writeInt(tableSpec.getIndexes().size());
+            for (IndexSpec index : tableSpec.getIndexes()) {
+                writeString(out, index.getName());
+                out.writeBoolean(index.isUnique());
+                writeString(out, index.getColumns());
+            }
+            out.writeInt(tableSpec.getSpatialIndexSpecs().size());
+            for (SpatialIndexSpec spatialIndex : tableSpec.getSpatialIndexSpecs()) {
+                writeString(out, spatialIndex.getName());
+                writeString(out, spatialIndex.getColumns());
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream 不会抛出 IOException
+            throw new UncheckedIOException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * 计算 TableSpec 的 SHA-256 指纹，表名、列、索引的任何变化（包括列的顺序）都会改变指纹
+     *
+     * @param tableSpec
+     * @return
+     */
+    public static byte[] digest(TableSpec tableSpec) {
+        return ClassFingerprint.newDigest().digest(encode(tableSpec));
+    }
+
+    public static TableSpec decode(ByteBuffer buffer) {
+        TableSpec tableSpec = new TableSpec().setName(readString(buffer));
+        int columnCount = buffer.getInt();
+        List<ColumnSpec> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(readColumn(buffer));
+        }
+        int indexCount = buffer.getInt();
+        List<IndexSpec> indexes = new ArrayList<>(indexCount);
+        for (int i = 0; i < indexCount; i++) {
+            indexes.add(new IndexSpec()
+                    .setName(readString(buffer))
+                    .setUnique(buffer.get() != 0)
+                    .setColumns(readString(buffer)));
+        }
+        int spatialIndexCount = buffer.getInt();
+        List<SpatialIndexSpec> spatialIndexes = new ArrayList<>(spatialIndexCount);
+        for (int i = 0; i < spatialIndexCount; i++) {
+            spatialIndexes.add(new SpatialIndexSpec()
+                    .setName(readString(buffer))
+                    .setColumns(readString(buffer)));
+        }
+        return tableSpec.setColumns(columns)
+                .setIndexes(indexes)
+                .setSpatialIndexSpecs(spatialIndexes);
+    }
+
+    private static void writeColumn(DataOutputStream out, ColumnSpec column) throws IOException {
+        int flags = 0;
+        if (column.isNullable()) {
+            flags |= FLAG_NULLABLE;
+        }
+        if (column.isPrimaryKey()) {
+            flags |= FLAG_PRIMARY_KEY;
+        }
+        if (column.isAutoIncrement()) {
+            flags |= FLAG_AUTO_INCREMENT;
+        }
+        if (Objects.nonNull(column.getLength())) {
+            flags |= FLAG_LENGTH;
+        }
+        if (Objects.nonNull(column.getPrecision()) && Objects.nonNull(column.getScale())) {
+            flags |= FLAG_PRECISION_AND_SCALE;
+        }
+        writeString(out, column.getName());
+        writeString(out, column.getDataType());
+        out.writeByte(flags);
+        if ((flags & FLAG_LENGTH) != 0) {
+            out.writeLong(column.getLength());
+        }
+        if ((flags & FLAG_PRECISION_AND_SCALE) != 0) {
+            out.writeInt(column.getPrecision());
+            out.writeInt(column.getScale());
+        }
+        out.writeInt(column.getSrid());
+        writeString(out, column.getDefaultValue());
+        writeString(out, column.getComment());
+    }
+
+    private static ColumnSpec readColumn(ByteBuffer buffer) {
+        ColumnSpec column = new ColumnSpec().setName(readString(buffer));
+        String dataType = readString(buffer);
+        if (Objects.nonNull(dataType)) {
+            column.setDataType(dataType);
+        }
+        int flags = buffer.get();
+        if ((flags & FLAG_LENGTH) != 0) {
+            column.setLength(buffer.getLong());
+        }
+        if ((flags & FLAG_PRECISION_AND_SCALE) != 0) {
+            column.setPrecisionAndScale(buffer.getInt(), buffer.getInt());
+        }
+        return column.setSrid(buffer.getInt())
+                .setNullable((flags & FLAG_NULLABLE) != 0)
+                .setPrimaryKey((flags & FLAG_PRIMARY_KEY) != 0)
+                .setAutoIncrement((flags & FLAG_AUTO_INCREMENT) != 0)
+                .setDefaultValue(readString(buffer))
+                .setComment(readString(buffer));
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,12 +1,14 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
 import cc.ddrpa.dorian.elias.core.ConstantsPool;
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.annotation.types.Decimal;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
+import java.lang.annotation.Annotation;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class BigDecimalSpecBuilderFactory implements SpecBuilderFactory {
 
@@ -16,18 +18,28 @@ public class BigDecimalSpecBuilderFactory implements SpecBuilderFactory {
     );
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        if (field.isAnnotationPresent(Decimal.class)) {
+    public boolean fit(FieldDescriptor field) {
+        if (field.hasAnnotation(Decimal.class)) {
             return true;
         }
-        return ACCEPTED_TYPES.contains(fieldTypeName);
+        return ACCEPTED_TYPES.contains(field.getTypeName());
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public Set<String> acceptedTypeNames() {
+        return Set.copyOf(ACCEPTED_TYPES);
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> acceptedAnnotations() {
+        return Set.of(Decimal.class);
+    }
+
+    @Override
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         int precision = ConstantsPool.BIG_DECIMAL_DEFAULT_PRECISION;
         int scale = ConstantsPool.BIG_DECIMAL_DEFAULT_SCALE;
-        if (field.isAnnotationPresent(Decimal.class)) {
+        if (field.hasAnnotation(Decimal.class)) {
             Decimal decimalAnno = Objects.requireNonNull(field.getAnnotation(Decimal.class));
             precision = decimalAnno.precision();
             scale = decimalAnno.scale();
@@ -1,23 +1,35 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.annotation.preset.IsHash;
 import cc.ddrpa.dorian.elias.core.annotation.preset.IsUUID;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
+import java.lang.annotation.Annotation;
+import java.util.Set;
 
 public class BinarySpecBuilderFactory implements SpecBuilderFactory {
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        return field.isAnnotationPresent(IsUUID.class) || field.isAnnotationPresent(IsHash.class);
+    public boolean fit(FieldDescriptor field) {
+        return field.hasAnnotation(IsUUID.class) || field.hasAnnotation(IsHash.class);
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public Set<String> acceptedTypeNames() {
+        return Set.of();
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> acceptedAnnotations() {
+        return Set.of(IsUUID.class, IsHash.class);
+    }
+
+    @Override
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         long length;
         
-        if (field.isAnnotationPresent(IsHash.class)) {
+        if (field.hasAnnotation(IsHash.class)) {
             // IsHash 注解，根据 HashType 设置长度
             IsHash isHash = field.getAnnotation(IsHash.class);
             length = isHash.value().getLength();
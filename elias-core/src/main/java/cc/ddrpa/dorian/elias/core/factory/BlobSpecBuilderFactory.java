@@ -1,13 +1,21 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
+import java.util.Set;
 
 public class BlobSpecBuilderFactory implements SpecBuilderFactory {
 
+    // byte[] 与 Byte[] 的类型名称分别为 [B 和 [Ljava.lang.Byte;
+    private static final Set<String> TYPE_NAMES = Set.of(
+            "[B",
+            "[Ljava.lang.Byte;",
+            "java.sql.Blob"
+    );
+
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
+    public boolean fit(FieldDescriptor field) {
         if (field.getType().isArray()) {
             String simpleFieldType = field.getType().getSimpleName();
             if (simpleFieldType.equalsIgnoreCase("byte[]")
@@ -15,11 +23,16 @@ public class BlobSpecBuilderFactory implements SpecBuilderFactory {
                 return true;
             }
         }
-        return fieldTypeName.equalsIgnoreCase("java.sql.Blob");
+        return field.getTypeName().equalsIgnoreCase("java.sql.Blob");
+    }
+
+    @Override
+    public Set<String> acceptedTypeNames() {
+        return TYPE_NAMES;
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         return SpecBuilderFactory.super.builder(field)
                 .setDataType("blob")
                 .setLength(64000L);
@@ -1,9 +1,10 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Set;
 
 public class BooleanSpecBuilderFactory implements SpecBuilderFactory {
 
@@ -13,12 +14,17 @@ public class BooleanSpecBuilderFactory implements SpecBuilderFactory {
     );
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        return ACCEPTED_BOOLEAN_TYPES.contains(fieldTypeName);
+    public boolean fit(FieldDescriptor field) {
+        return ACCEPTED_BOOLEAN_TYPES.contains(field.getTypeName());
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public Set<String> acceptedTypeNames() {
+        return Set.copyOf(ACCEPTED_BOOLEAN_TYPES);
+    }
+
+    @Override
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         return SpecBuilderFactory.super.builder(field)
                 .setDataType("tinyint")
                 .setLength(1L);
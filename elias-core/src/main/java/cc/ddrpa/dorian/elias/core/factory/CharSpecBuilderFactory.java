@@ -1,26 +1,43 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.annotation.preset.IsUUIDAsStr;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
+import java.lang.annotation.Annotation;
+import java.util.Set;
 
 public class CharSpecBuilderFactory implements SpecBuilderFactory {
 
+    private static final Set<String> TYPE_NAMES = Set.of(
+            "char",
+            "java.lang.Character"
+    );
+
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        if (field.isAnnotationPresent(IsUUIDAsStr.class)) {
+    public boolean fit(FieldDescriptor field) {
+        if (field.hasAnnotation(IsUUIDAsStr.class)) {
             return true;
         }
-        return fieldTypeName.equalsIgnoreCase("char")
-                || fieldTypeName.equalsIgnoreCase("java.lang.Character");
+        return field.getTypeName().equalsIgnoreCase("char")
+                || field.getTypeName().equalsIgnoreCase("java.lang.Character");
+    }
+
+    @Override
+    public Set<String> acceptedTypeNames() {
+        return TYPE_NAMES;
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> acceptedAnnotations() {
+        return Set.of(IsUUIDAsStr.class);
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
         builder.setDataType("char");
-        if (field.isAnnotationPresent(IsUUIDAsStr.class)) {
+        if (field.hasAnnotation(IsUUIDAsStr.class)) {
             // 如果字段有 IsUUIDAsStr 注解，设置为 CHAR(36)
             builder.setLength(36L);
         } else {
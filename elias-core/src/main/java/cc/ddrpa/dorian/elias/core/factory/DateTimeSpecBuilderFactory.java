@@ -1,9 +1,12 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class DateTimeSpecBuilderFactory implements SpecBuilderFactory {
 
@@ -23,17 +26,26 @@ public class DateTimeSpecBuilderFactory implements SpecBuilderFactory {
             "java.util.Date",
             "java.time.Instant"
     );
+    private static final Set<String> TYPE_NAMES = Stream.of(ACCEPTED_DATE_TYPE,
+                    ACCEPTED_TIME_TYPE, ACCEPTED_DATETIME_TYPE)
+            .flatMap(List::stream)
+            .collect(Collectors.toUnmodifiableSet());
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        return ACCEPTED_DATE_TYPE.contains(fieldTypeName)
-                || ACCEPTED_TIME_TYPE.contains(fieldTypeName)
-                || ACCEPTED_DATETIME_TYPE.contains(fieldTypeName);
+    public boolean fit(FieldDescriptor field) {
+        return ACCEPTED_DATE_TYPE.contains(field.getTypeName())
+                || ACCEPTED_TIME_TYPE.contains(field.getTypeName())
+                || ACCEPTED_DATETIME_TYPE.contains(field.getTypeName());
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
-        String fieldType = field.getType().getName();
+    public Set<String> acceptedTypeNames() {
+        return TYPE_NAMES;
+    }
+
+    @Override
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
+        String fieldType = field.getTypeName();
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
         if (ACCEPTED_DATE_TYPE.contains(fieldType)) {
             builder.setDataType("date");
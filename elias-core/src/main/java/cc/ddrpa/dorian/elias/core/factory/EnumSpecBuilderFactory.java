@@ -1,5 +1,6 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 import com.baomidou.mybatisplus.annotation.IEnum;
 
@@ -11,12 +12,12 @@ import java.util.List;
 public class EnumSpecBuilderFactory implements SpecBuilderFactory {
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
+    public boolean fit(FieldDescriptor field) {
         return field.getType().isEnum();
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
         builder.setDataType("tinyint")
                 .setLength(deriveDataLength(field.getType()));
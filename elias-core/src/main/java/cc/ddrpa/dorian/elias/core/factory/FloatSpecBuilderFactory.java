@@ -1,9 +1,12 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FloatSpecBuilderFactory implements SpecBuilderFactory {
 
@@ -15,16 +18,25 @@ public class FloatSpecBuilderFactory implements SpecBuilderFactory {
             "double",
             "java.lang.Double"
     );
+    private static final Set<String> TYPE_NAMES = Stream.of(ACCEPTED_FLOAT_TYPES,
+                    ACCEPTED_DOUBLE_TYPES)
+            .flatMap(List::stream)
+            .collect(Collectors.toUnmodifiableSet());
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        return ACCEPTED_FLOAT_TYPES.contains(fieldTypeName)
-                || ACCEPTED_DOUBLE_TYPES.contains(fieldTypeName);
+    public boolean fit(FieldDescriptor field) {
+        return ACCEPTED_FLOAT_TYPES.contains(field.getTypeName())
+                || ACCEPTED_DOUBLE_TYPES.contains(field.getTypeName());
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
-        String fieldType = field.getType().getName();
+    public Set<String> acceptedTypeNames() {
+        return TYPE_NAMES;
+    }
+
+    @Override
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
+        String fieldType = field.getTypeName();
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
         if (ACCEPTED_DOUBLE_TYPES.contains(fieldType)) {
             return builder.setDataType("double");
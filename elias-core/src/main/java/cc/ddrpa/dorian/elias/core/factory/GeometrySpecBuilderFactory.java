@@ -1,13 +1,15 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.annotation.enums.SpatialDataType;
 import cc.ddrpa.dorian.elias.core.annotation.preset.IsGeo;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
+import java.lang.annotation.Annotation;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class GeometrySpecBuilderFactory implements SpecBuilderFactory {
 
@@ -34,27 +36,57 @@ public class GeometrySpecBuilderFactory implements SpecBuilderFactory {
         ENUM_TYPE_MAP.put(SpatialDataType.MULTIPOLYGON, "multipolygon");
     }
 
+    /**
+     * 推断字段的空间数据类型，IsGeo 注解的声明优先于字段类型
+     *
+     * @param isGeo    字段上的 IsGeo 注解，可以为 null
+     * @param typeName 字段类型名称
+     * @return 无法推断时返回 null
+     */
+    public static String dataTypeOf(IsGeo isGeo, String typeName) {
+        if (Objects.nonNull(isGeo)) {
+            return ENUM_TYPE_MAP.get(isGeo.type());
+        }
+        return CLASS_TYPE_MAP.get(typeName);
+    }
+
+    /**
+     * 除非通过 IsGeo 注解特别指定，为了添加空间索引，地理空间数据类型不允许为 NULL
+     *
+     * @param isGeo 字段上的 IsGeo 注解，可以为 null
+     * @return
+     */
+    public static boolean isNullable(IsGeo isGeo) {
+        return Objects.nonNull(isGeo) && isGeo.nullable();
+    }
+
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        if (field.isAnnotationPresent(IsGeo.class)) {
+    public boolean fit(FieldDescriptor field) {
+        if (field.hasAnnotation(IsGeo.class)) {
             return true;
         }
-        return CLASS_TYPE_MAP.containsKey(fieldTypeName);
+        return CLASS_TYPE_MAP.containsKey(field.getTypeName());
+    }
+
+    @Override
+    public Set<String> acceptedTypeNames() {
+        return CLASS_TYPE_MAP.keySet();
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> acceptedAnnotations() {
+        return Set.of(IsGeo.class);
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
-        if (field.isAnnotationPresent(IsGeo.class)) {
-            IsGeo isGeoAnno = Objects.requireNonNull(field.getAnnotation(IsGeo.class));
-            builder.setDataType(ENUM_TYPE_MAP.get(isGeoAnno.type()))
-                    .setSrid(isGeoAnno.srid())
-                    .setNullable(isGeoAnno.nullable());
-        } else {
-            // 除非特别指定，为了添加空间索引，地理空间数据类型不允许为 NULL
-            // NEED_CHECK
-            builder.setDataType(CLASS_TYPE_MAP.get(field.getType().getName()))
-                    .setNullable(false);
+        IsGeo isGeoAnno = field.getAnnotation(IsGeo.class);
+        // NEED_CHECK
+        builder.setDataType(dataTypeOf(isGeoAnno, field.getTypeName()))
+                .setNullable(isNullable(isGeoAnno));
+        if (Objects.nonNull(isGeoAnno)) {
+            builder.setSrid(isGeoAnno.srid());
         }
         return builder;
     }
@@ -1,9 +1,12 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Factory for handling InetAddress types and converting them to appropriate BINARY types.
@@ -26,16 +29,26 @@ public class InetAddressSpecBuilderFactory implements SpecBuilderFactory {
             "java.net.InetAddress"
     );
 
+    private static final Set<String> TYPE_NAMES = Stream.of(INET4_ADDRESS_TYPES,
+                    INET6_ADDRESS_TYPES, INET_ADDRESS_TYPES)
+            .flatMap(List::stream)
+            .collect(Collectors.toUnmodifiableSet());
+
+    @Override
+    public boolean fit(FieldDescriptor field) {
+        return INET4_ADDRESS_TYPES.contains(field.getTypeName())
+                || INET6_ADDRESS_TYPES.contains(field.getTypeName())
+                || INET_ADDRESS_TYPES.contains(field.getTypeName());
+    }
+
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        return INET4_ADDRESS_TYPES.contains(fieldTypeName)
-                || INET6_ADDRESS_TYPES.contains(fieldTypeName)
-                || INET_ADDRESS_TYPES.contains(fieldTypeName);
+    public Set<String> acceptedTypeNames() {
+        return TYPE_NAMES;
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
-        String fieldType = field.getType().getName();
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
+        String fieldType = field.getTypeName();
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
 
         if (INET4_ADDRESS_TYPES.contains(fieldType)) {
@@ -1,9 +1,12 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class IntegerSpecBuilderFactory implements SpecBuilderFactory {
 
@@ -22,17 +25,26 @@ public class IntegerSpecBuilderFactory implements SpecBuilderFactory {
             "byte",
             "java.lang.Byte"
     );
+    private static final Set<String> TYPE_NAMES = Stream.of(ACCEPTED_BIG_INTEGER_TYPES,
+                    ACCEPTED_INTEGER_TYPES, ACCEPTED_SMALL_INTEGER_TYPES)
+            .flatMap(List::stream)
+            .collect(Collectors.toUnmodifiableSet());
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        return ACCEPTED_INTEGER_TYPES.contains(fieldTypeName)
-                || ACCEPTED_BIG_INTEGER_TYPES.contains(fieldTypeName)
-                || ACCEPTED_SMALL_INTEGER_TYPES.contains(fieldTypeName);
+    public boolean fit(FieldDescriptor field) {
+        return ACCEPTED_INTEGER_TYPES.contains(field.getTypeName())
+                || ACCEPTED_BIG_INTEGER_TYPES.contains(field.getTypeName())
+                || ACCEPTED_SMALL_INTEGER_TYPES.contains(field.getTypeName());
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
-        String fieldType = field.getType().getName();
+    public Set<String> acceptedTypeNames() {
+        return TYPE_NAMES;
+    }
+
+    @Override
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
+        String fieldType = field.getTypeName();
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
         if (ACCEPTED_BIG_INTEGER_TYPES.contains(fieldType)) {
             return builder.setDataType("bigint").setLength(20L);
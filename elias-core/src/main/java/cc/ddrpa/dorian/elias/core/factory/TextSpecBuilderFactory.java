@@ -1,21 +1,30 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
 import cc.ddrpa.dorian.elias.core.ConstantsPool;
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.annotation.types.CharLength;
 import cc.ddrpa.dorian.elias.core.annotation.types.UseText;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
+import java.lang.annotation.Annotation;
 import java.util.Objects;
+import java.util.Set;
 
 public class TextSpecBuilderFactory implements SpecBuilderFactory {
 
+    // char[] 的类型名称为 [C，Character[] 的 simpleName 为 Character[]，不会被 fit 接受
+    private static final Set<String> TYPE_NAMES = Set.of(
+            "java.lang.String",
+            "java.sql.Clob",
+            "[C"
+    );
+
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        if (field.isAnnotationPresent(UseText.class)) {
+    public boolean fit(FieldDescriptor field) {
+        if (field.hasAnnotation(UseText.class)) {
             return true;
         }
-        if (field.isAnnotationPresent(CharLength.class)) {
+        if (field.hasAnnotation(CharLength.class)) {
             return true;
         }
         // 字符串数组
@@ -26,21 +35,31 @@ public class TextSpecBuilderFactory implements SpecBuilderFactory {
                 return true;
             }
         }
-        return fieldTypeName.equalsIgnoreCase("java.lang.String") ||
-                fieldTypeName.equalsIgnoreCase("java.sql.Clob");
+        return field.getTypeName().equalsIgnoreCase("java.lang.String") ||
+                field.getTypeName().equalsIgnoreCase("java.sql.Clob");
+    }
+
+    @Override
+    public Set<String> acceptedTypeNames() {
+        return TYPE_NAMES;
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> acceptedAnnotations() {
+        return Set.of(UseText.class, CharLength.class);
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         return builder(field, false);
     }
 
-    public ColumnSpecBuilder builder(Field field, boolean isFallback) {
+    public ColumnSpecBuilder builder(FieldDescriptor field, boolean isFallback) {
         ColumnSpecBuilder builder = SpecBuilderFactory.super.builder(field);
         if (isFallback) {
             builder.setDataType("varchar")
                     .setLength(ConstantsPool.VARCHAR_MAX_CHARACTER_LENGTH);
-        } else if (field.isAnnotationPresent(UseText.class)) {
+        } else if (field.hasAnnotation(UseText.class)) {
             UseText useTextAnno = Objects.requireNonNull(field.getAnnotation(UseText.class));
             if (useTextAnno.estimated() <= ConstantsPool.VARCHAR_MAX_CHARACTER_LENGTH) {
                 builder.setDataType("varchar")
@@ -54,7 +73,7 @@ public class TextSpecBuilderFactory implements SpecBuilderFactory {
             } else {
                 builder.setDataType("longtext");
             }
-        } else if (field.isAnnotationPresent(CharLength.class)) {
+        } else if (field.hasAnnotation(CharLength.class)) {
             CharLength charLengthAnno = Objects.requireNonNull(
                     field.getAnnotation(CharLength.class));
             long estimatedLength = charLengthAnno.length() > 0L ? charLengthAnno.length() : 255L;
@@ -71,7 +90,7 @@ public class TextSpecBuilderFactory implements SpecBuilderFactory {
                     || simpleFieldType.equalsIgnoreCase("java.lang.Character[]")) {
                 builder.setDataType("text");
             }
-        } else if (field.getType().getName().equalsIgnoreCase("java.sql.Clob")) {
+        } else if (field.getTypeName().equalsIgnoreCase("java.sql.Clob")) {
             builder.setDataType("text");
         } else {
             builder.setDataType("varchar").setLength(255L);
@@ -1,20 +1,32 @@
 package cc.ddrpa.dorian.elias.core.factory;
 
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
 import cc.ddrpa.dorian.elias.core.annotation.TypeOverride;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
 
-import java.lang.reflect.Field;
+import java.lang.annotation.Annotation;
 import java.util.Objects;
+import java.util.Set;
 
 public class TypeOverrideSpecBuilderFactory implements SpecBuilderFactory {
 
     @Override
-    public boolean fit(String fieldTypeName, Field field) {
-        return field.isAnnotationPresent(TypeOverride.class);
+    public boolean fit(FieldDescriptor field) {
+        return field.hasAnnotation(TypeOverride.class);
     }
 
     @Override
-    public ColumnSpecBuilder builder(Field field) {
+    public Set<String> acceptedTypeNames() {
+        return Set.of();
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> acceptedAnnotations() {
+        return Set.of(TypeOverride.class);
+    }
+
+    @Override
+    public ColumnSpecBuilder builder(FieldDescriptor field) {
         TypeOverride typeOverrideAnno = Objects.requireNonNull(
                 field.getAnnotation(TypeOverride.class));
         String dataType = typeOverrideAnno.type().toLowerCase();
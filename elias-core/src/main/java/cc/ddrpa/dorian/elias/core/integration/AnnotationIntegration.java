@@ -0,0 +1,76 @@
+package cc.ddrpa.dorian.elias.core.integration;
+
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
+import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
+
+import java.util.List;
+
+/**
+ * 第三方注解的适配
+ * <p>
+ * 只有对应的注解库在类路径上时才会被 {@link IntegrationRegistry} 创建，实现类可以直接引用这些注解类。
+ * 多个适配同时生效时按 {@link IntegrationRegistry#getIntegrations()} 的顺序调用
+ */
+public interface AnnotationIntegration {
+
+    /**
+     * 从类注解推断表名
+     *
+     * @param clazz
+     * @return 无法推断时返回 null
+     */
+    default String resolveTableName(Class<?> clazz) {
+        return null;
+    }
+
+    /**
+     * 从字段注解推断列名
+     *
+     * @param field
+     * @return 无法推断时返回 null
+     */
+    default String resolveColumnName(FieldDescriptor field) {
+        return null;
+    }
+
+    /**
+     * 字段是否不对应数据库中的列
+     *
+     * @param field
+     * @return
+     */
+    default boolean isTransient(FieldDescriptor field) {
+        return false;
+    }
+
+    /**
+     * 如果字段是主键，设置主键属性
+     *
+     * @param field
+     * @param builder
+     * @return 字段是主键时返回 true，之后不再应用其他列属性
+     */
+    default boolean applyPrimaryKey(FieldDescriptor field, ColumnSpecBuilder builder) {
+        return false;
+    }
+
+    /**
+     * 设置非空、默认值等列属性，数据类型和长度由 SpecBuilderFactory 决定
+     *
+     * @param field
+     * @param builder
+     */
+    default void applyColumn(FieldDescriptor field, ColumnSpecBuilder builder) {
+    }
+
+    /**
+     * 从类注解读取索引声明，未指定名称的索引按 {@link cc.ddrpa.dorian.elias.core.annotation.EliasTable.Index} 的规则命名
+     *
+     * @param clazz
+     * @return
+     */
+    default List<IndexSpec> resolveIndexes(Class<?> clazz) {
+        return List.of();
+    }
+}
@@ -0,0 +1,119 @@
+package cc.ddrpa.dorian.elias.core.integration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 可选注解库的注册表
+ * <p>
+ * 类加载时探测一次各注解库是否在类路径上，只为存在的注解库创建 {@link AnnotationIntegration}，
+ * 推断列定义时不会再触碰缺失的类
+ */
+public final class IntegrationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntegrationRegistry.class);
+    private static final Set<Family> PRESENT_FAMILIES;
+    private static final List<AnnotationIntegration> INTEGRATIONS;
+    private static final List<String> VALIDATION_PACKAGES = List.of(
+            "javax.validation.constraints",
+            "jakarta.validation.constraints"
+    );
+
+    static {
+        ClassLoader classLoader = IntegrationRegistry.class.getClassLoader();
+        Set<Family> present = EnumSet.noneOf(Family.class);
+        for (Family family : Family.values()) {
+            if (isLoadable(family.probeClassName, classLoader)) {
+                present.add(family);
+            }
+        }
+        // 顺序决定表名和列名的推断优先级
+        List<AnnotationIntegration> integrations = new ArrayList<>();
+        if (present.contains(Family.MYBATIS_PLUS)) {
+            integrations.add(new MybatisPlusIntegration());
+        }
+        if (present.contains(Family.JAKARTA_PERSISTENCE)) {
+            integrations.add(new JakartaPersistenceIntegration());
+        }
+        if (present.contains(Family.JAVAX_PERSISTENCE)) {
+            integrations.add(new JavaxPersistenceIntegration());
+        }
+        if (present.contains(Family.JAVAX_VALIDATION)) {
+            integrations.add(ValidationIntegration.load(VALIDATION_PACKAGES.get(0), classLoader));
+        }
+        if (present.contains(Family.JAKARTA_VALIDATION)) {
+            integrations.add(ValidationIntegration.load(VALIDATION_PACKAGES.get(1), classLoader));
+        }
+        PRESENT_FAMILIES = Collections.unmodifiableSet(present);
+        INTEGRATIONS = List.copyOf(integrations);
+        logger.debug("Annotation integrations enabled: {}", present);
+    }
+
+    private IntegrationRegistry() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * 注解库是否在类路径上
+     *
+     * @param family
+     * @return
+     */
+    public static boolean isPresent(Family family) {
+        return PRESENT_FAMILIES.contains(family);
+    }
+
+    /**
+     * 获取已启用的适配，按推断优先级排列
+     *
+     * @return
+     */
+    public static List<AnnotationIntegration> getIntegrations() {
+        return INTEGRATIONS;
+    }
+
+    /**
+     * javax / jakarta validation 中会使列不允许为 NULL 的注解的全限定名，与运行时加载的注解相同
+     *
+     * @return
+     */
+    public static Set<String> getNotNullAnnotationNames() {
+        Set<String> names = new HashSet<>();
+        for (String packageName : VALIDATION_PACKAGES) {
+            for (String simpleName : ValidationIntegration.NOT_NULL_CONSTRAINTS) {
+                names.add(packageName + "." + simpleName);
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    static boolean isLoadable(String className, ClassLoader classLoader) {
+        try {
+            Class.forName(className, false, classLoader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public enum Family {
+        JAVAX_VALIDATION("javax.validation.constraints.NotNull"),
+        JAKARTA_VALIDATION("jakarta.validation.constraints.NotNull"),
+        MYBATIS_PLUS("com.baomidou.mybatisplus.annotation.TableName"),
+        JAVAX_PERSISTENCE("javax.persistence.Column"),
+        JAKARTA_PERSISTENCE("jakarta.persistence.Column");
+
+        private final String probeClassName;
+
+        Family(String probeClassName) {
+            this.probeClassName = probeClassName;
+        }
+    }
+}
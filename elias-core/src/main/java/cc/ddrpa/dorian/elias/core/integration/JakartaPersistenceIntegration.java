@@ -0,0 +1,65 @@
+package cc.ddrpa.dorian.elias.core.integration;
+
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
+import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
+import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * jakarta.persistence：Table 的表名和索引，Column 的列名和 nullable
+ * <p>
+ * 列类型仍由 SpecBuilderFactory 推断，Column 的 length、precision 等属性不会生效
+ */
+class JakartaPersistenceIntegration implements AnnotationIntegration {
+
+    @Override
+    public String resolveTableName(Class<?> clazz) {
+        Table table = clazz.getAnnotation(Table.class);
+        if (Objects.nonNull(table) && StringUtils.isNoneBlank(table.name())) {
+            return table.name();
+        }
+        return null;
+    }
+
+    @Override
+    public String resolveColumnName(FieldDescriptor field) {
+        Column column = field.getAnnotation(Column.class);
+        if (Objects.nonNull(column) && StringUtils.isNoneBlank(column.name())) {
+            return column.name();
+        }
+        return null;
+    }
+
+    @Override
+    public void applyColumn(FieldDescriptor field, ColumnSpecBuilder builder) {
+        Column column = field.getAnnotation(Column.class);
+        if (Objects.nonNull(column) && !column.nullable()) {
+            builder.setNullable(false);
+        }
+    }
+
+    @Override
+    public List<IndexSpec> resolveIndexes(Class<?> clazz) {
+        Table table = clazz.getAnnotation(Table.class);
+        if (Objects.isNull(table)) {
+            return List.of();
+        }
+        return Arrays.stream(table.indexes())
+                .map(this::toIndexSpec)
+                .toList();
+    }
+
+    private IndexSpec toIndexSpec(Index index) {
+        return new IndexSpec()
+                .setName(index.name())
+                .setUnique(index.unique())
+                .setColumns(index.columnList());
+    }
+}
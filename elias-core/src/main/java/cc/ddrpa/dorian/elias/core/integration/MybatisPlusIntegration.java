@@ -0,0 +1,90 @@
+package cc.ddrpa.dorian.elias.core.integration;
+
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
+import cc.ddrpa.dorian.elias.core.SpecUtils;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Objects;
+
+/**
+ * MyBatis-Plus：TableName、TableField、TableId、TableLogic
+ */
+class MybatisPlusIntegration implements AnnotationIntegration {
+
+    @Override
+    public String resolveTableName(Class<?> clazz) {
+        TableName tableNameAnnotation = clazz.getAnnotation(TableName.class);
+        if (Objects.isNull(tableNameAnnotation)) {
+            return null;
+        }
+        if (StringUtils.isNoneBlank(tableNameAnnotation.value())) {
+            return tableNameAnnotation.value();
+        }
+        // 未指定表名时与 MyBatis-Plus 一样从类名推导，不再使用 EliasTable 的前缀
+        return SpecUtils.getNamingStrategy().getTableName(clazz);
+    }
+
+    /**
+     * 优先级 TableField 声明 > TableId 声明
+     *
+     * @param field
+     * @return
+     */
+    @Override
+    public String resolveColumnName(FieldDescriptor field) {
+        TableField tableField = field.getAnnotation(TableField.class);
+        if (Objects.nonNull(tableField)) {
+            return StringUtils.isNoneBlank(tableField.value()) ? tableField.value() : null;
+        }
+        TableId tableId = field.getAnnotation(TableId.class);
+        if (Objects.nonNull(tableId) && StringUtils.isNoneBlank(tableId.value())) {
+            return tableId.value();
+        }
+        return null;
+    }
+
+    /**
+     * TableField 注解的 exist 为 false 时忽略
+     *
+     * @param field
+     * @return
+     */
+    @Override
+    public boolean isTransient(FieldDescriptor field) {
+        TableField tableField = field.getAnnotation(TableField.class);
+        return Objects.nonNull(tableField) && !tableField.exist();
+    }
+
+    @Override
+    public boolean applyPrimaryKey(FieldDescriptor field, ColumnSpecBuilder builder) {
+        TableId tableId = field.getAnnotation(TableId.class);
+        if (Objects.isNull(tableId)) {
+            return false;
+        }
+        // 设置主键时需要指定是否设置 autoIncrement 属性
+        builder.setPrimaryKey(
+                IdType.AUTO.equals(tableId.type()) || IdType.NONE.equals(tableId.type()));
+        return true;
+    }
+
+    /**
+     * TableLogic 修饰的列默认值为 0
+     * <p>
+     * NEED_CHECK 这一功能有待商榷，在 Mybatis-Plus 中 deleted-value 可以通过配置文件修改为其他值
+     *
+     * @param field
+     * @param builder
+     */
+    @Override
+    public void applyColumn(FieldDescriptor field, ColumnSpecBuilder builder) {
+        if (field.hasAnnotation(TableLogic.class)) {
+            builder.setDefaultValue("0");
+        }
+    }
+}
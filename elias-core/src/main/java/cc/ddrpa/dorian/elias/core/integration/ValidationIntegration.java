@@ -0,0 +1,53 @@
+package cc.ddrpa.dorian.elias.core.integration;
+
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpecBuilder;
+
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * javax / jakarta validation：NotNull、NotEmpty、NotBlank 修饰的列不允许为 NULL
+ * <p>
+ * 两套 API 的注解同名，只有包名不同，启动时按包名加载注解类，字段上按注解类型比较
+ */
+class ValidationIntegration implements AnnotationIntegration {
+
+    static final List<String> NOT_NULL_CONSTRAINTS = List.of("NotNull", "NotEmpty", "NotBlank");
+
+    private final Set<Class<?>> notNullAnnotations;
+
+    private ValidationIntegration(Set<Class<?>> notNullAnnotations) {
+        this.notNullAnnotations = notNullAnnotations;
+    }
+
+    /**
+     * 加载指定包中的约束注解，Bean Validation 1.x 中没有 NotEmpty 和 NotBlank，缺失的注解会被跳过
+     *
+     * @param packageName
+     * @param classLoader
+     * @return
+     */
+    static ValidationIntegration load(String packageName, ClassLoader classLoader) {
+        Set<Class<?>> annotations = new HashSet<>();
+        for (String simpleName : NOT_NULL_CONSTRAINTS) {
+            try {
+                annotations.add(Class.forName(packageName + "." + simpleName, false, classLoader));
+            } catch (ClassNotFoundException | LinkageError ignored) {
+            }
+        }
+        return new ValidationIntegration(Set.copyOf(annotations));
+    }
+
+    @Override
+    public void applyColumn(FieldDescriptor field, ColumnSpecBuilder builder) {
+        for (Annotation annotation : field.getAnnotations()) {
+            if (notNullAnnotations.contains(annotation.annotationType())) {
+                builder.setNullable(false);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package cc.ddrpa.dorian.elias.core.naming;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * 与 MyBatis-Plus {@code GlobalConfig.DbConfig} 一致的命名规则
+ * <p>
+ * 将 DbConfig 中的 tablePrefix、tableUnderline、capitalMode、tableFormat、columnFormat，
+ * 以及 MyBatis 的 mapUnderscoreToCamelCase 配置为同样的值，即可得到与 MyBatis-Plus 相同的表名和列名。
+ * 与默认规则不同，MyBatis-Plus 会在每个大写字母前添加下划线，例如 {@code URLPath} 转为 {@code u_r_l_path}
+ */
+public class MybatisPlusNamingStrategy implements NamingStrategy {
+
+    private String tablePrefix = "";
+    private boolean tableUnderline = true;
+    private boolean capitalMode = false;
+    private String tableFormat;
+    private String columnFormat;
+    private boolean mapUnderscoreToCamelCase = true;
+
+    public MybatisPlusNamingStrategy setTablePrefix(String tablePrefix) {
+        this.tablePrefix = tablePrefix;
+        return this;
+    }
+
+    public MybatisPlusNamingStrategy setTableUnderline(boolean tableUnderline) {
+        this.tableUnderline = tableUnderline;
+        return this;
+    }
+
+    public MybatisPlusNamingStrategy setCapitalMode(boolean capitalMode) {
+        this.capitalMode = capitalMode;
+        return this;
+    }
+
+    public MybatisPlusNamingStrategy setTableFormat(String tableFormat) {
+        this.tableFormat = tableFormat;
+        return this;
+    }
+
+    public MybatisPlusNamingStrategy setColumnFormat(String columnFormat) {
+        this.columnFormat = columnFormat;
+        return this;
+    }
+
+    public MybatisPlusNamingStrategy setMapUnderscoreToCamelCase(boolean mapUnderscoreToCamelCase) {
+        this.mapUnderscoreToCamelCase = mapUnderscoreToCamelCase;
+        return this;
+    }
+
+    @Override
+    public String getTableName(Class<?> clazz) {
+        String tableName = clazz.getSimpleName();
+        if (tableUnderline) {
+            tableName = camelToUnderline(tableName);
+        }
+        if (capitalMode) {
+            tableName = tableName.toUpperCase();
+        } else {
+            tableName = StringUtils.uncapitalize(tableName);
+        }
+        if (StringUtils.isNotBlank(tablePrefix)) {
+            tableName = tablePrefix + tableName;
+        }
+        if (StringUtils.isNotBlank(tableFormat)) {
+            tableName = String.format(tableFormat, tableName);
+        }
+        return tableName;
+    }
+
+    @Override
+    public String getColumnName(Field field) {
+        String columnName = field.getName();
+        if (tableUnderline && mapUnderscoreToCamelCase) {
+            columnName = camelToUnderline(columnName);
+        }
+        if (capitalMode) {
+            columnName = columnName.toUpperCase();
+        }
+        if (StringUtils.isNotBlank(columnFormat)) {
+            columnName = String.format(columnFormat, columnName);
+        }
+        return columnName;
+    }
+
+    @Override
+    public String configuration() {
+        return "tablePrefix=" + tablePrefix
+                + ", tableUnderline=" + tableUnderline
+                + ", capitalMode=" + capitalMode
+                + ", tableFormat=" + tableFormat
+                + ", columnFormat=" + columnFormat
+                + ", mapUnderscoreToCamelCase=" + mapUnderscoreToCamelCase;
+    }
+
+    @Override
+    public String toString() {
+        return "MybatisPlusNamingStrategy(" + configuration() + ")";
+    }
+
+    /**
+     * 与 MyBatis-Plus StringUtils.camelToUnderline 相同，除首字母外的每个大写字母前添加下划线并转为小写
+     *
+     * @param text
+     * @return
+     */
+    public static String camelToUnderline(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.isUpperCase(ch) && i > 0) {
+                sb.append('_');
+            }
+            sb.append(Character.toLowerCase(ch));
+        }
+        return sb.toString();
+    }
+}
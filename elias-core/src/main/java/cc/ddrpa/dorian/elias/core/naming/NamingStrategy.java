@@ -0,0 +1,40 @@
+package cc.ddrpa.dorian.elias.core.naming;
+
+import java.lang.reflect.Field;
+
+/**
+ * 表名和列名的命名规则
+ * <p>
+ * 仅在没有通过注解（例如 TableName、TableField、JPA Table / Column）指定名称时使用，
+ * 推导结果会按类和字段缓存，实现类需要保证同样的输入总是得到同样的结果
+ */
+public interface NamingStrategy {
+
+    /**
+     * 从类推导表名
+     *
+     * @param clazz
+     * @return
+     */
+    String getTableName(Class<?> clazz);
+
+    /**
+     * 从字段推导列名
+     *
+     * @param field
+     * @return
+     */
+    String getColumnName(Field field);
+
+    /**
+     * 描述会影响推导结果的配置，例如前缀和格式
+     * <p>
+     * 与实现类的类名一起作为持久化缓存和 DevTools 重启缓存的签名，配置不同时已缓存的 TableSpec 失效。
+     * 没有可配置项的实现不需要覆盖
+     *
+     * @return
+     */
+    default String configuration() {
+        return "";
+    }
+}
@@ -0,0 +1,46 @@
+package cc.ddrpa.dorian.elias.core.naming;
+
+import java.lang.reflect.Field;
+import java.util.Objects;
+
+/**
+ * 为推导出的表名统一添加前缀，实体类上 {@link cc.ddrpa.dorian.elias.core.annotation.EliasTable#tablePrefix()}
+ * 的前缀会再加在这个前缀之前
+ */
+public class PrefixedNamingStrategy implements NamingStrategy {
+
+    private final String tablePrefix;
+    private final NamingStrategy delegate;
+
+    public PrefixedNamingStrategy(String tablePrefix) {
+        this(tablePrefix, new SnakeCaseNamingStrategy());
+    }
+
+    public PrefixedNamingStrategy(String tablePrefix, NamingStrategy delegate) {
+        this.tablePrefix = Objects.requireNonNull(tablePrefix);
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public String getTableName(Class<?> clazz) {
+        String tableName = delegate.getTableName(clazz);
+        // 类名已经带有前缀时不重复添加
+        return tableName.startsWith(tablePrefix) ? tableName : tablePrefix + tableName;
+    }
+
+    @Override
+    public String getColumnName(Field field) {
+        return delegate.getColumnName(field);
+    }
+
+    @Override
+    public String configuration() {
+        return "tablePrefix=" + tablePrefix + ", delegate=" + delegate.getClass().getName() + "("
+                + delegate.configuration() + ")";
+    }
+
+    @Override
+    public String toString() {
+        return "PrefixedNamingStrategy(" + tablePrefix + ", " + delegate + ")";
+    }
+}
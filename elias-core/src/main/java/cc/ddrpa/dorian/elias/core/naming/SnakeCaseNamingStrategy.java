@@ -0,0 +1,26 @@
+package cc.ddrpa.dorian.elias.core.naming;
+
+import cc.ddrpa.dorian.elias.core.SpecUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * 默认命名规则，驼峰转蛇形，表名转为小写，列名保留原有大小写
+ */
+public class SnakeCaseNamingStrategy implements NamingStrategy {
+
+    @Override
+    public String getTableName(Class<?> clazz) {
+        return SpecUtils.camelCaseToSnakeCase(clazz.getSimpleName()).toLowerCase();
+    }
+
+    @Override
+    public String getColumnName(Field field) {
+        return SpecUtils.camelCaseToSnakeCase(field.getName());
+    }
+
+    @Override
+    public String toString() {
+        return "SnakeCaseNamingStrategy";
+    }
+}
@@ -0,0 +1,137 @@
+package cc.ddrpa.dorian.elias.core.processor;
+
+import cc.ddrpa.dorian.elias.core.EntityIndex;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 在编译期记录使用 {@link cc.ddrpa.dorian.elias.core.annotation.EliasTable} 和
+ * {@link com.baomidou.mybatisplus.annotation.TableName} 修饰的类，写入
+ * {@value EntityIndex#INDEX_LOCATION}，运行时 {@link cc.ddrpa.dorian.elias.core.EntitySearcher}
+ * 读取该索引后就不需要再扫描类路径
+ * <p>
+ * 可以通过编译参数 {@code -Aelias.index.includeTableName=false} 关闭对 TableName 注解的记录
+ */
+public class EntityIndexProcessor extends AbstractProcessor {
+
+    static final String ELIAS_TABLE = "cc.ddrpa.dorian.elias.core.annotation.EliasTable";
+    static final String TABLE_NAME = "com.baomidou.mybatisplus.annotation.TableName";
+    static final String OPTION_INCLUDE_TABLE_NAME = "elias.index.includeTableName";
+
+    private final Map<String, Set<String>> entries = new TreeMap<>();
+    // 本次编译的所有类，其中不再带有注解的类需要从上一次的索引中移除
+    private final Set<String> compiledClasses = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(ELIAS_TABLE, TABLE_NAME);
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(OPTION_INCLUDE_TABLE_NAME);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        boolean includeTableName = !"false".equalsIgnoreCase(
+                processingEnv.getOptions().get(OPTION_INCLUDE_TABLE_NAME));
+        for (Element element : roundEnv.getRootElements()) {
+            collectClasses(element);
+        }
+        for (TypeElement annotation : annotations) {
+            String annotationName = annotation.getQualifiedName().toString();
+            if (TABLE_NAME.equals(annotationName) && !includeTableName) {
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    continue;
+                }
+                String className = processingEnv.getElementUtils()
+                        .getBinaryName((TypeElement) element).toString();
+                entries.computeIfAbsent(className, k -> new TreeSet<>()).add(annotationName);
+            }
+        }
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void collectClasses(Element element) {
+        if (!element.getKind().isClass() && !element.getKind().isInterface()) {
+            return;
+        }
+        compiledClasses.add(processingEnv.getElementUtils()
+                .getBinaryName((TypeElement) element).toString());
+        for (Element enclosed : element.getEnclosedElements()) {
+            collectClasses(enclosed);
+        }
+    }
+
+    /**
+     * 增量编译时只有部分类会被处理，需要合并上一次编译产生的索引
+     */
+    private void writeIndex() {
+        Filer filer = processingEnv.getFiler();
+        try {
+            Map<String, Set<String>> merged = new TreeMap<>(readExistingIndex(filer));
+            merged.putAll(entries);
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+                    EntityIndex.INDEX_LOCATION);
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(file.openOutputStream(), StandardCharsets.ISO_8859_1))) {
+                for (Map.Entry<String, Set<String>> entry : merged.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    writer.write(String.join(",", entry.getValue()));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + EntityIndex.INDEX_LOCATION + ": " + e.getMessage());
+        }
+    }
+
+    private Map<String, Set<String>> readExistingIndex(Filer filer) {
+        Map<String, Set<String>> existing = new TreeMap<>();
+        try {
+            FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "",
+                    EntityIndex.INDEX_LOCATION);
+            Properties properties = new Properties();
+            try (InputStream is = file.openInputStream()) {
+                properties.load(is);
+            }
+            for (String className : properties.stringPropertyNames()) {
+                // 已经被删除的类和本次编译后不再带有注解的类不再保留
+                if (compiledClasses.contains(className)
+                        || Objects.isNull(processingEnv.getElementUtils().getTypeElement(
+                        className.replace('$', '.')))) {
+                    continue;
+                }
+                existing.put(className,
+                        new TreeSet<>(Arrays.asList(properties.getProperty(className).split(","))));
+            }
+        } catch (IOException | IllegalArgumentException ignored) {
+            // 第一次编译时不存在索引文件
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,431 @@
+package cc.ddrpa.dorian.elias.core.processor;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.SpecUtils;
+import cc.ddrpa.dorian.elias.core.annotation.EliasTable;
+import cc.ddrpa.dorian.elias.core.annotation.TypeOverride;
+import cc.ddrpa.dorian.elias.core.annotation.preset.IsGeo;
+import cc.ddrpa.dorian.elias.core.factory.EnumSpecBuilderFactory;
+import cc.ddrpa.dorian.elias.core.factory.GeometrySpecBuilderFactory;
+import cc.ddrpa.dorian.elias.core.factory.SpecBuilderFactory;
+import cc.ddrpa.dorian.elias.core.factory.TypeOverrideSpecBuilderFactory;
+import cc.ddrpa.dorian.elias.core.integration.IntegrationRegistry;
+import cc.ddrpa.dorian.elias.core.naming.MybatisPlusNamingStrategy;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 在编译期检查 {@link EliasTable#indexes()}、{@link EliasTable#spatialIndexes()} 和 JPA {@code Table.indexes} 的声明，
+ * 例如引用了不存在的列、唯一索引包含可空列、索引重名等。检查直接调用运行时的 {@link SpecMaker#createIndexSpecs} 和
+ * {@link SpecMaker#createSpatialIndexSpecs}，调用条件也与 {@link SpecMaker#makeTableSpec} 相同，只拒绝运行时会拒绝的声明
+ * <p>
+ * 没有通过注解声明名称的列按编译参数 {@code -Aelias.namingStrategy} 推导列名：
+ * <ul>
+ *     <li>{@code snake_case}：默认值，与 {@link cc.ddrpa.dorian.elias.core.naming.SnakeCaseNamingStrategy} 相同</li>
+ *     <li>{@code mybatis_plus}：与默认配置的 {@link cc.ddrpa.dorian.elias.core.naming.MybatisPlusNamingStrategy} 相同</li>
+ *     <li>{@code custom}：使用了其他命名规则，索引中引用的列如果不能与显式声明名称的列对应，视为存在且非空</li>
+ * </ul>
+ * 字段由哪个 factory 处理按 {@link SpecMaker#getBuiltinFactories()} 的分派提示推断，空间数据类型和是否可空直接使用
+ * {@link GeometrySpecBuilderFactory} 和 {@link IntegrationRegistry} 中的规则。编译期无法得知运行时注册的自定义
+ * SpecBuilderFactory，如果使用了会改变列名或是否可空的自定义 factory，可以通过编译参数
+ * {@code -Aelias.validateIndexes=false} 关闭检查
+ * <p>
+ * 该处理器只做检查，不生成 TableSpec：运行时的推断依赖自定义 factory 和 IEnum#getValue 等只能在运行时得到的信息
+ */
+public class IndexDeclarationProcessor extends AbstractProcessor {
+
+    static final String OPTION_VALIDATE_INDEXES = "elias.validateIndexes";
+    static final String OPTION_NAMING_STRATEGY = "elias.namingStrategy";
+    private static final String NAMING_SNAKE_CASE = "snake_case";
+    private static final String NAMING_MYBATIS_PLUS = "mybatis_plus";
+    private static final String NAMING_CUSTOM = "custom";
+
+    private static final String ELIAS_IGNORE = "cc.ddrpa.dorian.elias.core.annotation.EliasIgnore";
+    private static final String TABLE_FIELD = "com.baomidou.mybatisplus.annotation.TableField";
+    private static final String TABLE_ID = "com.baomidou.mybatisplus.annotation.TableId";
+    /**
+     * 与运行时 IntegrationRegistry 的注册顺序一致
+     */
+    private static final List<String> PERSISTENCE_COLUMNS = List.of(
+            "jakarta.persistence.Column",
+            "javax.persistence.Column"
+    );
+    private static final List<String> PERSISTENCE_TABLES = List.of(
+            "jakarta.persistence.Table",
+            "javax.persistence.Table"
+    );
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(EntityIndexProcessor.ELIAS_TABLE);
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(OPTION_VALIDATE_INDEXES, OPTION_NAMING_STRATEGY);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if ("false".equalsIgnoreCase(processingEnv.getOptions().get(OPTION_VALIDATE_INDEXES))) {
+            return false;
+        }
+        String namingStrategy = namingStrategy();
+        for (Element element : roundEnv.getElementsAnnotatedWith(EliasTable.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            EliasTable eliasTable = element.getAnnotation(EliasTable.class);
+            if (eliasTable.enable()) {
+                validate((TypeElement) element, eliasTable, namingStrategy);
+            }
+        }
+        return false;
+    }
+
+    private String namingStrategy() {
+        String namingStrategy = processingEnv.getOptions()
+                .getOrDefault(OPTION_NAMING_STRATEGY, NAMING_SNAKE_CASE);
+        if (!Set.of(NAMING_SNAKE_CASE, NAMING_MYBATIS_PLUS, NAMING_CUSTOM)
+                .contains(namingStrategy)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Unknown " + OPTION_NAMING_STRATEGY + " '" + namingStrategy
+                            + "', treating it as " + NAMING_CUSTOM);
+            return NAMING_CUSTOM;
+        }
+        return namingStrategy;
+    }
+
+    private void validate(TypeElement typeElement, EliasTable eliasTable, String namingStrategy) {
+        // 与 SpecMaker.makeTableSpec 相同：EliasTable 中的索引在前，第三方注解声明的索引在后
+        List<IndexSpec> declaredIndexes = new ArrayList<>();
+        for (EliasTable.Index index : eliasTable.indexes()) {
+            declaredIndexes.add(new IndexSpec()
+                    .setName(index.name())
+                    .setUnique(index.unique())
+                    .setColumns(index.columns()));
+        }
+        declaredIndexes.addAll(derivePersistenceIndexes(typeElement));
+        // 运行时只在声明了 EliasTable.indexes 时处理空间索引
+        boolean checkSpatialIndexes = eliasTable.indexes().length > 0;
+        if (declaredIndexes.isEmpty() && !checkSpatialIndexes) {
+            return;
+        }
+        List<ColumnSpec> columns = deriveColumns(typeElement, namingStrategy);
+        if (columns.stream().anyMatch(columnSpec -> Objects.isNull(columnSpec.getName()))) {
+            columns = withUnresolvedColumns(columns, declaredIndexes,
+                    checkSpatialIndexes ? eliasTable.spatialIndexes() : new EliasTable.Index[0]);
+        }
+        try {
+            if (!declaredIndexes.isEmpty()) {
+                SpecMaker.createIndexSpecs(declaredIndexes, columns);
+            }
+            if (checkSpatialIndexes) {
+                SpecMaker.createSpatialIndexSpecs(eliasTable, columns);
+            }
+        } catch (IllegalStateException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Invalid index declaration in @EliasTable of "
+                            + typeElement.getQualifiedName() + ": " + e.getMessage(),
+                    typeElement);
+        }
+    }
+
+    /**
+     * 读取 jakarta / javax.persistence.Table 中声明的索引
+     *
+     * @param typeElement
+     * @return
+     */
+    private List<IndexSpec> derivePersistenceIndexes(TypeElement typeElement) {
+        List<IndexSpec> indexes = new ArrayList<>();
+        for (String persistenceTable : PERSISTENCE_TABLES) {
+            AnnotationMirror table = findAnnotation(typeElement, persistenceTable);
+            if (Objects.isNull(table)) {
+                continue;
+            }
+            for (Object value : (List<?>) annotationValue(table, "indexes")) {
+                AnnotationMirror index = (AnnotationMirror) ((AnnotationValue) value).getValue();
+                indexes.add(new IndexSpec()
+                        .setName(annotationValue(index, "name").toString())
+                        .setUnique((Boolean) annotationValue(index, "unique"))
+                        .setColumns(annotationValue(index, "columnList").toString()));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * 有列的名称取决于未知的命名规则时，为索引中引用的、无法与已知名称对应的列补充非空的列，避免误报
+     *
+     * @param columns
+     * @param declaredIndexes
+     * @param spatialIndexes
+     * @return
+     */
+    private List<ColumnSpec> withUnresolvedColumns(List<ColumnSpec> columns,
+                                                   List<IndexSpec> declaredIndexes,
+                                                   EliasTable.Index[] spatialIndexes) {
+        List<ColumnSpec> resolved = new ArrayList<>();
+        Set<String> knownNames = new HashSet<>();
+        for (ColumnSpec columnSpec : columns) {
+            if (Objects.nonNull(columnSpec.getName())) {
+                resolved.add(columnSpec);
+                knownNames.add(columnSpec.getName());
+            }
+        }
+        Map<String, String> unresolved = new LinkedHashMap<>();
+        for (IndexSpec indexSpec : declaredIndexes) {
+            for (String name : referencedColumns(indexSpec.getColumns())) {
+                unresolved.putIfAbsent(name, "varchar");
+            }
+        }
+        for (EliasTable.Index index : spatialIndexes) {
+            for (String name : referencedColumns(index.columns())) {
+                unresolved.put(name, "geometry");
+            }
+        }
+        unresolved.forEach((name, dataType) -> {
+            if (!knownNames.contains(name)) {
+                resolved.add(new ColumnSpec().setName(name).setDataType(dataType)
+                        .setNullable(false));
+            }
+        });
+        return resolved;
+    }
+
+    /**
+     * 与 SpecMaker 解析索引列的方式相同
+     */
+    private static List<String> referencedColumns(String columnList) {
+        if (Objects.isNull(columnList) || columnList.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(columnList.split(","))
+                .map(column -> column.trim().split(" ")[0])
+                .toList();
+    }
+
+    /**
+     * 按照运行时的规则推导列名、是否可空和空间数据类型，父类的列排在前面
+     *
+     * @param typeElement
+     * @return
+     */
+    private List<ColumnSpec> deriveColumns(TypeElement typeElement, String namingStrategy) {
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        TypeElement current = typeElement;
+        while (Objects.nonNull(current)) {
+            hierarchy.push(current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+        List<ColumnSpec> columns = new ArrayList<>();
+        for (TypeElement type : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (shouldIncludeField(field)) {
+                    columns.add(deriveColumn(field, namingStrategy));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private boolean shouldIncludeField(VariableElement field) {
+        if (field.getModifiers().contains(Modifier.STATIC)
+                || field.getSimpleName().toString().equalsIgnoreCase("serialVersionUID")
+                || Objects.nonNull(findAnnotation(field, ELIAS_IGNORE))) {
+            return false;
+        }
+        AnnotationMirror tableField = findAnnotation(field, TABLE_FIELD);
+        return Objects.isNull(tableField) || (Boolean) annotationValue(tableField, "exist");
+    }
+
+    private ColumnSpec deriveColumn(VariableElement field, String namingStrategy) {
+        ColumnSpec columnSpec = new ColumnSpec()
+                .setName(deriveColumnName(field, namingStrategy));
+        String typeName = runtimeTypeName(processingEnv.getTypeUtils().erasure(field.asType()));
+        SpecBuilderFactory factory = dispatch(field, typeName);
+        IsGeo isGeo = field.getAnnotation(IsGeo.class);
+        boolean geometry = factory instanceof GeometrySpecBuilderFactory;
+        if (factory instanceof TypeOverrideSpecBuilderFactory) {
+            columnSpec.setDataType(field.getAnnotation(TypeOverride.class).type().toLowerCase());
+        } else if (geometry) {
+            columnSpec.setDataType(GeometrySpecBuilderFactory.dataTypeOf(isGeo, typeName));
+        } else {
+            columnSpec.setDataType("varchar");
+        }
+        if (Objects.nonNull(findAnnotation(field, TABLE_ID))) {
+            return columnSpec.setPrimaryKey(true).setNullable(false);
+        }
+        Set<String> notNullAnnotations = IntegrationRegistry.getNotNullAnnotationNames();
+        boolean nullable = field.getAnnotationMirrors().stream()
+                .map(this::annotationName)
+                .noneMatch(notNullAnnotations::contains);
+        for (String persistenceColumn : PERSISTENCE_COLUMNS) {
+            AnnotationMirror column = findAnnotation(field, persistenceColumn);
+            if (Objects.nonNull(column) && !(Boolean) annotationValue(column, "nullable")) {
+                nullable = false;
+            }
+        }
+        if (geometry) {
+            nullable = GeometrySpecBuilderFactory.isNullable(isGeo);
+        }
+        return columnSpec.setNullable(nullable);
+    }
+
+    /**
+     * 按 {@link SpecMaker#getBuiltinFactories()} 的顺序和分派提示找到处理该字段的预设 factory，
+     * 与运行时没有注册自定义 factory 时的 FactoryDispatcher 相同
+     *
+     * @param field
+     * @param typeName 与 {@link Class#getName()} 格式相同的字段类型名称
+     * @return 没有 factory 适用时返回 null
+     */
+    private SpecBuilderFactory dispatch(VariableElement field, String typeName) {
+        Set<String> annotationNames = field.getAnnotationMirrors().stream()
+                .map(this::annotationName)
+                .collect(Collectors.toSet());
+        for (SpecBuilderFactory factory : SpecMaker.getBuiltinFactories()) {
+            Set<String> acceptedTypeNames = factory.acceptedTypeNames();
+            if (Objects.isNull(acceptedTypeNames)) {
+                // 预设 factory 中只有 EnumSpecBuilderFactory 无法静态列举能够处理的类型
+                if (factory instanceof EnumSpecBuilderFactory && isEnum(field.asType())) {
+                    return factory;
+                }
+                continue;
+            }
+            if (acceptedTypeNames.contains(typeName) || factory.acceptedAnnotations().stream()
+                    .map(Class::getName)
+                    .anyMatch(annotationNames::contains)) {
+                return factory;
+            }
+        }
+        return null;
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+    }
+
+    /**
+     * 擦除后的类型在运行时的 {@link Class#getName()}，例如 {@code int}、{@code [B}、{@code [Ljava.lang.Byte;}
+     *
+     * @param type
+     * @return
+     */
+    private String runtimeTypeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase();
+        }
+        if (type instanceof ArrayType arrayType) {
+            return "[" + descriptor(arrayType.getComponentType());
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return processingEnv.getElementUtils()
+                    .getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+        }
+        return type.toString();
+    }
+
+    private String descriptor(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "Z";
+            case BYTE -> "B";
+            case CHAR -> "C";
+            case SHORT -> "S";
+            case INT -> "I";
+            case LONG -> "J";
+            case FLOAT -> "F";
+            case DOUBLE -> "D";
+            case ARRAY -> runtimeTypeName(type);
+            default -> "L" + runtimeTypeName(type) + ";";
+        };
+    }
+
+    /**
+     * 推导列名，命名规则未知且没有通过注解声明名称时返回 null
+     *
+     * @param field
+     * @param namingStrategy
+     * @return
+     */
+    private String deriveColumnName(VariableElement field, String namingStrategy) {
+        AnnotationMirror tableField = findAnnotation(field, TABLE_FIELD);
+        if (Objects.nonNull(tableField)) {
+            String value = annotationValue(tableField, "value").toString();
+            if (!value.isBlank()) {
+                return value;
+            }
+        } else {
+            AnnotationMirror tableId = findAnnotation(field, TABLE_ID);
+            if (Objects.nonNull(tableId)) {
+                String value = annotationValue(tableId, "value").toString();
+                if (!value.isBlank()) {
+                    return value;
+                }
+            }
+        }
+        for (String persistenceColumn : PERSISTENCE_COLUMNS) {
+            AnnotationMirror column = findAnnotation(field, persistenceColumn);
+            if (Objects.nonNull(column)) {
+                String name = annotationValue(column, "name").toString();
+                if (!name.isBlank()) {
+                    return name;
+                }
+            }
+        }
+        String fieldName = field.getSimpleName().toString();
+        return switch (namingStrategy) {
+            case NAMING_SNAKE_CASE -> SpecUtils.camelCaseToSnakeCase(fieldName);
+            case NAMING_MYBATIS_PLUS -> MybatisPlusNamingStrategy.camelToUnderline(fieldName);
+            default -> null;
+        };
+    }
+
+    private String annotationName(AnnotationMirror annotationMirror) {
+        return ((TypeElement) annotationMirror.getAnnotationType().asElement())
+                .getQualifiedName().toString();
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            if (annotationName(annotationMirror).equals(annotationName)) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+
+    private Object annotationValue(AnnotationMirror annotationMirror, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror)
+                        .entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalArgumentException(
+                "Attribute " + attribute + " not found in " + annotationName(annotationMirror));
+    }
+}
@@ -2,6 +2,7 @@ package cc.ddrpa.dorian.elias.core.spec;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class ColumnModifySpec {
 
@@ -18,6 +19,26 @@ public class ColumnModifySpec {
      * 默认值
      */
     private String defaultValue;
+    /**
+     * 数据类型，例如 varchar
+     */
+    private String dataType;
+    /**
+     * 长度
+     */
+    private Long length;
+
+    // ========== 修改前的列信息，仅在数据类型相同而长度不同时记录 ==========
+    private String actualDataType;
+    private Long actualLength;
+    /**
+     * 修改前的最大字节数，由长度和字符集决定，未知时为 null
+     */
+    private Long actualOctetLength;
+    /**
+     * 修改前是否可空，仅在是否可空不一致时记录
+     */
+    private boolean actualNullable = false;
 
     // ========== 修改标记 ==========
     /**
@@ -32,6 +53,10 @@ public class ColumnModifySpec {
      * 需要修改默认值
      */
     private boolean alterDefaultValue = false;
+    /**
+     * 缩小类型或长度，可能截断已有的数据
+     */
+    private boolean lossy = false;
 
     private boolean autoFixEnabled = true;
     private final List<String> warnings = new ArrayList<>(0);
@@ -121,4 +146,76 @@ public class ColumnModifySpec {
         this.defaultValue = defaultValue;
         return this;
     }
-}
\ No newline at end of file
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public ColumnModifySpec setDataType(String dataType) {
+        this.dataType = dataType;
+        return this;
+    }
+
+    public Long getLength() {
+        return length;
+    }
+
+    public ColumnModifySpec setLength(Long length) {
+        this.length = length;
+        return this;
+    }
+
+    public String getActualDataType() {
+        return actualDataType;
+    }
+
+    public ColumnModifySpec setActualDataType(String actualDataType) {
+        this.actualDataType = actualDataType;
+        return this;
+    }
+
+    public Long getActualLength() {
+        return actualLength;
+    }
+
+    public ColumnModifySpec setActualLength(Long actualLength) {
+        this.actualLength = actualLength;
+        return this;
+    }
+
+    public Long getActualOctetLength() {
+        return actualOctetLength;
+    }
+
+    public ColumnModifySpec setActualOctetLength(Long actualOctetLength) {
+        this.actualOctetLength = actualOctetLength;
+        return this;
+    }
+
+    public boolean isActualNullable() {
+        return actualNullable;
+    }
+
+    public ColumnModifySpec setActualNullable(boolean actualNullable) {
+        this.actualNullable = actualNullable;
+        return this;
+    }
+
+    public boolean isLossy() {
+        return lossy;
+    }
+
+    public ColumnModifySpec setLossy(boolean lossy) {
+        this.lossy = lossy;
+        return this;
+    }
+
+    /**
+     * 从可空改为非空，并且可以用默认值回填已有的 NULL
+     *
+     * @return
+     */
+    public boolean isNullBackfillable() {
+        return alterNullable && actualNullable && !nullable && Objects.nonNull(defaultValue);
+    }
+}
@@ -26,6 +26,8 @@ public class ColumnModifySpecBuilder {
         columnModifySpec.setColumnType(expectedSpec.getColumnType());
         columnModifySpec.setNullable(expectedSpec.isNullable());
         columnModifySpec.setDefaultValue(expectedSpec.getDefaultValue());
+        columnModifySpec.setDataType(expectedSpec.getDataType());
+        columnModifySpec.setLength(expectedSpec.getLength());
 
         // 设置修改标记
         if (mismatch.isColumnTypeMismatch()) {
@@ -35,19 +37,27 @@ public class ColumnModifySpecBuilder {
                 if (!isLosslessDataTypeMigrate(
                         mismatch.getActualDataType(),
                         mismatch.getExpectedDataType())) {
-                    // 检查是否允许降低数据类型精度
-                    columnModifySpec.addWarning(
+                    // 可能截断数据，不允许自动修复
+                    columnModifySpec.setLossy(true);
+                    columnModifySpec.warn(
                             "* Reducing the size of a data type—like converting BIGINT to INT or DATETIME to DATE can cause truncation or loss of precision.");
                 }
             } else if (mismatch.isLengthMismatch()) {
                 // 类型保持不变，但长度不一致
+                if ("varchar".equals(mismatch.getActualDataType())) {
+                    // 用于判断能否原地扩展 VARCHAR
+                    columnModifySpec.setActualDataType(mismatch.getActualDataType());
+                    columnModifySpec.setActualLength(mismatch.getActualLength());
+                    columnModifySpec.setActualOctetLength(mismatch.getActualOctetLength());
+                }
                 if ((mismatch.getExpectedDataType().endsWith("text")
                         || mismatch.getExpectedDataType().equals("blob")
                         || mismatch.getExpectedDataType().endsWith("char"))
                         && (mismatch.getExpectedLength() < mismatch.getActualLength())) {
                     // 如果是 BLOB/CHAR/TEXT 类型，则新的长度必须大于旧的长度
-                    // 检查是否允许数据范围缩小
-                    columnModifySpec.addWarning(
+                    // 可能截断数据，不允许自动修复
+                    columnModifySpec.setLossy(true);
+                    columnModifySpec.warn(
                             "* Reducing the length of CHAR, BLOB, or TEXT columns can result in data truncation.");
                 }
             }
@@ -56,6 +66,7 @@ public class ColumnModifySpecBuilder {
             columnModifySpec.setAlterNullable(true);
             // 将可空字段转换为非空字段可能会失败
             if (mismatch.getActualNullable()) {
+                columnModifySpec.setActualNullable(true);
                 // 检查是否允许 nullable 修改为 not null
                 columnModifySpec.addWarning(
                         "* Setting a nullable column to NOT NULL may lead to constraint violations if any records contain null values.");
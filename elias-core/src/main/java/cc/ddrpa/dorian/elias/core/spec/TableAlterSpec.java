@@ -0,0 +1,67 @@
+package cc.ddrpa.dorian.elias.core.spec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一张表需要的全部结构变更，合并为一条 ALTER TABLE 语句执行，表至多重建一次
+ */
+public class TableAlterSpec {
+
+    private final String tableName;
+    private final List<ColumnSpec> addColumns = new ArrayList<>();
+    // Map<ColumnName, ColumnModifySpec>
+    private final Map<String, ColumnModifySpec> modifyColumns = new LinkedHashMap<>();
+    private final List<IndexSpec> addIndexes = new ArrayList<>();
+
+    public TableAlterSpec(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public TableAlterSpec addColumn(ColumnSpec columnSpec) {
+        addColumns.add(columnSpec);
+        return this;
+    }
+
+    public TableAlterSpec modifyColumn(String columnName, ColumnModifySpec columnModifySpec) {
+        modifyColumns.put(columnName, columnModifySpec);
+        return this;
+    }
+
+    public TableAlterSpec addIndex(IndexSpec indexSpec) {
+        addIndexes.add(indexSpec);
+        return this;
+    }
+
+    public List<ColumnSpec> getAddColumns() {
+        return Collections.unmodifiableList(addColumns);
+    }
+
+    public Map<String, ColumnModifySpec> getModifyColumns() {
+        return Collections.unmodifiableMap(modifyColumns);
+    }
+
+    public List<IndexSpec> getAddIndexes() {
+        return Collections.unmodifiableList(addIndexes);
+    }
+
+    /**
+     * 变更的数量
+     *
+     * @return
+     */
+    public int size() {
+        return addColumns.size() + modifyColumns.size() + addIndexes.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
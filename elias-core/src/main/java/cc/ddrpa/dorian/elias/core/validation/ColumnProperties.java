@@ -31,6 +31,8 @@ public class ColumnProperties {
     private final Boolean binaryType;
     // 数据存储长度
     private final Optional<Long> dataLength;
+    // 字符类型的最大字节数，由长度和字符集决定
+    private final Optional<Long> octetLength;
     // 默认值
     private final Optional<String> defaultValueAsString;
 
@@ -49,6 +51,12 @@ public class ColumnProperties {
         } else {
             this.dataLength = Optional.empty();
         }
+        if (Objects.nonNull(rawProperties.get("CHARACTER_OCTET_LENGTH"))) {
+            this.octetLength = Optional.of(
+                    Long.parseLong(rawProperties.get("CHARACTER_OCTET_LENGTH").toString()));
+        } else {
+            this.octetLength = Optional.empty();
+        }
         if (Objects.nonNull(rawProperties.get("COLUMN_DEFAULT"))) {
             this.defaultValueAsString = Optional.of(rawProperties.get("COLUMN_DEFAULT").toString());
         } else {
@@ -77,7 +85,8 @@ public class ColumnProperties {
                 if (!Objects.equals(columnSpec.getLength(), dataLength.orElse(null))) {
                     columnSpecMismatch.columnTypeMismatch(columnSpec.getColumnType(), columnType,
                             columnSpec.getDataType(), dataType,
-                            columnSpec.getLength(), dataLength.orElse(null));
+                            columnSpec.getLength(), dataLength.orElse(null))
+                            .setActualOctetLength(octetLength.orElse(null));
                     columnSpecMismatchFlag = true;
                 }
             }
@@ -24,6 +24,8 @@ public class ColumnSpecMismatch implements ISpecMismatch {
     private String actualDataType;
     private Long expectedLength;
     private Long actualLength;
+    // 字符类型的最大字节数，用于推算字符集每个字符占用的字节数
+    private Long actualOctetLength;
     private String expectedColumnType;
     private String actualColumnType;
 
@@ -68,6 +70,15 @@ public class ColumnSpecMismatch implements ISpecMismatch {
         return this;
     }
 
+    public ColumnSpecMismatch setActualOctetLength(Long actualOctetLength) {
+        this.actualOctetLength = actualOctetLength;
+        return this;
+    }
+
+    public Long getActualOctetLength() {
+        return actualOctetLength;
+    }
+
     public ColumnSpecMismatch addNullableMismatch(boolean expectedNullable,
                                                   boolean actualNullable) {
         this.expectedNullable = expectedNullable;
@@ -0,0 +1,195 @@
+package cc.ddrpa.dorian.elias.core;
+
+import cc.ddrpa.dorian.elias.core.annotation.TypeOverride;
+import cc.ddrpa.dorian.elias.core.annotation.preset.IsGeo;
+import cc.ddrpa.dorian.elias.core.annotation.preset.IsHash;
+import cc.ddrpa.dorian.elias.core.annotation.preset.IsUUID;
+import cc.ddrpa.dorian.elias.core.annotation.preset.IsUUIDAsStr;
+import cc.ddrpa.dorian.elias.core.annotation.types.CharLength;
+import cc.ddrpa.dorian.elias.core.annotation.types.Decimal;
+import cc.ddrpa.dorian.elias.core.annotation.types.UseText;
+import cc.ddrpa.dorian.elias.core.factory.SpecBuilderFactory;
+import cc.ddrpa.dorian.elias.core.factory.TextSpecBuilderFactory;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.net.Inet4Address;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 索引分派的结果需要与按优先级逐个调用 fit 的结果一致
+ */
+class FactoryDispatcherTest {
+
+    /**
+     * 预设 factory、TypeOverride 以及声明和未声明分派提示的自定义 factory
+     */
+    @Test
+    void dispatchMatchesFirstFit() {
+        SpecBuilderFactory durationFactory = new DurationFactory();
+        SpecBuilderFactory legacyFactory = new LegacyFactory();
+        List<SpecBuilderFactory> builtin = SpecMaker.getFactories();
+        // 与 SpecMaker 注册自定义 factory 后的顺序相同：TypeOverride、自定义、预设
+        List<SpecBuilderFactory> factories = new ArrayList<>();
+        factories.add(builtin.get(0));
+        factories.add(durationFactory);
+        factories.add(legacyFactory);
+        factories.addAll(builtin.subList(1, builtin.size()));
+        try {
+            SpecMaker.registerFactory(durationFactory);
+            SpecMaker.registerFactory(legacyFactory);
+            assertEquals(factories, SpecMaker.getFactories());
+        } finally {
+            SpecMaker.clearFactories();
+        }
+        FactoryDispatcher dispatcher = new FactoryDispatcher(factories);
+
+        for (Field field : Sample.class.getDeclaredFields()) {
+            FieldDescriptor descriptor = FieldDescriptor.of(field);
+            SpecBuilderFactory expected = factories.stream()
+                    .filter(factory -> factory.fit(descriptor))
+                    .findFirst()
+                    .orElse(null);
+            assertSame(expected, dispatcher.dispatch(descriptor), field.getName());
+            // 第二次从缓存中取得
+            assertSame(expected, dispatcher.dispatch(descriptor), field.getName());
+        }
+        assertSame(builtin.get(0), dispatcher.dispatch(descriptor("overridden")));
+        assertSame(durationFactory, dispatcher.dispatch(descriptor("timeout")));
+        assertSame(durationFactory, dispatcher.dispatch(descriptor("retries")));
+        assertSame(legacyFactory, dispatcher.dispatch(descriptor("legacyCode")));
+        assertSame(builtin.get(0), dispatcher.dispatch(descriptor("legacyOverridden")));
+        assertNull(dispatcher.dispatch(descriptor("payload")));
+    }
+
+    /**
+     * 不带自定义 factory 时，每个字段都由某个预设 factory 处理
+     */
+    @Test
+    void everyBuiltinIsReachable() {
+        List<SpecBuilderFactory> factories = SpecMaker.getFactories();
+        FactoryDispatcher dispatcher = new FactoryDispatcher(factories);
+        Set<SpecBuilderFactory> reached = new HashSet<>();
+        for (Field field : Sample.class.getDeclaredFields()) {
+            SpecBuilderFactory factory = dispatcher.dispatch(FieldDescriptor.of(field));
+            if (Objects.nonNull(factory)) {
+                reached.add(factory);
+            }
+        }
+        for (SpecBuilderFactory factory : factories) {
+            assertTrue(reached.contains(factory), factory.getClass().getSimpleName());
+        }
+    }
+
+    private static FieldDescriptor descriptor(String name) {
+        try {
+            return FieldDescriptor.of(Sample.class.getDeclaredField(name));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    enum Status {
+        ON, OFF
+    }
+
+    static class Sample {
+
+        private String name;
+        @UseText
+        private String content;
+        @CharLength(length = 32)
+        private String code;
+        @IsUUIDAsStr
+        private String uuidText;
+        // String 由优先级更高的 TextSpecBuilderFactory 处理
+        @IsGeo
+        private String label;
+        @IsGeo
+        private Object location;
+        private int count;
+        private Long total;
+        // 自定义 factory 的优先级高于预设 factory
+        private int retries;
+        private boolean enabled;
+        private Boolean deleted;
+        private float ratio;
+        private Double score;
+        private BigDecimal price;
+        @Decimal(precision = 10, scale = 2)
+        private String amount;
+        private LocalDateTime createdAt;
+        private LocalDate birthday;
+        private Date updatedAt;
+        private Status status;
+        private Inet4Address address;
+        @IsUUID
+        private byte[] uuid;
+        @IsHash
+        private byte[] digest;
+        private byte[] blob;
+        private char initial;
+        private char[] letters;
+        private UUID token;
+        @TypeOverride(type = "json")
+        private Integer overridden;
+        private Duration timeout;
+        private String legacyCode;
+        @TypeOverride(type = "varchar", length = 8)
+        private String legacyOverridden;
+        private Object payload;
+    }
+
+    /**
+     * 声明了分派提示的自定义 factory
+     */
+    static class DurationFactory extends TextSpecBuilderFactory {
+
+        @Override
+        public boolean fit(FieldDescriptor field) {
+            return acceptedTypeNames().contains(field.getTypeName());
+        }
+
+        @Override
+        public Set<String> acceptedTypeNames() {
+            return Set.of("java.time.Duration", "int");
+        }
+
+        @Override
+        public Set<Class<? extends Annotation>> acceptedAnnotations() {
+            return Set.of();
+        }
+    }
+
+    /**
+     * 未声明分派提示，每个字段都调用 fit
+     */
+    static class LegacyFactory extends TextSpecBuilderFactory {
+
+        @Override
+        public boolean fit(FieldDescriptor field) {
+            return field.getName().startsWith("legacy");
+        }
+
+        @Override
+        public Set<String> acceptedTypeNames() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package cc.ddrpa.dorian.elias.core.cache;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.naming.NamingStrategy;
+import cc.ddrpa.dorian.elias.core.naming.PrefixedNamingStrategy;
+import cc.ddrpa.dorian.elias.core.naming.SnakeCaseNamingStrategy;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableSpecCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTrip() throws IOException {
+        Path file = tempDir.resolve("specs.bin");
+        TableSpecCache cache = TableSpecCache.open(file);
+        TableSpec made = cache.getOrMake(Sample.class);
+        assertEquals(1, cache.getMisses());
+        cache.save();
+        // 保存时替换已经打开过的文件
+        TableSpecCache reopened = TableSpecCache.open(file);
+        TableSpec cached = reopened.get(Sample.class).orElseThrow();
+        assertArrayEquals(TableSpecCodec.encode(made), TableSpecCodec.encode(cached));
+        assertEquals(List.of("id", "user_name"),
+                cached.getColumns().stream().map(ColumnSpec::getName).toList());
+        // 每次返回新的对象
+        assertNotSame(cached, reopened.get(Sample.class).orElseThrow());
+        reopened.save();
+        assertTrue(TableSpecCache.open(file).get(Sample.class).isPresent());
+    }
+
+    @Test
+    void changedClassInvalidatesEntry() throws Exception {
+        Path file = tempDir.resolve("specs.bin");
+        Class<?> before = compile("v1", "private Long id; private String name;");
+        TableSpecCache cache = TableSpecCache.open(file);
+        cache.getOrMake(before);
+        cache.save();
+        assertTrue(TableSpecCache.open(file).get(before).isPresent());
+
+        Class<?> after = compile("v2", "private Long id; private String name; private Integer age;");
+        TableSpecCache reopened = TableSpecCache.open(file);
+        assertTrue(reopened.get(after).isEmpty());
+        TableSpec rebuilt = reopened.getOrMake(after);
+        assertEquals(3, rebuilt.getColumns().size());
+        assertEquals(1, reopened.getMisses());
+    }
+
+    @Test
+    void changedRulesInvalidateFile() throws IOException {
+        Path file = tempDir.resolve("specs.bin");
+        TableSpecCache cache = TableSpecCache.open(file);
+        cache.getOrMake(Sample.class);
+        cache.save();
+        try {
+            SpecMaker.setNamingStrategy(new PrefixedNamingStrategy("tbl_"));
+            assertTrue(TableSpecCache.open(file).get(Sample.class).isEmpty());
+        } finally {
+            SpecMaker.setNamingStrategy(new SnakeCaseNamingStrategy());
+        }
+        assertTrue(TableSpecCache.open(file).get(Sample.class).isPresent());
+    }
+
+    /**
+     * 签名取决于命名规则的类名和配置，而不是 toString
+     */
+    @Test
+    void rulesSignatureUsesNamingConfiguration() {
+        try {
+            SpecMaker.setNamingStrategy(new IdentityNamingStrategy());
+            byte[] first = TableSpecCache.rulesSignature();
+            SpecMaker.setNamingStrategy(new IdentityNamingStrategy());
+            assertArrayEquals(first, TableSpecCache.rulesSignature());
+
+            SpecMaker.setNamingStrategy(new PrefixedNamingStrategy("a_"));
+            byte[] prefixed = TableSpecCache.rulesSignature();
+            SpecMaker.setNamingStrategy(new PrefixedNamingStrategy("b_"));
+            assertFalse(Arrays.equals(prefixed, TableSpecCache.rulesSignature()));
+            SpecMaker.setNamingStrategy(
+                    new PrefixedNamingStrategy("a_", new IdentityNamingStrategy()));
+            assertFalse(Arrays.equals(prefixed, TableSpecCache.rulesSignature()));
+        } finally {
+            SpecMaker.setNamingStrategy(new SnakeCaseNamingStrategy());
+        }
+    }
+
+    @Test
+    void corruptedFileIsRebuilt() throws IOException {
+        Path file = tempDir.resolve("specs.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+        TableSpecCache cache = TableSpecCache.open(file);
+        assertTrue(cache.get(Sample.class).isEmpty());
+        cache.getOrMake(Sample.class);
+        cache.save();
+        assertTrue(TableSpecCache.open(file).get(Sample.class).isPresent());
+    }
+
+    /**
+     * 编译并加载同名的 {@code demo.Entity}，每次使用新的 ClassLoader
+     */
+    private Class<?> compile(String version, String body) throws Exception {
+        Path sourceDir = Files.createDirectories(tempDir.resolve(version).resolve("demo"));
+        Path source = sourceDir.resolve("Entity.java");
+        Files.writeString(source, "package demo;\npublic class Entity {\n" + body + "\n}\n");
+        Path classes = Files.createDirectories(tempDir.resolve(version + "-classes"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, "-proc:none", "-d", classes.toString(),
+                source.toString()));
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                getClass().getClassLoader());
+        return loader.loadClass("demo.Entity");
+    }
+
+    /**
+     * 没有覆盖 toString，每个实例的 toString 都不同
+     */
+    static class IdentityNamingStrategy implements NamingStrategy {
+
+        @Override
+        public String getTableName(Class<?> clazz) {
+            return clazz.getSimpleName();
+        }
+
+        @Override
+        public String getColumnName(Field field) {
+            return field.getName();
+        }
+    }
+
+    static class Sample {
+
+        private Long id;
+        private String userName;
+    }
+}
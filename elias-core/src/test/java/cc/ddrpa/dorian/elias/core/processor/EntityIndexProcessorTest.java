@@ -0,0 +1,89 @@
+package cc.ddrpa.dorian.elias.core.processor;
+
+import cc.ddrpa.dorian.elias.core.EntityIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityIndexProcessorTest {
+
+    private static final String ELIAS_TABLE = """
+            package demo;
+
+            @cc.ddrpa.dorian.elias.core.annotation.EliasTable
+            public class %s {
+            }""";
+    private static final String PLAIN = """
+            package demo;
+
+            public class %s {
+            }""";
+
+    /**
+     * 增量编译时合并上一次的索引，已经删除的类和不再带有注解的类不再保留
+     */
+    @Test
+    void incrementalCompilationMergesIndex(@TempDir Path output) throws IOException {
+        compile(output, source("Account", ELIAS_TABLE), source("Order", ELIAS_TABLE),
+                source("Invoice", ELIAS_TABLE));
+        assertEquals(List.of("demo.Account", "demo.Invoice", "demo.Order"), indexedClasses(output));
+
+        // 只重新编译新增的类，其他类从输出目录中解析
+        compile(output, source("Payment", ELIAS_TABLE));
+        assertEquals(List.of("demo.Account", "demo.Invoice", "demo.Order", "demo.Payment"),
+                indexedClasses(output));
+
+        // 删除 Order，去掉 Invoice 上的注解
+        Files.delete(output.resolve("demo/Order.class"));
+        compile(output, source("Payment", ELIAS_TABLE), source("Invoice", PLAIN));
+        assertEquals(List.of("demo.Account", "demo.Payment"), indexedClasses(output));
+    }
+
+    private static List<String> indexedClasses(Path output) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(output.resolve(EntityIndex.INDEX_LOCATION))) {
+            properties.load(is);
+        }
+        properties.values().forEach(value -> assertEquals(EntityIndexProcessor.ELIAS_TABLE, value));
+        return properties.stringPropertyNames().stream().sorted().collect(Collectors.toList());
+    }
+
+    private static JavaFileObject source(String className, String template) {
+        String source = String.format(template, className);
+        return new SimpleJavaFileObject(URI.create("string:///demo/" + className + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    /**
+     * 编译到 output 目录，output 同时位于类路径上，模拟增量编译
+     */
+    private static void compile(Path output, JavaFileObject... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> arguments = new ArrayList<>(List.of("-d", output.toString(), "-classpath",
+                output + System.getProperty("path.separator")
+                        + System.getProperty("java.class.path")));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, arguments,
+                null, List.of(sources));
+        task.setProcessors(List.of(new EntityIndexProcessor()));
+        assertTrue(task.call(), () -> diagnostics.getDiagnostics().toString());
+    }
+}
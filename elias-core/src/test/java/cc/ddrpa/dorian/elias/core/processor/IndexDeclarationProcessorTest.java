@@ -0,0 +1,210 @@
+package cc.ddrpa.dorian.elias.core.processor;
+
+import org.junit.jupiter.api.Test;
+
+import javax.tools.*;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexDeclarationProcessorTest {
+
+    @Test
+    void jakartaColumnNameAndNullable() {
+        assertAccepted("""
+                @EliasTable(indexes = {
+                        @EliasTable.Index(columns = "user_name"),
+                        @EliasTable.Index(columns = "code", unique = true)})
+                public class Entity {
+                    @jakarta.persistence.Column(name = "user_name")
+                    private String name;
+                    @jakarta.persistence.Column(nullable = false)
+                    private String code;
+                }""");
+    }
+
+    @Test
+    void javaxColumnNameAndNullable() {
+        assertAccepted("""
+                @EliasTable(indexes = @EliasTable.Index(columns = "user_code", unique = true))
+                public class Entity {
+                    @javax.persistence.Column(name = "user_code", nullable = false)
+                    private String code;
+                }""");
+    }
+
+    @Test
+    void nullableJpaColumnInUniqueIndex() {
+        assertRejected("""
+                @EliasTable(indexes = @EliasTable.Index(columns = "code", unique = true))
+                public class Entity {
+                    @jakarta.persistence.Column
+                    private String code;
+                }""", "Annotated column not found or is nullable");
+    }
+
+    @Test
+    void fieldNameReplacedByJpaColumnName() {
+        assertRejected("""
+                @EliasTable(indexes = @EliasTable.Index(columns = "name"))
+                public class Entity {
+                    @jakarta.persistence.Column(name = "user_name")
+                    private String name;
+                }""", "Annotated column not found");
+    }
+
+    @Test
+    void spatialIndexesIgnoredWithoutRegularIndexes() {
+        // 运行时只在声明了 indexes 时才处理 spatialIndexes
+        assertAccepted("""
+                @EliasTable(spatialIndexes = @EliasTable.Index(columns = "location"))
+                public class Entity {
+                    private String location;
+                }""");
+    }
+
+    @Test
+    void spatialIndexesCheckedWithRegularIndexes() {
+        assertRejected("""
+                @EliasTable(indexes = @EliasTable.Index(columns = "name"),
+                        spatialIndexes = @EliasTable.Index(columns = "location"))
+                public class Entity {
+                    private String name;
+                    private String location;
+                }""", "Annotated column with geo type not found in table or is nullable");
+    }
+
+    @Test
+    void geometryFollowsFactoryPriority() {
+        // Byte[] 由优先级更高的 BlobSpecBuilderFactory 处理，IsGeo 不生效
+        assertRejected("""
+                @EliasTable(indexes = @EliasTable.Index(columns = "name"),
+                        spatialIndexes = @EliasTable.Index(columns = "location"))
+                public class Entity {
+                    private String name;
+                    @cc.ddrpa.dorian.elias.core.annotation.preset.IsGeo
+                    private Byte[] location;
+                }""", "Annotated column with geo type not found in table or is nullable");
+    }
+
+    @Test
+    void spatialIndexMayShareNameWithRegularIndex() {
+        assertAccepted("""
+                @EliasTable(indexes = @EliasTable.Index(name = "idx_location", columns = "name"),
+                        spatialIndexes = @EliasTable.Index(name = "idx_location", columns = "location"))
+                public class Entity {
+                    private String name;
+                    @cc.ddrpa.dorian.elias.core.annotation.preset.IsGeo(
+                            type = cc.ddrpa.dorian.elias.core.annotation.enums.SpatialDataType.POINT)
+                    private Object location;
+                }""");
+    }
+
+    @Test
+    void duplicateIndexNames() {
+        assertRejected("""
+                @EliasTable(indexes = {
+                        @EliasTable.Index(name = "idx_name", columns = "name"),
+                        @EliasTable.Index(name = "idx_name", columns = "code")})
+                public class Entity {
+                    private String name;
+                    private String code;
+                }""", "Duplicate");
+    }
+
+    @Test
+    void persistenceTableIndexes() {
+        assertRejected("""
+                @EliasTable
+                @jakarta.persistence.Table(indexes = @jakarta.persistence.Index(columnList = "missing"))
+                public class Entity {
+                    private String name;
+                }""", "Annotated column not found");
+        assertAccepted("""
+                @EliasTable
+                @javax.persistence.Table(indexes = @javax.persistence.Index(columnList = "name"))
+                public class Entity {
+                    private String name;
+                }""");
+    }
+
+    @Test
+    void namingStrategyOption() {
+        String source = """
+                @EliasTable(indexes = @EliasTable.Index(columns = "u_r_l_path"))
+                public class Entity {
+                    private String URLPath;
+                }""";
+        assertRejected(source, "Annotated column not found");
+        assertAccepted(source, "elias.namingStrategy=mybatis_plus");
+        assertAccepted(source, "elias.namingStrategy=custom");
+    }
+
+    @Test
+    void customNamingStillChecksDeclaredNames() {
+        String source = """
+                @EliasTable(indexes = @EliasTable.Index(columns = "code", unique = true))
+                public class Entity {
+                    @com.baomidou.mybatisplus.annotation.TableField("code")
+                    private String value;
+                    private String name;
+                }""";
+        assertRejected(source, "Annotated column not found or is nullable",
+                "elias.namingStrategy=custom");
+    }
+
+    static void assertAccepted(String source, String... options) {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(source, options);
+        assertTrue(errors.isEmpty(), () -> errors.stream()
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.joining("\n")));
+    }
+
+    static void assertRejected(String source, String message, String... options) {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(source, options);
+        assertEquals(1, errors.size(), () -> "Expected one error, got " + errors);
+        String actual = errors.get(0).getMessage(null);
+        assertTrue(actual.contains(message), actual);
+    }
+
+    /**
+     * 在内存中编译 {@code demo.Entity}，只运行注解处理器，返回编译错误
+     *
+     * @param body    类声明，不包含 package 和 import
+     * @param options 注解处理器参数，例如 {@code elias.namingStrategy=custom}
+     * @return
+     */
+    static List<Diagnostic<? extends JavaFileObject>> compile(String body, String... options) {
+        String source = """
+                package demo;
+
+                import cc.ddrpa.dorian.elias.core.annotation.EliasTable;
+
+                """ + body;
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///demo/Entity.java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> arguments = new ArrayList<>(List.of("-proc:only", "-classpath",
+                System.getProperty("java.class.path")));
+        for (String option : options) {
+            arguments.add("-A" + option);
+        }
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, arguments,
+                null, List.of(file));
+        task.setProcessors(List.of(new IndexDeclarationProcessor()));
+        task.call();
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .collect(Collectors.toList());
+    }
+}
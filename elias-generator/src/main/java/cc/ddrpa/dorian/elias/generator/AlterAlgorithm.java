@@ -0,0 +1,205 @@
+package cc.ddrpa.dorian.elias.generator;
+
+import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableAlterSpec;
+
+import java.util.Objects;
+
+/**
+ * ALTER TABLE 使用的 Online DDL 算法
+ * <p>
+ * 参考 <a href="https://dev.mysql.com/doc/refman/8.0/en/innodb-online-ddl-operations.html">Online DDL
+ * Operations</a>，按变更类型和服务端版本选择不阻塞写入的算法，无法在线执行的变更显式声明为 COPY
+ */
+public enum AlterAlgorithm {
+    /**
+     * 只修改元数据，INSTANT 不接受 LOCK=DEFAULT 以外的 LOCK 子句
+     * <p>
+     * 表上存在 FULLTEXT 索引或 ROW_FORMAT=COMPRESSED 等情况下 MySQL 会直接拒绝而不是退回其他算法，
+     * 生成器无法得知这些前提，不会为单个变更选择 INSTANT
+     */
+    INSTANT(", algorithm=instant"),
+    /**
+     * 原地执行，执行期间允许并发读写
+     */
+    INPLACE(", algorithm=inplace, lock=none"),
+    /**
+     * 不声明算法，由 MySQL 自行选择，用于无法判断能否原地执行或能否使用 INSTANT 的变更
+     */
+    DEFAULT(""),
+    /**
+     * 复制整张表，执行期间阻塞写入
+     */
+    COPY(", algorithm=copy, lock=shared");
+
+    /**
+     * VARCHAR 长度不超过 255 字节时使用 1 字节记录长度，否则使用 2 字节，只有不跨越这个边界的扩展可以原地执行。
+     * 每个字符占用的字节数由列的 CHARACTER_OCTET_LENGTH 推算，未知时不声明算法
+     */
+    private static final long ONE_LENGTH_BYTE_LIMIT = 255;
+
+    private final String clause;
+
+    AlterAlgorithm(String clause) {
+        this.clause = clause;
+    }
+
+    /**
+     * 追加在 ALTER TABLE 语句末尾的子句
+     *
+     * @return
+     */
+    public String getClause() {
+        return clause;
+    }
+
+    /**
+     * 为添加列选择算法，新增的列总是位于表的最后
+     * <p>
+     * 支持 INSTANT 的版本上不声明算法，由 MySQL 在满足前提时自行选择 INSTANT，否则退回 INPLACE 或 COPY
+     *
+     * @param version
+     * @param columnSpec
+     * @return
+     */
+    public static AlterAlgorithm forAddColumn(ServerVersion version, ColumnSpec columnSpec) {
+        if (columnSpec.isAutoIncrement() || columnSpec.isPrimaryKey()) {
+            // 添加自增列至少需要 LOCK=SHARED，添加主键需要重建聚簇索引
+            return COPY;
+        }
+        if (supportsInstantAddColumn(version)) {
+            return DEFAULT;
+        }
+        if (supportsInplace(version)) {
+            return INPLACE;
+        }
+        return COPY;
+    }
+
+    /**
+     * 为修改列选择算法
+     * <ul>
+     *     <li>只修改默认值：DEFAULT，MODIFY COLUMN 会重新声明整列且不带字符集，服务端可能需要转换列</li>
+     *     <li>在同一长度字节范围内扩展 VARCHAR，或修改是否可空：INPLACE</li>
+     *     <li>扩展 VARCHAR 但不知道字符集的宽度：DEFAULT</li>
+     *     <li>其他类型变更：COPY</li>
+     * </ul>
+     *
+     * @param version
+     * @param columnModifySpec
+     * @return
+     */
+    public static AlterAlgorithm forModifyColumn(ServerVersion version,
+                                                 ColumnModifySpec columnModifySpec) {
+        if (!supportsInplace(version)) {
+            return COPY;
+        }
+        if (columnModifySpec.isAlterColumnType()) {
+            return forVarcharExtension(version, columnModifySpec);
+        }
+        if (columnModifySpec.isAlterNullable()) {
+            // 需要重建表，但可以原地执行
+            return INPLACE;
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * 为添加二级索引选择算法
+     *
+     * @param version
+     * @return
+     */
+    public static AlterAlgorithm forAddIndex(ServerVersion version) {
+        return supportsInplace(version) ? INPLACE : COPY;
+    }
+
+    /**
+     * 为合并后的 ALTER TABLE 语句选择算法
+     *
+     * @param version
+     * @param tableAlterSpec
+     * @return
+     */
+    public static AlterAlgorithm forAlterTable(ServerVersion version,
+                                               TableAlterSpec tableAlterSpec) {
+        AlterAlgorithm algorithm = INSTANT;
+        for (ColumnSpec columnSpec : tableAlterSpec.getAddColumns()) {
+            algorithm = algorithm.combine(forAddColumn(version, columnSpec));
+        }
+        for (ColumnModifySpec columnModifySpec : tableAlterSpec.getModifyColumns().values()) {
+            algorithm = algorithm.combine(forModifyColumn(version, columnModifySpec));
+        }
+        if (!tableAlterSpec.getAddIndexes().isEmpty()) {
+            algorithm = algorithm.combine(forAddIndex(version));
+        }
+        return algorithm;
+    }
+
+    /**
+     * 合并后的 ALTER TABLE 语句是否可以只修改元数据
+     * <p>
+     * 只在服务端支持 INSTANT 添加列，且语句中只有不是自增列或主键的新增列时成立。
+     * {@link #forAlterTable} 为这类语句返回 DEFAULT，由 MySQL 在满足其他前提时自行选择 INSTANT
+     *
+     * @param version
+     * @param tableAlterSpec
+     * @return
+     */
+    public static boolean isInstantEligible(ServerVersion version,
+                                            TableAlterSpec tableAlterSpec) {
+        if (Objects.isNull(version) || !supportsInstantAddColumn(version)
+                || tableAlterSpec.getAddColumns().isEmpty()
+                || !tableAlterSpec.getModifyColumns().isEmpty()
+                || !tableAlterSpec.getAddIndexes().isEmpty()) {
+            return false;
+        }
+        return tableAlterSpec.getAddColumns().stream()
+                .noneMatch(columnSpec -> columnSpec.isAutoIncrement() || columnSpec.isPrimaryKey());
+    }
+
+    /**
+     * 多个变更合并为一条语句时，使用其中限制最多的算法
+     *
+     * @param other
+     * @return
+     */
+    public AlterAlgorithm combine(AlterAlgorithm other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    private static AlterAlgorithm forVarcharExtension(ServerVersion version,
+                                                      ColumnModifySpec columnModifySpec) {
+        if (version.isMariaDB() ? !version.isAtLeast(10, 2, 2) : !version.isAtLeast(5, 7, 0)) {
+            return COPY;
+        }
+        if (!"varchar".equals(columnModifySpec.getDataType())
+                || !"varchar".equals(columnModifySpec.getActualDataType())
+                || Objects.isNull(columnModifySpec.getLength())
+                || Objects.isNull(columnModifySpec.getActualLength())
+                || columnModifySpec.getLength() < columnModifySpec.getActualLength()) {
+            return COPY;
+        }
+        Long actualOctetLength = columnModifySpec.getActualOctetLength();
+        if (Objects.isNull(actualOctetLength) || columnModifySpec.getActualLength() <= 0) {
+            return DEFAULT;
+        }
+        long actualLength = columnModifySpec.getActualLength();
+        long bytesPerChar = Math.max(1, (actualOctetLength + actualLength - 1) / actualLength);
+        return lengthBytes(columnModifySpec.getLength() * bytesPerChar)
+                == lengthBytes(actualOctetLength) ? INPLACE : COPY;
+    }
+
+    private static int lengthBytes(long bytes) {
+        return bytes > ONE_LENGTH_BYTE_LIMIT ? 2 : 1;
+    }
+
+    private static boolean supportsInstantAddColumn(ServerVersion version) {
+        return version.isMariaDB() ? version.isAtLeast(10, 3, 2) : version.isAtLeast(8, 0, 12);
+    }
+
+    private static boolean supportsInplace(ServerVersion version) {
+        return version.isMariaDB() ? version.isAtLeast(10, 0, 0) : version.isAtLeast(5, 6, 0);
+    }
+}
@@ -2,132 +2,217 @@ package cc.ddrpa.dorian.elias.generator;
 
 import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
+import cc.ddrpa.dorian.elias.core.spec.SpatialIndexSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableAlterSpec;
 import cc.ddrpa.dorian.elias.core.spec.TableSpec;
-import io.pebbletemplates.pebble.PebbleEngine;
-import io.pebbletemplates.pebble.loader.StringLoader;
-import io.pebbletemplates.pebble.template.PebbleTemplate;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+/**
+ * 直接拼接 MySQL 5.7 DDL
+ * <p>
+ * 输出与 {@link PebbleSQLGenerator} 的默认模板逐字节一致，包括模板引擎对输出内容的 HTML 转义。
+ * 需要自定义 SQL 格式时请使用 {@link PebbleSQLGenerator}。
+ * 通过 {@link #setServerVersion(ServerVersion)} 指定服务端版本后，ALTER TABLE 语句会带上
+ * {@link AlterAlgorithm} 选择的 ALGORITHM 和 LOCK 子句，此时不再与模板输出一致
+ */
 public class MySQL57Generator implements SQLGenerator {
 
-    private static final String CREATE_TABLE_TEMPLATE = """
-            {% if dropIfExists %}drop table if exists `{{ t.name }}`;
-            {% endif %}
-            create table `{{ t.name }}` (
-            {% for c in t.columns %}
-              `{{ c.name }}` {{ c.columnType }}{% if c.nullable %} null{% else %} not null{% endif %}{% if c.defaultValue %} default '{{ c.defaultValue }}'{% endif %}{% if c.autoIncrement %} auto_increment{% endif %}
-              {% if c.primaryKey %}  primary key{% endif %}{% if not loop.last %},{% endif %}
-            
-            {% endfor %}
-            );
-            {% for i in t.indexes %}
-            create{% if i.unique %} unique{% endif %} index {{ i.name }} on `{{ t.name }}` ({{ i.columns }});
-            {% endfor %}
-            {% for s in t.spatialIndexSpecs %}
-            create spatial index {{ s.name }} on `{{ t.name }}` ({{ s.columns }});
-            {% endfor %}
-            """;
-    private static final String CREATE_H2_TABLE_TEMPLATE = """
-            {% if dropIfExists %}drop table if exists {{ t.name }};
-            {% endif %}
-            create table {{ t.name }} (
-            {% for c in t.columns %}
-              {{ c.name }} {{ c.columnType }}{% if c.nullable %} null{% else %} not null{% endif %}{% if c.defaultValue %} default '{{ c.defaultValue }}'{% endif %}{% if c.autoIncrement %} auto_increment{% endif %}
-              {% if c.primaryKey %}  primary key{% endif %}{% if not loop.last %},{% endif %}
-            
-            {% endfor %}
-            );
-            {% for i in t.indexes %}
-            create{% if i.unique %} unique{% endif %} index {{ i.name }} on {{ t.name }} ({{ i.columns }});
-            {% endfor %}
-            {% for s in t.spatialIndexSpecs %}
-            create spatial index {{ s.name }} on {{ t.name }} ({{ s.columns }});
-            {% endfor %}
-            """;
-    private static final String ADD_COLUMN_TEMPLATE = """
-            alter table `{{ table }}` add column `{{ c.name }}` {{ c.columnType }}{% if c.nullable %} null{% else %} not null{% endif %}{% if c.defaultValue %} default '{{ c.defaultValue }}'{% endif %}{% if c.autoIncrement %} auto_increment{% endif %}{% if c.primaryKey %}
-                primary key{% endif %};
-            """;
-    /**
-     * MySQL 5.7 MODIFY COLUMN 需要提供列的完整定义
-     * 即使只修改某个属性，也需要重新声明所有属性
-     */
-    private static final String MODIFY_COLUMN_TEMPLATE = """
-            alter table `{{ table }}` modify column `{{ column }}` {{ cm.columnType }}{% if cm.nullable %} null{% else %} not null{% endif %}{% if cm.defaultValue is not null %} default '{{ cm.defaultValue }}'{% endif %};
-            """;
-
-    private final PebbleTemplate createTableTemplate;
-    private final PebbleTemplate createH2TableTemplate;
-    private final PebbleTemplate addColumnTemplate;
-    private final PebbleTemplate modifyColumnTemplate;
     private boolean dropIfExists = true;
     private boolean h2Compatibility = false;
-
-    public MySQL57Generator() {
-        PebbleEngine engine = new PebbleEngine.Builder()
-                .loader(new StringLoader())
-                .build();
-        this.createTableTemplate = engine.getTemplate(CREATE_TABLE_TEMPLATE);
-        this.createH2TableTemplate = engine.getTemplate(CREATE_H2_TABLE_TEMPLATE);
-        this.addColumnTemplate = engine.getTemplate(ADD_COLUMN_TEMPLATE);
-        this.modifyColumnTemplate = engine.getTemplate(MODIFY_COLUMN_TEMPLATE);
-    }
+    private ServerVersion serverVersion = null;
 
     public MySQL57Generator setDropIfExists(boolean dropIfExists) {
         this.dropIfExists = dropIfExists;
         return this;
     }
 
+    /**
+     * 指定服务端版本，为 ALTER TABLE 语句显式声明 Online DDL 算法
+     *
+     * @param serverVersion 为 null 时不声明算法，由 MySQL 自行选择
+     * @return
+     */
+    public MySQL57Generator setServerVersion(ServerVersion serverVersion) {
+        this.serverVersion = serverVersion;
+        return this;
+    }
+
+    public ServerVersion getServerVersion() {
+        return serverVersion;
+    }
+
     @Override
     public String createTable(TableSpec tableSpec) throws IOException {
-        StringWriter writer = new StringWriter();
-        Map<String, Object> context = new HashMap<>();
-        context.put("dropIfExists", dropIfExists);
-        if (h2Compatibility) {
-            for (ColumnSpec col : tableSpec.getColumns()) {
-                String columnType = col.getColumnType();
-                if (columnType.contains("int")) {
-                    col.setColumnType(col.getDataType());
-                }
-                // TODO 如果有 H2 关键字，抛出异常
+        List<String> statements = createTableStatements(tableSpec);
+        StringBuilder sb = new StringBuilder(64 + tableSpec.getColumns().size() * 48);
+        for (String statement : statements) {
+            sb.append(statement).append(";\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 与 {@link #createTable(TableSpec)} 的输出相同，按语句分开，不需要再按分号拆分
+     *
+     * @param tableSpec
+     * @return
+     */
+    @Override
+    public List<String> createTableStatements(TableSpec tableSpec) {
+        String quote = h2Compatibility ? "" : "`";
+        String tableName = quote + escape(tableSpec.getName()) + quote;
+        List<ColumnSpec> columns = tableSpec.getColumns();
+        List<String> statements = new ArrayList<>(2 + tableSpec.getIndexes().size()
+                + tableSpec.getSpatialIndexSpecs().size());
+        if (dropIfExists) {
+            statements.add("drop table if exists " + tableName);
+        }
+        StringBuilder sb = new StringBuilder(64 + columns.size() * 48);
+        sb.append("create table ").append(tableName).append(" (\n");
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnSpec col = columns.get(i);
+            String columnType = col.getColumnType();
+            // TODO 如果有 H2 关键字，抛出异常
+            if (h2Compatibility && columnType.contains("int")) {
+                columnType = col.getDataType();
+            }
+            sb.append("  ").append(quote).append(escape(col.getName())).append(quote)
+                    .append(' ').append(escape(columnType));
+            appendColumnAttributes(sb, col);
+            sb.append("  ");
+            if (col.isPrimaryKey()) {
+                sb.append("  primary key");
             }
-            context.put("t", tableSpec);
-            createH2TableTemplate.evaluate(writer, context);
-        } else {
-            context.put("t", tableSpec);
-            createTableTemplate.evaluate(writer, context);
+            if (i < columns.size() - 1) {
+                sb.append(',');
+            }
+            sb.append('\n');
+        }
+        statements.add(sb.append(')').toString());
+        for (IndexSpec index : tableSpec.getIndexes()) {
+            statements.add(indexStatement(tableSpec.getName(), index));
+        }
+        for (SpatialIndexSpec spatialIndex : tableSpec.getSpatialIndexSpecs()) {
+            statements.add("create spatial index " + escape(spatialIndex.getName()) + " on "
+                    + tableName + " (" + escape(spatialIndex.getColumns()) + ")");
         }
-        return writer.toString();
+        return statements;
     }
 
     @Override
     public String addColumn(String tableName, ColumnSpec columnSpec) throws IOException {
-        Map<String, Object> context = new HashMap<>();
-        context.put("table", tableName);
-        context.put("c", columnSpec);
-        StringWriter writer = new StringWriter();
-        addColumnTemplate.evaluate(writer, context);
-        return writer.toString();
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("alter table `").append(escape(tableName))
+                .append("` add column `").append(escape(columnSpec.getName()))
+                .append("` ").append(escape(columnSpec.getColumnType()));
+        appendColumnAttributes(sb, columnSpec);
+        if (columnSpec.isPrimaryKey()) {
+            sb.append("    primary key");
+        }
+        if (Objects.nonNull(serverVersion)) {
+            sb.append(AlterAlgorithm.forAddColumn(serverVersion, columnSpec).getClause());
+        }
+        return sb.append(";\n").toString();
     }
 
     @Override
     public String modifyColumn(String tableName, String columnName,
                                ColumnModifySpec columnModifySpec) throws IOException {
-        Map<String, Object> context = new HashMap<>();
-        context.put("table", tableName);
-        context.put("column", columnName);
-        context.put("cm", columnModifySpec);
-        StringWriter writer = new StringWriter();
-        modifyColumnTemplate.evaluate(writer, context);
-        return writer.toString();
+        // MySQL 5.7 MODIFY COLUMN 需要提供列的完整定义
+        // 即使只修改某个属性，也需要重新声明所有属性
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("alter table `").append(escape(tableName))
+                .append("` modify column `").append(escape(columnName))
+                .append("` ");
+        appendModifyDefinition(sb, columnModifySpec);
+        if (Objects.nonNull(serverVersion)) {
+            sb.append(AlterAlgorithm.forModifyColumn(serverVersion, columnModifySpec).getClause());
+        }
+        return sb.append(";\n").toString();
+    }
+
+    @Override
+    public String addIndex(String tableName, IndexSpec indexSpec) throws IOException {
+        return indexStatement(tableName, indexSpec) + ";\n";
+    }
+
+    /**
+     * 按添加列、修改列、添加索引的顺序输出一条 ALTER TABLE 语句，只有一个列变更时与单独生成的语句相同
+     *
+     * @param tableAlterSpec
+     * @return
+     */
+    @Override
+    public String alterTable(TableAlterSpec tableAlterSpec) throws IOException {
+        String tableName = tableAlterSpec.getTableName();
+        if (tableAlterSpec.getAddIndexes().isEmpty() && tableAlterSpec.size() == 1) {
+            if (!tableAlterSpec.getAddColumns().isEmpty()) {
+                return addColumn(tableName, tableAlterSpec.getAddColumns().get(0));
+            }
+            Map.Entry<String, ColumnModifySpec> e = tableAlterSpec.getModifyColumns().entrySet()
+                    .iterator().next();
+            return modifyColumn(tableName, e.getKey(), e.getValue());
+        }
+        StringBuilder sb = new StringBuilder(64 + tableAlterSpec.size() * 64);
+        sb.append("alter table `").append(escape(tableName)).append('`');
+        String separator = "\n  ";
+        for (ColumnSpec columnSpec : tableAlterSpec.getAddColumns()) {
+            sb.append(separator).append("add column `").append(escape(columnSpec.getName()))
+                    .append("` ").append(escape(columnSpec.getColumnType()));
+            appendColumnAttributes(sb, columnSpec);
+            if (columnSpec.isPrimaryKey()) {
+                sb.append(" primary key");
+            }
+            separator = ",\n  ";
+        }
+        for (Map.Entry<String, ColumnModifySpec> e : tableAlterSpec.getModifyColumns()
+                .entrySet()) {
+            sb.append(separator).append("modify column `").append(escape(e.getKey()))
+                    .append("` ");
+            appendModifyDefinition(sb, e.getValue());
+            separator = ",\n  ";
+        }
+        for (IndexSpec index : tableAlterSpec.getAddIndexes()) {
+            sb.append(separator).append("add");
+            if (index.isUnique()) {
+                sb.append(" unique");
+            }
+            sb.append(" index ").append(escape(index.getName()))
+                    .append(" (").append(escape(index.getColumns())).append(')');
+            separator = ",\n  ";
+        }
+        if (Objects.nonNull(serverVersion)) {
+            sb.append(AlterAlgorithm.forAlterTable(serverVersion, tableAlterSpec).getClause());
+        }
+        return sb.append(";\n").toString();
     }
 
     /**
-     * 开启 H2 兼容模式，生成的 SQL 可以在 H2 数据库中执行
+     * 与 {@link #alterTable(TableAlterSpec)} 相同，总是只有一条语句
+     *
+     * @param tableAlterSpec
+     * @return
+     */
+    @Override
+    public List<String> alterTableStatements(TableAlterSpec tableAlterSpec)
+            throws IOException {
+        String sql = alterTable(tableAlterSpec);
+        // 去掉末尾的 ";\n"
+        return List.of(sql.substring(0, sql.length() - 2));
+    }
+
+    /**
+     * 开启 H2 兼容模式，{@link #createTable(TableSpec)} 和 {@link #addIndex(String, IndexSpec)} 生成的 SQL
+     * 可以在 H2 数据库中执行
+     * <p>
+     * 只影响建表和创建索引，{@link #addColumn(String, ColumnSpec)}、{@link #modifyColumn(String, String, ColumnModifySpec)}
+     * 和 {@link #alterTable(TableAlterSpec)} 总是输出 MySQL 语法，例如用反引号包围标识符、以逗号合并多个变更
      *
      * @return
      */
@@ -135,4 +220,75 @@ public class MySQL57Generator implements SQLGenerator {
         this.h2Compatibility = true;
         return this;
     }
-}
\ No newline at end of file
+
+    private String indexStatement(String tableName, IndexSpec indexSpec) {
+        String quote = h2Compatibility ? "" : "`";
+        StringBuilder sb = new StringBuilder(64);
+        sb.append("create");
+        if (indexSpec.isUnique()) {
+            sb.append(" unique");
+        }
+        return sb.append(" index ").append(escape(indexSpec.getName()))
+                .append(" on ").append(quote).append(escape(tableName)).append(quote)
+                .append(" (").append(escape(indexSpec.getColumns())).append(')')
+                .toString();
+    }
+
+    private static void appendModifyDefinition(StringBuilder sb,
+                                               ColumnModifySpec columnModifySpec) {
+        sb.append(escape(columnModifySpec.getColumnType()))
+                .append(columnModifySpec.isNullable() ? " null" : " not null");
+        if (Objects.nonNull(columnModifySpec.getDefaultValue())) {
+            sb.append(" default '").append(escape(columnModifySpec.getDefaultValue()))
+                    .append('\'');
+        }
+    }
+
+    private static void appendColumnAttributes(StringBuilder sb, ColumnSpec col) {
+        sb.append(col.isNullable() ? " null" : " not null");
+        // 与模板中的 {% if c.defaultValue %} 一致，空字符串不会输出默认值
+        if (Objects.nonNull(col.getDefaultValue()) && !col.getDefaultValue().isEmpty()) {
+            sb.append(" default '").append(escape(col.getDefaultValue())).append('\'');
+        }
+        if (col.isAutoIncrement()) {
+            sb.append(" auto_increment");
+        }
+    }
+
+    /**
+     * 与 Pebble 默认开启的 HTML 自动转义保持一致，null 输出为空字符串
+     * <p>
+     * 生成的 DDL 中的默认值也经过该转义，按默认值回填数据时应使用同样的结果
+     *
+     * @param value
+     * @return
+     */
+    public static String escape(String value) {
+        if (Objects.isNull(value)) {
+            return "";
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            String replacement = switch (ch) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (Objects.isNull(replacement)) {
+                if (Objects.nonNull(sb)) {
+                    sb.append(ch);
+                }
+                continue;
+            }
+            if (Objects.isNull(sb)) {
+                sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            sb.append(replacement);
+        }
+        return Objects.isNull(sb) ? value : sb.toString();
+    }
+}
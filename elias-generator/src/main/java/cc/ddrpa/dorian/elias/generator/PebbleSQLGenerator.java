@@ -0,0 +1,146 @@
+package cc.ddrpa.dorian.elias.generator;
+
+import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.loader.StringLoader;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 使用自定义 Pebble 模板生成 SQL
+ * <p>
+ * 模板中可用的变量：
+ * <ul>
+ *     <li>建表：{@code t} 为 TableSpec，{@code dropIfExists} 为是否先删除表</li>
+ *     <li>添加列：{@code table} 为表名，{@code c} 为 ColumnSpec</li>
+ *     <li>修改列：{@code table} 为表名，{@code column} 为列名，{@code cm} 为 ColumnModifySpec</li>
+ * </ul>
+ */
+public class PebbleSQLGenerator implements SQLGenerator {
+
+    public static final String MYSQL57_CREATE_TABLE_TEMPLATE = """
+            {% if dropIfExists %}drop table if exists `{{ t.name }}`;
+            {% endif %}
+            create table `{{ t.name }}` (
+            {% for c in t.columns %}
+              `{{ c.name }}` {{ c.columnType }}{% if c.nullable %} null{% else %} not null{% endif %}{% if c.defaultValue %} default '{{ c.defaultValue }}'{% endif %}{% if c.autoIncrement %} auto_increment{% endif %}
+              {% if c.primaryKey %}  primary key{% endif %}{% if not loop.last %},{% endif %}
+
+            {% endfor %}
+            );
+            {% for i in t.indexes %}
+            create{% if i.unique %} unique{% endif %} index {{ i.name }} on `{{ t.name }}` ({{ i.columns }});
+            {% endfor %}
+            {% for s in t.spatialIndexSpecs %}
+            create spatial index {{ s.name }} on `{{ t.name }}` ({{ s.columns }});
+            {% endfor %}
+            """;
+    /**
+     * H2 建表模板，调用方需要自行将列类型中的整数类型替换为不带显示宽度的类型
+     */
+    public static final String H2_CREATE_TABLE_TEMPLATE = """
+            {% if dropIfExists %}drop table if exists {{ t.name }};
+            {% endif %}
+            create table {{ t.name }} (
+            {% for c in t.columns %}
+              {{ c.name }} {{ c.columnType }}{% if c.nullable %} null{% else %} not null{% endif %}{% if c.defaultValue %} default '{{ c.defaultValue }}'{% endif %}{% if c.autoIncrement %} auto_increment{% endif %}
+              {% if c.primaryKey %}  primary key{% endif %}{% if not loop.last %},{% endif %}
+
+            {% endfor %}
+            );
+            {% for i in t.indexes %}
+            create{% if i.unique %} unique{% endif %} index {{ i.name }} on {{ t.name }} ({{ i.columns }});
+            {% endfor %}
+            {% for s in t.spatialIndexSpecs %}
+            create spatial index {{ s.name }} on {{ t.name }} ({{ s.columns }});
+            {% endfor %}
+            """;
+    public static final String MYSQL57_ADD_COLUMN_TEMPLATE = """
+            alter table `{{ table }}` add column `{{ c.name }}` {{ c.columnType }}{% if c.nullable %} null{% else %} not null{% endif %}{% if c.defaultValue %} default '{{ c.defaultValue }}'{% endif %}{% if c.autoIncrement %} auto_increment{% endif %}{% if c.primaryKey %}
+                primary key{% endif %};
+            """;
+    /**
+     * MySQL 5.7 MODIFY COLUMN 需要提供列的完整定义
+     * 即使只修改某个属性，也需要重新声明所有属性
+     */
+    public static final String MYSQL57_MODIFY_COLUMN_TEMPLATE = """
+            alter table `{{ table }}` modify column `{{ column }}` {{ cm.columnType }}{% if cm.nullable %} null{% else %} not null{% endif %}{% if cm.defaultValue is not null %} default '{{ cm.defaultValue }}'{% endif %};
+            """;
+
+    private final PebbleTemplate createTableTemplate;
+    private final PebbleTemplate addColumnTemplate;
+    private final PebbleTemplate modifyColumnTemplate;
+    private boolean dropIfExists = true;
+
+    /**
+     * 使用与 {@link MySQL57Generator} 输出一致的默认模板
+     */
+    public PebbleSQLGenerator() {
+        this(MYSQL57_CREATE_TABLE_TEMPLATE, MYSQL57_ADD_COLUMN_TEMPLATE,
+                MYSQL57_MODIFY_COLUMN_TEMPLATE);
+    }
+
+    public PebbleSQLGenerator(String createTableTemplate, String addColumnTemplate,
+                              String modifyColumnTemplate) {
+        PebbleEngine engine = new PebbleEngine.Builder()
+                .loader(new StringLoader())
+                .build();
+        this.createTableTemplate = engine.getTemplate(createTableTemplate);
+        this.addColumnTemplate = engine.getTemplate(addColumnTemplate);
+        this.modifyColumnTemplate = engine.getTemplate(modifyColumnTemplate);
+    }
+
+    public PebbleSQLGenerator setDropIfExists(boolean dropIfExists) {
+        this.dropIfExists = dropIfExists;
+        return this;
+    }
+
+    @Override
+    public String createTable(TableSpec tableSpec) throws IOException {
+        StringWriter writer = new StringWriter();
+        createTable(tableSpec, writer);
+        return writer.toString();
+    }
+
+    @Override
+    public void createTable(TableSpec tableSpec, Appendable out) throws IOException {
+        if (!(out instanceof Writer writer)) {
+            SQLGenerator.super.createTable(tableSpec, out);
+            return;
+        }
+        Map<String, Object> context = new HashMap<>();
+        context.put("dropIfExists", dropIfExists);
+        context.put("t", tableSpec);
+        // 模板直接渲染到 Writer，不经过中间字符串
+        createTableTemplate.evaluate(writer, context);
+    }
+
+    @Override
+    public String addColumn(String tableName, ColumnSpec columnSpec) throws IOException {
+        Map<String, Object> context = new HashMap<>();
+        context.put("table", tableName);
+        context.put("c", columnSpec);
+        StringWriter writer = new StringWriter();
+        addColumnTemplate.evaluate(writer, context);
+        return writer.toString();
+    }
+
+    @Override
+    public String modifyColumn(String tableName, String columnName,
+                               ColumnModifySpec columnModifySpec) throws IOException {
+        Map<String, Object> context = new HashMap<>();
+        context.put("table", tableName);
+        context.put("column", columnName);
+        context.put("cm", columnModifySpec);
+        StringWriter writer = new StringWriter();
+        modifyColumnTemplate.evaluate(writer, context);
+        return writer.toString();
+    }
+}
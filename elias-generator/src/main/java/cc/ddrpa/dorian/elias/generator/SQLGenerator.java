@@ -2,16 +2,126 @@ package cc.ddrpa.dorian.elias.generator;
 
 import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableAlterSpec;
 import cc.ddrpa.dorian.elias.core.spec.TableSpec;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public interface SQLGenerator {
 
     String createTable(TableSpec tableSpec) throws IOException;
 
+    /**
+     * 将建表语句直接写入 out
+     *
+     * @param tableSpec
+     * @param out
+     * @throws IOException
+     */
+    default void createTable(TableSpec tableSpec, Appendable out) throws IOException {
+        out.append(createTable(tableSpec));
+    }
+
+    /**
+     * 将建表语句生成为可以逐条交给 JDBC 执行的语句，语句末尾不带分号
+     * <p>
+     * 默认实现按行末的分号拆分 {@link #createTable(TableSpec)} 的输出，
+     * 默认值等内容中出现分号加换行时会被截断，能够直接区分语句的实现应当覆盖此方法
+     *
+     * @param tableSpec
+     * @return
+     * @throws IOException
+     */
+    default List<String> createTableStatements(TableSpec tableSpec) throws IOException {
+        List<String> statements = new ArrayList<>();
+        for (String statement : createTable(tableSpec).split(";\n")) {
+            if (!statement.isBlank()) {
+                statements.add(stripTerminator(statement));
+            }
+        }
+        return statements;
+    }
+
     String addColumn(String tableName, ColumnSpec columnSpec) throws IOException;
 
     String modifyColumn(String tableName, String columnName,
                         ColumnModifySpec columnModifySpec) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * 为已有的表添加索引
+     * <p>
+     * 默认实现输出 {@code create [unique] index <name> on <table> (<columns>);}
+     *
+     * @param tableName
+     * @param indexSpec
+     * @return
+     * @throws IOException
+     */
+    default String addIndex(String tableName, IndexSpec indexSpec) throws IOException {
+        return "create" + (indexSpec.isUnique() ? " unique" : "") + " index "
+                + indexSpec.getName() + " on " + tableName + " (" + indexSpec.getColumns()
+                + ");\n";
+    }
+
+    /**
+     * 将一张表的全部变更合并为一条 ALTER TABLE 语句
+     * <p>
+     * 默认实现按添加列、修改列、添加索引的顺序依次输出每个变更各自的语句
+     *
+     * @param tableAlterSpec
+     * @return
+     * @throws IOException
+     */
+    default String alterTable(TableAlterSpec tableAlterSpec) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnSpec columnSpec : tableAlterSpec.getAddColumns()) {
+            sb.append(addColumn(tableAlterSpec.getTableName(), columnSpec));
+        }
+        for (Map.Entry<String, ColumnModifySpec> e : tableAlterSpec.getModifyColumns()
+                .entrySet()) {
+            sb.append(modifyColumn(tableAlterSpec.getTableName(), e.getKey(), e.getValue()));
+        }
+        for (IndexSpec indexSpec : tableAlterSpec.getAddIndexes()) {
+            sb.append(addIndex(tableAlterSpec.getTableName(), indexSpec));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 将一张表的全部变更生成为可以逐条交给 JDBC 执行的语句，语句末尾不带分号
+     * <p>
+     * 默认实现按添加列、修改列、添加索引的顺序依次返回每个变更各自的语句
+     *
+     * @param tableAlterSpec
+     * @return
+     * @throws IOException
+     */
+    default List<String> alterTableStatements(TableAlterSpec tableAlterSpec) throws IOException {
+        List<String> statements = new ArrayList<>(
+                tableAlterSpec.size() + tableAlterSpec.getAddIndexes().size());
+        for (ColumnSpec columnSpec : tableAlterSpec.getAddColumns()) {
+            statements.add(stripTerminator(addColumn(tableAlterSpec.getTableName(), columnSpec)));
+        }
+        for (Map.Entry<String, ColumnModifySpec> e : tableAlterSpec.getModifyColumns()
+                .entrySet()) {
+            statements.add(stripTerminator(
+                    modifyColumn(tableAlterSpec.getTableName(), e.getKey(), e.getValue())));
+        }
+        for (IndexSpec indexSpec : tableAlterSpec.getAddIndexes()) {
+            statements.add(stripTerminator(addIndex(tableAlterSpec.getTableName(), indexSpec)));
+        }
+        return statements;
+    }
+
+    /**
+     * 去掉单条语句末尾的分号和空白
+     */
+    private static String stripTerminator(String statement) {
+        String stripped = statement.strip();
+        return stripped.endsWith(";") ? stripped.substring(0, stripped.length() - 1) : stripped;
+    }
+}
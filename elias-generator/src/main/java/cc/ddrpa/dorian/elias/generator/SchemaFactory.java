@@ -2,25 +2,63 @@ package cc.ddrpa.dorian.elias.generator;
 
 import cc.ddrpa.dorian.elias.core.EntitySearcher;
 import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.cache.TableSpecCache;
 import cc.ddrpa.dorian.elias.core.spec.TableSpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 
 public class SchemaFactory {
 
+    // 每批并行构建的 TableSpec 数量，批次越小第一张表的 SQL 写出得越早
+    private static final int EXPORT_BATCH_SIZE = 256;
+    private static final String MANIFEST_FILE = "manifest.sha256";
+    private static final Pattern UNSAFE_FILE_NAME_CHARS = Pattern.compile("[^A-Za-z0-9_.$-]");
     private final Logger logger = LoggerFactory.getLogger(SchemaFactory.class);
     private final Set<Class<?>> classes = new HashSet<>(5);
-    private final EntitySearcher entitySearcher = new EntitySearcher();
+    private final EntitySearcher entitySearcher;
+    private TableSpecCache specCache = null;
+
+    public SchemaFactory() {
+        this(new EntitySearcher());
+    }
+
+    /**
+     * 使用共享的 EntitySearcher，已经完成的扫描结果可以直接复用
+     *
+     * @param entitySearcher
+     */
+    public SchemaFactory(EntitySearcher entitySearcher) {
+        this.entitySearcher = entitySearcher;
+    }
 
     /**
      * 添加指定包下的所有符合条件的类
@@ -57,6 +95,17 @@ public class SchemaFactory {
         return this;
     }
 
+    /**
+     * 使用持久化的 TableSpec 缓存，实体类没有变化时直接从缓存文件中读取，导出完成后写回缓存文件
+     *
+     * @param cacheFile
+     * @return
+     */
+    public SchemaFactory useSpecCache(Path cacheFile) {
+        this.specCache = TableSpecCache.open(cacheFile);
+        return this;
+    }
+
     /**
      * 导出 SQL 文件
      *
@@ -64,25 +113,201 @@ public class SchemaFactory {
      * @throws IOException
      */
     public void export(String outputFile, SQLGenerator generator) throws IOException {
-        classes.addAll(entitySearcher.search());
+        export(Path.of(outputFile), generator);
+    }
 
-        List<String> tableDSLList = classes.stream()
-                .sorted(Comparator.comparing(Class::getSimpleName))
-                .map(clazz -> {
-                    logger.trace("Processing class: {}", clazz.getName());
-                    TableSpec tableSpec = SpecMaker.makeTableSpec(clazz);
-                    try {
-                        return generator.createTable(tableSpec);
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
+    /**
+     * 导出 SQL 文件，文件已存在时覆盖
+     *
+     * @param outputFile
+     * @param generator
+     * @throws IOException
+     */
+    public void export(Path outputFile, SQLGenerator generator) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+            export(writer, generator);
+        }
+    }
+
+    /**
+     * 以 UTF-8 编码导出到输出流，导出完成后 flush，但不会关闭输出流
+     *
+     * @param outputStream
+     * @param generator
+     * @throws IOException
+     */
+    public void export(OutputStream outputStream, SQLGenerator generator) throws IOException {
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        export(writer, generator);
+    }
+
+    /**
+     * 导出到 Writer，导出完成后 flush，但不会关闭 Writer
+     * <p>
+     * 实体类按批次构建 TableSpec，每张表的 SQL 生成后立即写出，不会在内存中保存整个 schema 的 SQL
+     *
+     * @param writer
+     * @param generator
+     * @throws IOException
+     */
+    public void export(Writer writer, SQLGenerator generator) throws IOException {
+        List<Class<?>> sortedClasses = sortedClasses();
+        for (int from = 0; from < sortedClasses.size(); from += EXPORT_BATCH_SIZE) {
+            List<TableSpec> tableSpecs = makeTableSpecs(sortedClasses.subList(from,
+                    Math.min(from + EXPORT_BATCH_SIZE, sortedClasses.size())));
+            for (TableSpec tableSpec : tableSpecs) {
+                logger.trace("Generating table: {}", tableSpec.getName());
+                generator.createTable(tableSpec, writer);
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        if (Objects.nonNull(specCache)) {
+            specCache.save();
+        }
+    }
+
+    /**
+     * 将每张表的 SQL 导出到目录下单独的文件 {@code <表名>.sql}，并生成清单文件 {@value #MANIFEST_FILE}
+     * <p>
+     * 清单与 {@code sha256sum} 的输出格式相同，每行为文件内容的 SHA-256 和文件名，行的顺序即表的导出顺序，
+     * 可以直接通过 {@code sha256sum -c} 校验。文件并发写入，generator 需要是线程安全的。
+     * 再次导出时，已有文件的内容与本次生成的一致时不会重写；上一次清单中记录、本次已经不存在的表文件会被删除，
+     * 清单中指向输出目录之外的路径会被忽略。
+     * <p>
+     * 表名只有大小写不同时，在不区分大小写的文件系统上会写入同一个文件，此时抛出 IllegalStateException
+     *
+     * @param outputDirectory
+     * @param generator
+     * @throws IOException
+     */
+    public void exportSplit(Path outputDirectory, SQLGenerator generator) throws IOException {
+        Path directory = outputDirectory.toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        Path manifestFile = directory.resolve(MANIFEST_FILE);
+        Map<String, String> previous = readManifest(manifestFile);
+        List<TableSpec> tableSpecs = makeTableSpecs(sortedClasses());
+        String[] fileNames = new String[tableSpecs.size()];
+        // Map<小写的文件名, 表名>
+        Map<String, String> seen = new HashMap<>();
+        for (int i = 0; i < tableSpecs.size(); i++) {
+            String tableName = tableSpecs.get(i).getName();
+            fileNames[i] = tableFileName(tableName);
+            String conflict = seen.putIfAbsent(fileNames[i].toLowerCase(Locale.ROOT), tableName);
+            if (Objects.nonNull(conflict)) {
+                throw new IllegalStateException(
+                        "Tables " + conflict + " and " + tableName + " map to the same file "
+                                + fileNames[i] + " on case-insensitive file systems");
+            }
+        }
+        String[] hashes = new String[tableSpecs.size()];
+        AtomicInteger written = new AtomicInteger();
+        try {
+            IntStream.range(0, tableSpecs.size()).parallel().forEach(i -> {
+                try {
+                    String sql = generator.createTable(tableSpecs.get(i));
+                    byte[] content = sql.getBytes(StandardCharsets.UTF_8);
+                    hashes[i] = sha256(content);
+                    Path file = directory.resolve(fileNames[i]);
+                    // 以文件的实际内容为准，清单可能与文件不一致，例如文件被手动修改过
+                    if (Files.isRegularFile(file) && Files.size(file) == content.length
+                            && Arrays.equals(Files.readAllBytes(file), content)) {
+                        return;
                     }
-                })
+                    Files.write(file, content);
+                    written.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // 删除上一次导出、本次已经不存在的表文件，只处理输出目录下的 .sql 文件
+        for (String staleFile : previous.keySet()) {
+            Path file = directory.resolve(staleFile).normalize();
+            if (!directory.equals(file.getParent()) || !staleFile.endsWith(".sql")) {
+                logger.warn("Ignoring manifest entry outside of {}: {}", directory, staleFile);
+                continue;
+            }
+            // 与本次导出的文件只有大小写不同时，在不区分大小写的文件系统上是同一个文件
+            if (!seen.containsKey(file.getFileName().toString().toLowerCase(Locale.ROOT))) {
+                Files.deleteIfExists(file);
+            }
+        }
+        StringBuilder manifest = new StringBuilder(tableSpecs.size() * 96);
+        for (int i = 0; i < tableSpecs.size(); i++) {
+            manifest.append(hashes[i]).append("  ").append(fileNames[i]).append('\n');
+        }
+        Path tempFile = Files.createTempFile(directory, MANIFEST_FILE, ".tmp");
+        try {
+            Files.writeString(tempFile, manifest, StandardCharsets.UTF_8);
+            try {
+                Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        logger.info("{} of {} table files written to {}", written.get(), tableSpecs.size(),
+                outputDirectory);
+        if (Objects.nonNull(specCache)) {
+            specCache.save();
+        }
+    }
+
+    private List<Class<?>> sortedClasses() {
+        classes.addAll(entitySearcher.search());
+        return classes.stream()
+                .sorted(Comparator.comparing(Class::getSimpleName))
                 .toList();
-        try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-            for (String dsl : tableDSLList) {
-                fos.write(dsl.getBytes(StandardCharsets.UTF_8));
-                fos.write("\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<TableSpec> makeTableSpecs(List<Class<?>> sortedClasses) {
+        return Objects.isNull(specCache)
+                ? SpecMaker.makeTableSpecs(sortedClasses)
+                : specCache.getOrMake(sortedClasses);
+    }
+
+    /**
+     * 读取清单文件
+     *
+     * @param manifestFile
+     * @return Map&lt;FileName, SHA-256&gt;，清单文件不存在时返回空
+     * @throws IOException
+     */
+    private static Map<String, String> readManifest(Path manifestFile) throws IOException {
+        if (!Files.exists(manifestFile)) {
+            return Map.of();
+        }
+        Map<String, String> entries = new HashMap<>();
+        for (String line : Files.readAllLines(manifestFile, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf("  ");
+            if (separator > 0) {
+                entries.put(line.substring(separator + 2), line.substring(0, separator));
             }
         }
+        return entries;
+    }
+
+    /**
+     * 表名中文件名不允许的字符替换为下划线
+     *
+     * @param tableName
+     * @return
+     */
+    private static String tableFileName(String tableName) {
+        return UNSAFE_FILE_NAME_CHARS.matcher(tableName).replaceAll("_") + ".sql";
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
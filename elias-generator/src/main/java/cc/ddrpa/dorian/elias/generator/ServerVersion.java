@@ -0,0 +1,83 @@
+package cc.ddrpa.dorian.elias.generator;
+
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 数据库服务端版本，用于判断可以使用哪些 Online DDL 算法
+ */
+public final class ServerVersion {
+
+    private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+)\\.(\\d+)(?:\\.(\\d+))?");
+    // 通过 MySQL 协议连接 MariaDB 时，服务端版本带有这个兼容前缀
+    private static final String MARIADB_COMPATIBILITY_PREFIX = "5.5.5-";
+
+    private final int major;
+    private final int minor;
+    private final int patch;
+    private final boolean mariaDB;
+
+    private ServerVersion(int major, int minor, int patch, boolean mariaDB) {
+        this.major = major;
+        this.minor = minor;
+        this.patch = patch;
+        this.mariaDB = mariaDB;
+    }
+
+    public static ServerVersion mysql(int major, int minor, int patch) {
+        return new ServerVersion(major, minor, patch, false);
+    }
+
+    public static ServerVersion mariaDB(int major, int minor, int patch) {
+        return new ServerVersion(major, minor, patch, true);
+    }
+
+    /**
+     * 解析 {@code select version()} 或 {@code DatabaseMetaData#getDatabaseProductVersion()} 的结果，
+     * 例如 {@code 8.0.32}、{@code 5.7.44-log}、{@code 5.5.5-10.6.12-MariaDB}
+     *
+     * @param version
+     * @return
+     */
+    public static ServerVersion parse(String version) {
+        Objects.requireNonNull(version);
+        boolean mariaDB = version.toLowerCase().contains("mariadb");
+        String text = mariaDB && version.startsWith(MARIADB_COMPATIBILITY_PREFIX)
+                ? version.substring(MARIADB_COMPATIBILITY_PREFIX.length())
+                : version;
+        Matcher m = VERSION_PATTERN.matcher(text);
+        if (!m.find()) {
+            throw new IllegalArgumentException("Unrecognized server version: " + version);
+        }
+        return new ServerVersion(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                Objects.isNull(m.group(3)) ? 0 : Integer.parseInt(m.group(3)), mariaDB);
+    }
+
+    public boolean isMariaDB() {
+        return mariaDB;
+    }
+
+    /**
+     * 版本号是否不低于指定版本，不区分 MySQL 和 MariaDB
+     *
+     * @param major
+     * @param minor
+     * @param patch
+     * @return
+     */
+    public boolean isAtLeast(int major, int minor, int patch) {
+        if (this.major != major) {
+            return this.major > major;
+        }
+        if (this.minor != minor) {
+            return this.minor > minor;
+        }
+        return this.patch >= patch;
+    }
+
+    @Override
+    public String toString() {
+        return major + "." + minor + "." + patch + (mariaDB ? "-MariaDB" : "");
+    }
+}
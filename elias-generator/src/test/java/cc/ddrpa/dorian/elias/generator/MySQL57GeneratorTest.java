@@ -0,0 +1,243 @@
+package cc.ddrpa.dorian.elias.generator;
+
+import cc.ddrpa.dorian.elias.core.EntitySearcher;
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
+import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.IndexSpec;
+import cc.ddrpa.dorian.elias.core.spec.SpatialIndexSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableAlterSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import com.baomidou.mybatisplus.annotation.TableName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 直接拼接的 SQL 需要与模板渲染的结果逐字节一致
+ */
+class MySQL57GeneratorTest {
+
+    @Test
+    void createTableMatchesTemplate() throws IOException {
+        for (boolean dropIfExists : new boolean[]{true, false}) {
+            MySQL57Generator generator = new MySQL57Generator().setDropIfExists(dropIfExists);
+            PebbleSQLGenerator pebble = new PebbleSQLGenerator().setDropIfExists(dropIfExists);
+            for (TableSpec tableSpec : tableSpecs()) {
+                assertEquals(pebble.createTable(tableSpec), generator.createTable(tableSpec));
+            }
+        }
+    }
+
+    @Test
+    void createH2TableMatchesTemplate() throws IOException {
+        for (boolean dropIfExists : new boolean[]{true, false}) {
+            MySQL57Generator generator = new MySQL57Generator()
+                    .enableH2Compatibility()
+                    .setDropIfExists(dropIfExists);
+            PebbleSQLGenerator pebble = new PebbleSQLGenerator(
+                    PebbleSQLGenerator.H2_CREATE_TABLE_TEMPLATE,
+                    PebbleSQLGenerator.MYSQL57_ADD_COLUMN_TEMPLATE,
+                    PebbleSQLGenerator.MYSQL57_MODIFY_COLUMN_TEMPLATE)
+                    .setDropIfExists(dropIfExists);
+            for (TableSpec tableSpec : tableSpecs()) {
+                String actual = generator.createTable(tableSpec);
+                for (ColumnSpec col : tableSpec.getColumns()) {
+                    if (col.getColumnType().contains("int")) {
+                        col.setColumnType(col.getDataType());
+                    }
+                }
+                assertEquals(pebble.createTable(tableSpec), actual);
+            }
+        }
+    }
+
+    @Test
+    void alterColumnMatchesTemplate() throws IOException {
+        MySQL57Generator generator = new MySQL57Generator();
+        PebbleSQLGenerator pebble = new PebbleSQLGenerator();
+        for (TableSpec tableSpec : tableSpecs()) {
+            for (ColumnSpec col : tableSpec.getColumns()) {
+                assertEquals(pebble.addColumn(tableSpec.getName(), col),
+                        generator.addColumn(tableSpec.getName(), col));
+                for (boolean nullable : new boolean[]{true, false}) {
+                    ColumnModifySpec modifySpec = new ColumnModifySpec()
+                            .setColumnType(col.getColumnType())
+                            .setNullable(nullable)
+                            .setDefaultValue(col.getDefaultValue());
+                    assertEquals(
+                            pebble.modifyColumn(tableSpec.getName(), col.getName(), modifySpec),
+                            generator.modifyColumn(tableSpec.getName(), col.getName(),
+                                    modifySpec));
+                }
+            }
+        }
+    }
+
+    @Test
+    void alterColumnDeclaresOnlineAlgorithm() throws IOException {
+        ColumnSpec column = new ColumnSpec().setName("nickname").setDataType("varchar")
+                .setLength(32L);
+        // 不知道表上是否有 FULLTEXT 索引或压缩行格式，由 MySQL 自行选择是否使用 INSTANT
+        assertEquals("alter table `t` add column `nickname` varchar(32) null;\n",
+                new MySQL57Generator().setServerVersion(ServerVersion.parse("8.0.32"))
+                        .addColumn("t", column));
+        assertEquals(
+                "alter table `t` add column `nickname` varchar(32) null, algorithm=inplace, lock=none;\n",
+                new MySQL57Generator().setServerVersion(ServerVersion.parse("5.7.44-log"))
+                        .addColumn("t", column));
+        ServerVersion mysql57 = ServerVersion.parse("5.7.44-log");
+        // 32 -> 60 个字符都不超过 255 字节，原地扩展
+        assertEquals(AlterAlgorithm.INPLACE, AlterAlgorithm.forModifyColumn(mysql57,
+                varcharExtension(32L, 60L)));
+        // 32 -> 64 个字符跨越了 255 字节，需要复制表
+        assertEquals(AlterAlgorithm.COPY, AlterAlgorithm.forModifyColumn(mysql57,
+                varcharExtension(32L, 64L)));
+        assertEquals(AlterAlgorithm.INPLACE, AlterAlgorithm.forModifyColumn(mysql57,
+                varcharExtension(255L, 500L)));
+        assertEquals(AlterAlgorithm.COPY, AlterAlgorithm.forModifyColumn(mysql57,
+                varcharExtension(500L, 255L)));
+        // 按列实际的字符集计算字节数：utf8mb3 80 -> 90 个字符、latin1 200 -> 300 个字符都跨越了 255 字节
+        assertEquals(AlterAlgorithm.COPY, AlterAlgorithm.forModifyColumn(mysql57,
+                varcharExtension(80L, 90L, 3)));
+        assertEquals(AlterAlgorithm.COPY, AlterAlgorithm.forModifyColumn(mysql57,
+                varcharExtension(200L, 300L, 1)));
+        assertEquals(AlterAlgorithm.INPLACE, AlterAlgorithm.forModifyColumn(mysql57,
+                varcharExtension(100L, 200L, 1)));
+        // 不知道字符集的宽度时不声明算法
+        ColumnModifySpec unknownCharset = varcharExtension(32L, 60L).setActualOctetLength(null);
+        assertEquals(AlterAlgorithm.DEFAULT,
+                AlterAlgorithm.forModifyColumn(mysql57, unknownCharset));
+        assertEquals("alter table `t` modify column `nickname` varchar(60) null;\n",
+                new MySQL57Generator().setServerVersion(mysql57)
+                        .modifyColumn("t", "nickname", unknownCharset.setNullable(true)));
+        assertEquals(AlterAlgorithm.DEFAULT, AlterAlgorithm.forModifyColumn(
+                ServerVersion.parse("8.0.32"),
+                new ColumnModifySpec().setAlterDefaultValue(true)));
+        assertEquals(AlterAlgorithm.DEFAULT, AlterAlgorithm.forAddColumn(
+                ServerVersion.parse("5.5.5-10.6.12-MariaDB"), column));
+    }
+
+    @Test
+    void alterTableCoalescesChanges() throws IOException {
+        ColumnSpec nickname = new ColumnSpec().setName("nickname").setDataType("varchar")
+                .setLength(32L);
+        ColumnModifySpec widen = varcharExtension(32L, 60L).setNullable(true);
+        MySQL57Generator generator = new MySQL57Generator();
+        // 只有一个变更时与单独生成的语句一致
+        assertEquals(generator.addColumn("t", nickname),
+                generator.alterTable(new TableAlterSpec("t").addColumn(nickname)));
+        TableAlterSpec changes = new TableAlterSpec("t")
+                .addColumn(nickname)
+                .modifyColumn("remark", widen)
+                .addIndex(new IndexSpec().setName("idx_nickname").setColumns("nickname"));
+        assertEquals("""
+                        alter table `t`
+                          add column `nickname` varchar(32) null,
+                          modify column `remark` varchar(60) null,
+                          add index idx_nickname (nickname);
+                        """, generator.alterTable(changes));
+        // 合并后的语句使用限制最多的算法
+        assertEquals("""
+                        alter table `t`
+                          add column `nickname` varchar(32) null,
+                          modify column `remark` varchar(60) null,
+                          add index idx_nickname (nickname), algorithm=inplace, lock=none;
+                        """,
+                generator.setServerVersion(ServerVersion.parse("5.7.44-log")).alterTable(changes));
+        // 其中任一变更不声明算法时，整条语句都不声明
+        assertEquals(generator.setServerVersion(null).alterTable(changes),
+                generator.setServerVersion(ServerVersion.parse("8.0.32")).alterTable(changes));
+    }
+
+    /**
+     * 默认实现逐条输出每个变更，添加索引使用 CREATE INDEX
+     */
+    @Test
+    void defaultAlterTableAddsIndexes() throws IOException {
+        ColumnSpec nickname = new ColumnSpec().setName("nickname").setDataType("varchar")
+                .setLength(32L);
+        TableAlterSpec changes = new TableAlterSpec("t")
+                .addColumn(nickname)
+                .addIndex(new IndexSpec().setName("uk_nickname").setUnique(true)
+                        .setColumns("nickname"));
+        PebbleSQLGenerator pebble = new PebbleSQLGenerator();
+        assertEquals(pebble.addColumn("t", nickname)
+                        + "create unique index uk_nickname on t (nickname);\n",
+                pebble.alterTable(changes));
+        List<String> statements = pebble.alterTableStatements(changes);
+        assertEquals(2, statements.size());
+        assertEquals("create unique index uk_nickname on t (nickname)", statements.get(1));
+        assertEquals("create unique index uk_nickname on `t` (nickname);\n",
+                new MySQL57Generator().addIndex("t", changes.getAddIndexes().get(0)));
+    }
+
+    /**
+     * 逐条返回的建表语句与 createTable 的输出一致，默认值中的分号和换行不会拆开语句
+     */
+    @Test
+    void createTableStatementsKeepValuesIntact() throws IOException {
+        MySQL57Generator generator = new MySQL57Generator();
+        for (TableSpec tableSpec : tableSpecs()) {
+            StringBuilder joined = new StringBuilder();
+            generator.createTableStatements(tableSpec)
+                    .forEach(statement -> joined.append(statement).append(";\n"));
+            assertEquals(generator.createTable(tableSpec), joined.toString());
+        }
+        TableSpec tableSpec = new TableSpec().setName("tbl_note").setColumns(List.of(
+                new ColumnSpec().setName("note").setColumnType("varchar(64)")
+                        .setDataType("varchar").setLength(64L).setNullable(true)
+                        .setDefaultValue("a;\nb")));
+        List<String> statements = generator.createTableStatements(tableSpec);
+        assertEquals(2, statements.size());
+        assertEquals("drop table if exists `tbl_note`", statements.get(0));
+        assertTrue(statements.get(1).contains("default 'a;\nb'"));
+    }
+
+    private static ColumnModifySpec varcharExtension(long from, long to) {
+        return varcharExtension(from, to, 4);
+    }
+
+    private static ColumnModifySpec varcharExtension(long from, long to, long bytesPerChar) {
+        return new ColumnModifySpec().setAlterColumnType(true)
+                .setColumnType("varchar(" + to + ")").setDataType("varchar").setLength(to)
+                .setActualDataType("varchar").setActualLength(from)
+                .setActualOctetLength(from * bytesPerChar);
+    }
+
+    private static List<TableSpec> tableSpecs() {
+        List<TableSpec> tableSpecs = new ArrayList<>();
+        new EntitySearcher()
+                .addPackage("cc.ddrpa.dorian")
+                .useAnnotation(TableName.class)
+                .search()
+                .forEach(clazz -> tableSpecs.add(SpecMaker.makeTableSpec(clazz)));
+        tableSpecs.add(new TableSpec().setName("tbl_empty"));
+        tableSpecs.add(new TableSpec()
+                .setName("tbl_<special>")
+                .setColumns(List.of(
+                        new ColumnSpec().setName("id").setDataType("bigint").setLength(20L)
+                                .setNullable(false).setPrimaryKey(true).setAutoIncrement(true),
+                        new ColumnSpec().setName("quoted").setDataType("varchar")
+                                .setLength(32L).setDefaultValue("it's \"A&B\""),
+                        new ColumnSpec().setName("empty_default").setDataType("varchar")
+                                .setLength(8L).setNullable(false).setDefaultValue(""),
+                        new ColumnSpec().setName("amount").setDataType("decimal")
+                                .setPrecisionAndScale(10, 2).setDefaultValue("0.00"),
+                        new ColumnSpec().setName("location").setDataType("point")
+                                .setNullable(false)))
+                .setIndexes(List.of(
+                        new IndexSpec().setName("uk_quoted").setUnique(true)
+                                .setColumns("quoted, empty_default"),
+                        new IndexSpec().setName("idx_amount").setColumns("amount")))
+                .setSpatialIndexSpecs(List.of(
+                        new SpatialIndexSpec().setName("spatial_location")
+                                .setColumns("location"))));
+        return tableSpecs;
+    }
+}
@@ -1,9 +1,20 @@
 package cc.ddrpa.dorian.elias.generator;
 
 import com.baomidou.mybatisplus.annotation.TableName;
+import jakarta.persistence.Table;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SchemaFactoryTest {
 
@@ -17,4 +28,73 @@ class SchemaFactoryTest {
                 .useAnnotation(TableName.class)
                 .export("./target/generateTest.sql", generator);
     }
-}
\ No newline at end of file
+
+    @Test
+    void splitExportTest() throws IOException {
+        SQLGenerator generator = new MySQL57Generator()
+                .enableH2Compatibility()
+                .setDropIfExists(false);
+        Path outputDirectory = Path.of("./target/generateTest");
+        Path staleFile = outputDirectory.resolve("removed_table.sql");
+        Path outsideFile = Path.of("./target/outside.sql");
+        Files.createDirectories(outputDirectory);
+        // 清单中指向输出目录之外的路径不会被删除
+        Files.writeString(outputDirectory.resolve("manifest.sha256"),
+                "0000  removed_table.sql\n0000  ../outside.sql\n0000  "
+                        + outsideFile.toAbsolutePath() + "\n");
+        Files.writeString(staleFile, "create table removed_table (id int);\n");
+        Files.writeString(outsideFile, "keep\n");
+        new SchemaFactory()
+                .addPackage("cc.ddrpa.dorian")
+                .useAnnotation(TableName.class)
+                .exportSplit(outputDirectory, generator);
+        List<String> manifest = Files.readAllLines(outputDirectory.resolve("manifest.sha256"));
+        assertFalse(manifest.isEmpty());
+        assertFalse(Files.exists(staleFile));
+        assertEquals("keep\n", Files.readString(outsideFile));
+        // 每张表的文件按清单顺序拼接后与单文件导出一致
+        StringBuilder joined = new StringBuilder();
+        for (String line : manifest) {
+            joined.append(Files.readString(outputDirectory.resolve(line.substring(66))))
+                    .append('\n');
+        }
+        StringWriter expected = new StringWriter();
+        new SchemaFactory()
+                .addPackage("cc.ddrpa.dorian")
+                .useAnnotation(TableName.class)
+                .export(expected, generator);
+        assertEquals(expected.toString(), joined.toString());
+        // 文件内容与清单不一致时，再次导出会按照实际内容重写
+        Path firstFile = outputDirectory.resolve(manifest.get(0).substring(66));
+        String firstContent = Files.readString(firstFile);
+        Files.writeString(firstFile, "tampered");
+        new SchemaFactory()
+                .addPackage("cc.ddrpa.dorian")
+                .useAnnotation(TableName.class)
+                .exportSplit(outputDirectory, generator);
+        assertEquals(firstContent, Files.readString(firstFile));
+        assertEquals(manifest, Files.readAllLines(outputDirectory.resolve("manifest.sha256")));
+    }
+
+    @Test
+    void splitExportRejectsCaseOnlyDifferences(@TempDir Path outputDirectory) {
+        SchemaFactory schemaFactory = new SchemaFactory()
+                .addClass(UpperCaseEntity.class)
+                .addClass(LowerCaseEntity.class);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> schemaFactory.exportSplit(outputDirectory, new MySQL57Generator()));
+        assertTrue(e.getMessage().contains("case-insensitive"), e.getMessage());
+    }
+
+    @Table(name = "ACCOUNT")
+    static class UpperCaseEntity {
+
+        private Long id;
+    }
+
+    @Table(name = "account")
+    static class LowerCaseEntity {
+
+        private Long id;
+    }
+}
@@ -0,0 +1,144 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.generator.AlterAlgorithm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 没有在启动时执行的变更，写入迁移计划文件后由人工或迁移工具在合适的时间执行
+ * <p>
+ * 计划文件是可以直接执行的 SQL，每条语句之前以注释说明表的大小、推迟执行的原因和预计的重建开销
+ */
+class DeferredMigrationPlan {
+
+    private final StringBuilder content = new StringBuilder();
+    private int entries = 0;
+
+    /**
+     * @param tableName
+     * @param tableSize 无法获取表的大小时为 null
+     * @param algorithm 未开启 Online DDL 时为 null
+     * @param reasons
+     * @param sql
+     */
+    void add(String tableName, TableSize tableSize, AlterAlgorithm algorithm, List<String> reasons,
+             String sql) {
+        content.append("-- Table `").append(tableName).append('`');
+        if (Objects.nonNull(tableSize)) {
+            content.append(": ~").append(tableSize.rows).append(" rows, data ")
+                    .append(formatBytes(tableSize.dataLength)).append(", index ")
+                    .append(formatBytes(tableSize.indexLength));
+        }
+        content.append('\n');
+        for (String reason : reasons) {
+            content.append("-- ").append(reason).append('\n');
+        }
+        content.append("-- Estimated cost: ").append(estimateCost(tableSize, algorithm))
+                .append('\n');
+        content.append(sql);
+        if (!sql.endsWith("\n")) {
+            content.append('\n');
+        }
+        content.append('\n');
+        entries++;
+    }
+
+    boolean isEmpty() {
+        return entries == 0;
+    }
+
+    int size() {
+        return entries;
+    }
+
+    /**
+     * 覆盖写入计划文件，没有推迟的变更时删除已有的计划文件
+     *
+     * @param file
+     * @throws IOException
+     */
+    void write(Path file) throws IOException {
+        if (isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tempFile, "-- Elias deferred migration plan, generated at "
+                    + OffsetDateTime.now() + "\n\n" + content, StandardCharsets.UTF_8);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static String estimateCost(TableSize tableSize, AlterAlgorithm algorithm) {
+        if (algorithm == AlterAlgorithm.INSTANT) {
+            return "metadata only (ALGORITHM=INSTANT)";
+        }
+        String rebuild = Objects.isNull(tableSize) ? "rebuilds the table"
+                : "rewrites up to " + formatBytes(tableSize.dataLength + tableSize.indexLength)
+                        + " (~" + tableSize.rows + " rows)";
+        if (algorithm == AlterAlgorithm.COPY) {
+            return rebuild + ", writes blocked for the duration (ALGORITHM=COPY)";
+        }
+        if (algorithm == AlterAlgorithm.INPLACE) {
+            return rebuild + ", concurrent DML allowed (ALGORITHM=INPLACE)";
+        }
+        return rebuild + ", algorithm chosen by the server";
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String[] units = {"KiB", "MiB", "GiB", "TiB"};
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
+
+    /**
+     * INFORMATION_SCHEMA.TABLES 中记录的表大小，InnoDB 的 TABLE_ROWS 是估算值
+     */
+    static class TableSize {
+
+        private final long rows;
+        private final long dataLength;
+        private final long indexLength;
+
+        TableSize(long rows, long dataLength, long indexLength) {
+            this.rows = rows;
+            this.dataLength = dataLength;
+            this.indexLength = indexLength;
+        }
+
+        long getRows() {
+            return rows;
+        }
+
+        long getTotalLength() {
+            return dataLength + indexLength;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 一次 schema 检查期间读取元数据使用的数据库连接
+ * <p>
+ * 连接在第一次需要时才从数据源中借出，同时借出的连接不超过 maxConnections 个，已经借出的连接在整个检查期间复用，
+ * 每个连接上按 SQL 缓存 PreparedStatement。所有连接和语句在 {@link #close()} 时释放，
+ * 检查在连接池仍在预热时开始也不会占满连接池
+ */
+public class MetadataSession implements AutoCloseable {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final int maxConnections;
+    // 以下字段都由 this 保护
+    private final Deque<Lease> idle = new ArrayDeque<>();
+    private final List<Lease> leases = new ArrayList<>();
+    // 已经占用名额、正在从数据源借出的连接数
+    private int borrowing = 0;
+    private boolean closed = false;
+
+    /**
+     * @param jdbcTemplate
+     * @param maxConnections 同时借出的最大连接数
+     */
+    public MetadataSession(JdbcTemplate jdbcTemplate, int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Max connections must be positive: " + maxConnections);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = Objects.requireNonNull(jdbcTemplate.getDataSource());
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * 执行查询并逐行处理结果，相同的 SQL 在同一个连接上只 prepare 一次
+     *
+     * @param sql
+     * @param args
+     * @param handler
+     */
+    public void query(String sql, List<?> args, RowCallbackHandler handler) {
+        Lease lease = acquire();
+        try {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.clearParameters();
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.processRow(rs);
+                }
+            }
+        } catch (SQLException e) {
+            throw translate(sql, e);
+        } finally {
+            giveBack(lease);
+        }
+    }
+
+    private Lease acquire() {
+        synchronized (this) {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("Metadata session already closed");
+                }
+                Lease lease = idle.poll();
+                if (Objects.nonNull(lease)) {
+                    return lease;
+                }
+                if (leases.size() + borrowing < maxConnections) {
+                    // 其他线程都在使用已借出的连接，并且还没有达到上限，先占用名额再借出新的连接
+                    borrowing++;
+                    break;
+                }
+                try {
+                    // 等待其他线程归还连接或是会话关闭
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Schema validation interrupted", e);
+                }
+            }
+        }
+        // 连接池预热时借出连接可能很慢，不持有锁，其他线程仍然可以归还和复用已借出的连接
+        Lease lease;
+        try {
+            lease = new Lease(DataSourceUtils.getConnection(dataSource));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                borrowing--;
+                notify();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            borrowing--;
+            if (!closed) {
+                leases.add(lease);
+                return lease;
+            }
+        }
+        // 借出连接期间会话已经关闭
+        lease.release();
+        throw new IllegalStateException("Metadata session already closed");
+    }
+
+    private synchronized void giveBack(Lease lease) {
+        if (closed) {
+            // 会话已经关闭，查询结束后立即释放连接
+            leases.remove(lease);
+            lease.release();
+            return;
+        }
+        idle.add(lease);
+        notify();
+    }
+
+    private DataAccessException translate(String sql, SQLException e) {
+        DataAccessException translated = jdbcTemplate.getExceptionTranslator()
+                .translate("Fetching schema metadata", sql, e);
+        return Objects.nonNull(translated) ? translated
+                : new UncategorizedSQLException("Fetching schema metadata", sql, e);
+    }
+
+    /**
+     * 关闭所有缓存的语句并归还连接，可以重复调用
+     * <p>
+     * 正在执行查询的连接在查询结束后归还，等待连接的调用和之后的调用都会抛出 {@link IllegalStateException}
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Lease lease : idle) {
+            leases.remove(lease);
+            lease.release();
+        }
+        idle.clear();
+        notifyAll();
+    }
+
+    private final class Lease {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private Lease(Connection connection) {
+            this.connection = connection;
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (Objects.isNull(ps)) {
+                ps = connection.prepareStatement(sql);
+                ps.setFetchSize(FETCH_SIZE);
+                statements.put(sql, ps);
+            }
+            return ps;
+        }
+
+        private void release() {
+            for (PreparedStatement ps : statements.values()) {
+                try {
+                    ps.close();
+                } catch (SQLException ignored) {
+                    // 连接归还时驱动会关闭剩余的语句
+                }
+            }
+            statements.clear();
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.generator.MySQL57Generator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 将可空列改为非空之前，按主键分批将已有的 NULL 回填为默认值
+ * <p>
+ * 每批是一条单独提交的 UPDATE，行锁只在这一批内持有，不会在整张表上长时间加锁。
+ * 表没有单列主键时改为 {@code UPDATE ... LIMIT} 逐批回填
+ */
+public class NullBackfiller {
+
+    private static final Logger logger = LoggerFactory.getLogger(NullBackfiller.class);
+    private static final String FETCH_PRIMARY_KEY_SQL = "select COLUMN_NAME from INFORMATION_SCHEMA.KEY_COLUMN_USAGE where TABLE_SCHEMA = ? and TABLE_NAME = ? and CONSTRAINT_NAME = 'PRIMARY' order by ORDINAL_POSITION";
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String schema;
+    private int batchSize = 1000;
+
+    public NullBackfiller(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = jdbcTemplate.execute((ConnectionCallback<String>) Connection::getCatalog);
+    }
+
+    /**
+     * 每批回填扫描的主键范围大小，默认为 1000
+     *
+     * @param batchSize
+     * @return
+     */
+    public NullBackfiller setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 回填一列中的 NULL
+     *
+     * @param tableName
+     * @param columnName
+     * @param defaultValue 以字符串传递，由 MySQL 转换为列的类型。与生成的 DDL 一致，先经过
+     *                     {@link MySQL57Generator#escape(String)} 转义
+     * @return 回填的行数
+     */
+    public long backfill(String tableName, String columnName, String defaultValue) {
+        String value = MySQL57Generator.escape(defaultValue);
+        String table = quote(tableName);
+        String column = quote(columnName);
+        List<String> primaryKey = jdbcTemplate.queryForList(FETCH_PRIMARY_KEY_SQL, String.class,
+                schema, tableName);
+        Instant startedAt = Instant.now();
+        Instant lastProgress = startedAt;
+        long updated = 0;
+        if (primaryKey.size() != 1) {
+            logger.warn("Table `{}` has no single-column primary key, backfilling `{}` with update ... limit.",
+                    tableName, columnName);
+            String sql = "update " + table + " set " + column + " = ? where " + column
+                    + " is null limit ?";
+            int affected;
+            do {
+                affected = jdbcTemplate.update(sql, value, batchSize);
+                updated += affected;
+                lastProgress = logProgress(tableName, columnName, updated, null, lastProgress);
+            } while (affected > 0);
+        } else {
+            String pk = quote(primaryKey.get(0));
+            String firstBoundSql = "select max(" + pk + ") from (select " + pk + " from " + table
+                    + " order by " + pk + " limit ?) chunk";
+            String nextBoundSql = "select max(" + pk + ") from (select " + pk + " from " + table
+                    + " where " + pk + " > ? order by " + pk + " limit ?) chunk";
+            String firstUpdateSql = "update " + table + " set " + column + " = ? where " + pk
+                    + " <= ? and " + column + " is null";
+            String nextUpdateSql = "update " + table + " set " + column + " = ? where " + pk
+                    + " > ? and " + pk + " <= ? and " + column + " is null";
+            Object lowerBound = null;
+            while (true) {
+                Object upperBound = Objects.isNull(lowerBound)
+                        ? jdbcTemplate.queryForObject(firstBoundSql, Object.class, batchSize)
+                        : jdbcTemplate.queryForObject(nextBoundSql, Object.class, lowerBound,
+                                batchSize);
+                if (Objects.isNull(upperBound)) {
+                    break;
+                }
+                updated += Objects.isNull(lowerBound)
+                        ? jdbcTemplate.update(firstUpdateSql, value, upperBound)
+                        : jdbcTemplate.update(nextUpdateSql, value, lowerBound, upperBound);
+                lowerBound = upperBound;
+                lastProgress = logProgress(tableName, columnName, updated, upperBound,
+                        lastProgress);
+            }
+        }
+        logger.warn("Backfilled {} NULL value(s) of `{}`.`{}` in {} ms.", updated, tableName,
+                columnName, Duration.between(startedAt, Instant.now()).toMillis());
+        return updated;
+    }
+
+    private static Instant logProgress(String tableName, String columnName, long updated,
+                                       Object position, Instant lastProgress) {
+        Instant now = Instant.now();
+        if (Duration.between(lastProgress, now).compareTo(PROGRESS_INTERVAL) < 0) {
+            return lastProgress;
+        }
+        if (Objects.isNull(position)) {
+            logger.info("Backfilling `{}`.`{}`: {} row(s) updated so far.", tableName, columnName,
+                    updated);
+        } else {
+            logger.info("Backfilling `{}`.`{}`: {} row(s) updated so far, primary key reached {}.",
+                    tableName, columnName, updated, position);
+        }
+        return now;
+    }
+
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -0,0 +1,162 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.cache.ClassFingerprint;
+import cc.ddrpa.dorian.elias.core.cache.TableSpecCache;
+import cc.ddrpa.dorian.elias.core.cache.TableSpecCodec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 在 Spring Boot DevTools 重启之间保留上一次的 TableSpec 和检查结果
+ * <p>
+ * DevTools 只用新的 RestartClassLoader 重新加载项目自身的类，Elias 所在的 jar 由不会被丢弃的 base classloader 加载，
+ * 因此这里的静态状态可以跨越重启。状态中只保存类名、字节码指纹和编码后的 TableSpec，不持有 Class 对象，不会阻止旧的
+ * RestartClassLoader 被回收。
+ * <p>
+ * 字节码没有变化的实体类直接复用上一次的 TableSpec；TableSpec 没有变化且上一次检查通过的表不再检查。
+ * 注意这里不会查询数据库，其他人在两次重启之间对共享数据库所做的修改要到下一次完整启动时才会被发现
+ */
+public final class RestartStateHolder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestartStateHolder.class);
+    private static final String RESTARTER_CLASS = "org.springframework.boot.devtools.restart.Restarter";
+    private static final RestartStateHolder INSTANCE = new RestartStateHolder();
+
+    // Map<ClassName, SpecEntry>
+    private final Map<String, SpecEntry> specs = new ConcurrentHashMap<>();
+    // Map<TableName, SpecFingerprint>，上一次检查通过的表
+    private final Map<String, String> passedTables = new ConcurrentHashMap<>();
+    private byte[] rulesSignature = null;
+
+    private RestartStateHolder() {
+    }
+
+    public static RestartStateHolder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 类路径上是否存在 Spring Boot DevTools
+     *
+     * @return
+     */
+    public static boolean isDevToolsPresent() {
+        return ClassUtils.isPresent(RESTARTER_CLASS, RestartStateHolder.class.getClassLoader());
+    }
+
+    /**
+     * 获取实体类的 TableSpec，只为字节码有变化的类重新构建
+     *
+     * @param classes
+     * @param maker   为缺失的类构建 TableSpec，结果顺序需要与输入一致
+     * @return 按输入顺序排列的 TableSpec，每次调用都会返回新的对象
+     */
+    public synchronized List<TableSpec> getOrMake(Collection<Class<?>> classes,
+                                                  Function<Collection<Class<?>>, List<TableSpec>> maker) {
+        byte[] currentRulesSignature = TableSpecCache.rulesSignature();
+        if (!Arrays.equals(rulesSignature, currentRulesSignature)) {
+            // 类型推断或命名规则变化了，上一次的结果全部作废
+            specs.clear();
+            passedTables.clear();
+            rulesSignature = currentRulesSignature;
+        }
+        List<Class<?>> classList = new ArrayList<>(classes);
+        TableSpec[] result = new TableSpec[classList.size()];
+        byte[][] fingerprints = new byte[classList.size()][];
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < classList.size(); i++) {
+            Class<?> clazz = classList.get(i);
+            fingerprints[i] = ClassFingerprint.of(clazz).orElse(null);
+            SpecEntry entry = specs.get(clazz.getName());
+            if (Objects.nonNull(fingerprints[i]) && Objects.nonNull(entry)
+                    && Arrays.equals(entry.fingerprint, fingerprints[i])) {
+                result[i] = TableSpecCodec.decode(ByteBuffer.wrap(entry.payload));
+            } else {
+                missIndexes.add(i);
+            }
+        }
+        if (!missIndexes.isEmpty()) {
+            List<TableSpec> made = maker.apply(missIndexes.stream().map(classList::get).toList());
+            for (int i = 0; i < missIndexes.size(); i++) {
+                int index = missIndexes.get(i);
+                result[index] = made.get(i);
+                if (Objects.nonNull(fingerprints[index])) {
+                    specs.put(classList.get(index).getName(),
+                            new SpecEntry(fingerprints[index], TableSpecCodec.encode(made.get(i))));
+                } else {
+                    specs.remove(classList.get(index).getName());
+                }
+            }
+        }
+        // 清理已经删除或不再被扫描到的实体类
+        Set<String> classNames = new HashSet<>();
+        classList.forEach(clazz -> classNames.add(clazz.getName()));
+        specs.keySet().retainAll(classNames);
+        logger.info("{} of {} entity classes changed since last restart.", missIndexes.size(),
+                classList.size());
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 表定义没有变化，并且上一次检查通过
+     *
+     * @param tableSpec
+     * @return
+     */
+    public boolean hasPassed(TableSpec tableSpec) {
+        return Objects.equals(passedTables.get(tableSpec.getName()),
+                SchemaFingerprintStore.specFingerprint(tableSpec));
+    }
+
+    /**
+     * 记录一张表的检查结果
+     *
+     * @param tableSpec
+     * @param passed    是否检查通过，存在差异（包括已经自动修复）时为 false
+     */
+    public void record(TableSpec tableSpec, boolean passed) {
+        if (passed) {
+            passedTables.put(tableSpec.getName(), SchemaFingerprintStore.specFingerprint(tableSpec));
+        } else {
+            passedTables.remove(tableSpec.getName());
+        }
+    }
+
+    /**
+     * 应用上下文关闭时调用，清除通过 {@link SpecMaker#registerFactory} 注册的自定义 SpecBuilderFactory
+     * <p>
+     * DevTools 重启后应用代码会再次注册，不清除会重复注册，并且继续持有旧 RestartClassLoader 中的类
+     */
+    public void beforeRestart() {
+        SpecMaker.clearFactories();
+    }
+
+    /**
+     * 清空保存的状态，下一次检查将完整执行
+     */
+    public synchronized void clear() {
+        specs.clear();
+        passedTables.clear();
+        rulesSignature = null;
+    }
+
+    private static final class SpecEntry {
+
+        private final byte[] fingerprint;
+        // TableSpecCodec 编码，取出时解码为新的对象，调用方修改 TableSpec 不会影响保存的状态
+        private final byte[] payload;
+
+        private SpecEntry(byte[] fingerprint, byte[] payload) {
+            this.fingerprint = fingerprint;
+            this.payload = payload;
+        }
+    }
+}
@@ -3,35 +3,123 @@ package cc.ddrpa.dorian.elias.spring;
 import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
 import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpecBuilder;
 import cc.ddrpa.dorian.elias.core.spec.ColumnSpec;
+import cc.ddrpa.dorian.elias.core.spec.TableAlterSpec;
 import cc.ddrpa.dorian.elias.core.spec.TableSpec;
 import cc.ddrpa.dorian.elias.core.validation.ColumnProperties;
 import cc.ddrpa.dorian.elias.core.validation.mismatch.ISpecMismatch;
 import cc.ddrpa.dorian.elias.core.validation.mismatch.impl.ColumnNotExistMismatch;
 import cc.ddrpa.dorian.elias.core.validation.mismatch.impl.ColumnSpecMismatch;
 import cc.ddrpa.dorian.elias.core.validation.mismatch.impl.TableNotExistMismatch;
+import cc.ddrpa.dorian.elias.generator.AlterAlgorithm;
 import cc.ddrpa.dorian.elias.generator.MySQL57Generator;
 import cc.ddrpa.dorian.elias.generator.SQLGenerator;
+import cc.ddrpa.dorian.elias.generator.ServerVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SchemaChecker {
 
-    private static final String FETCH_METADATA_SQL = "select COLUMN_NAME, COLUMN_DEFAULT, IS_NULLABLE, DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, COLUMN_TYPE from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = ? and TABLE_NAME = ?";
+    private static final String FETCH_METADATA_SQL = "select TABLE_NAME, COLUMN_NAME, COLUMN_DEFAULT, IS_NULLABLE, DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, CHARACTER_OCTET_LENGTH, COLUMN_TYPE from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = ? and TABLE_NAME in (%s)";
+    private static final String FETCH_TABLE_SIZE_SQL = "select TABLE_NAME, TABLE_ROWS, DATA_LENGTH, INDEX_LENGTH from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = ? and TABLE_NAME in (%s)";
+    // 单条查询中 IN 列表的最大长度，避免超出 max_allowed_packet 或是让优化器放弃索引
+    private static final int TABLE_NAME_CHUNK_SIZE = 500;
+    private static final String COPY_ALGORITHM_WARNING = "* This change requires ALGORITHM=COPY, which rebuilds the table and blocks writes until it completes.";
     private static final Logger logger = LoggerFactory.getLogger(SchemaChecker.class);
     private final JdbcTemplate jdbcTemplate;
     private final String schema;
+    private final ServerVersion serverVersion;
+    // 服务端比较表名时是否区分大小写，由 lower_case_table_names 决定
+    private final boolean ignoreTableNameCase;
     private final List<TableSpec> tableSpecList = new ArrayList<>();
     private boolean autoFix = false;
+    private int parallelism = 1;
+    private boolean skipUnchanged = false;
+    private RestartStateHolder restartState = null;
+    private boolean onlineDDL = true;
+    private long autoFixMaxRows = Long.MAX_VALUE;
+    private long autoFixMaxBytes = Long.MAX_VALUE;
+    private long shadowMaxRows = Long.MAX_VALUE;
+    private long shadowMaxBytes = Long.MAX_VALUE;
+    private Path deferredPlanFile = null;
+    private ShadowTableMigrator shadowTableMigrator = null;
+    private NullBackfiller nullBackfiller = null;
 
     public SchemaChecker(JdbcTemplate jdbcTemplate) throws SQLException {
         this.jdbcTemplate = jdbcTemplate;
-        this.schema = jdbcTemplate.getDataSource().getConnection().getCatalog();
+        // 通过 JdbcTemplate 获取连接，读取完成后立即归还
+        String[] connectionInfo = jdbcTemplate.execute(
+                (ConnectionCallback<String[]>) connection -> new String[]{connection.getCatalog(),
+                        connection.getMetaData().getDatabaseProductName(),
+                        connection.getMetaData().getDatabaseProductVersion()});
+        this.schema = connectionInfo[0];
+        this.serverVersion = parseServerVersion(connectionInfo[1], connectionInfo[2]);
+        this.ignoreTableNameCase = ignoreTableNameCase(Objects.isNull(serverVersion) ? null
+                : readLowerCaseTableNames(jdbcTemplate));
+    }
+
+    private static Integer readLowerCaseTableNames(JdbcTemplate jdbcTemplate) {
+        try {
+            return jdbcTemplate.queryForObject("select @@lower_case_table_names", Integer.class);
+        } catch (DataAccessException e) {
+            logger.warn("Unable to read lower_case_table_names, table names are compared case-insensitively.");
+            return null;
+        }
+    }
+
+    /**
+     * lower_case_table_names 为 0 时服务端区分表名的大小写，为 1 或 2 时不区分。
+     * 无法得知时（例如 H2）不区分大小写
+     *
+     * @param lowerCaseTableNames
+     * @return
+     */
+    static boolean ignoreTableNameCase(Integer lowerCaseTableNames) {
+        return Objects.isNull(lowerCaseTableNames) || lowerCaseTableNames != 0;
+    }
+
+    /**
+     * 以表名为键的 Map，按服务端比较表名的方式查找
+     */
+    private <V> Map<String, V> newTableNameMap() {
+        return ignoreTableNameCase ? new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER)
+                : new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * 只有 MySQL 和 MariaDB 支持 ALGORITHM 和 LOCK 子句，其他数据库（例如 H2）返回 null，不声明 Online DDL 算法
+     *
+     * @param productName
+     * @param version
+     * @return
+     */
+    static ServerVersion parseServerVersion(String productName, String version) {
+        String product = String.valueOf(productName).toLowerCase(Locale.ROOT);
+        if (!product.contains("mysql") && !product.contains("mariadb")) {
+            logger.info("Database {} is not MySQL or MariaDB, online DDL clauses disabled.",
+                    productName);
+            return null;
+        }
+        try {
+            return ServerVersion.parse(version);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to parse server version {}, online DDL clauses disabled.", version);
+            return null;
+        }
     }
 
     public SchemaChecker setAutoFix(boolean autoFix) {
@@ -44,81 +132,563 @@ public class SchemaChecker {
         return this;
     }
 
+    /**
+     * 并发检查的最大并行度，默认为 1，即逐张表顺序检查
+     * <p>
+     * 实际并行度不会超过数据源连接池的最大连接数。运行在 Java 21 及以上版本时使用虚拟线程，否则使用固定大小的线程池
+     *
+     * @param parallelism
+     * @return
+     */
+    public SchemaChecker setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 跳过上一次检查通过后两侧都没有变化的表，见 {@link SchemaFingerprintStore}
+     * <p>
+     * 只有开启自动修复时才会创建指纹表，否则只在指纹表已经存在时读取和保存指纹
+     *
+     * @param skipUnchanged
+     * @return
+     */
+    public SchemaChecker setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+        return this;
+    }
+
+    /**
+     * 跳过上一次 DevTools 重启前检查通过且定义没有变化的表，并记录本次的检查结果，见 {@link RestartStateHolder}
+     *
+     * @param restartState 为 null 时不使用
+     * @return
+     */
+    public SchemaChecker setRestartState(RestartStateHolder restartState) {
+        this.restartState = restartState;
+        return this;
+    }
+
+    /**
+     * 根据服务端版本为 ALTER TABLE 语句声明 ALGORITHM 和 LOCK 子句，默认开启，见 {@link AlterAlgorithm}
+     * <p>
+     * 需要复制整张表的变更不会被自动修复
+     *
+     * @param onlineDDL
+     * @return
+     */
+    public SchemaChecker setOnlineDDL(boolean onlineDDL) {
+        this.onlineDDL = onlineDDL;
+        return this;
+    }
+
+    /**
+     * 自动修复的表大小上限，超过任一上限的表上需要重建的变更不会在启动时执行，而是写入迁移计划
+     * <p>
+     * 行数取自 INFORMATION_SCHEMA.TABLES 的 TABLE_ROWS，大小为 DATA_LENGTH 与 INDEX_LENGTH 之和。
+     * 服务端支持 INSTANT 添加列时，只添加普通列的变更只修改元数据，不受限制
+     *
+     * @param maxRows  小于等于 0 时不限制
+     * @param maxBytes 小于等于 0 时不限制
+     * @return
+     */
+    public SchemaChecker setAutoFixLimits(long maxRows, long maxBytes) {
+        this.autoFixMaxRows = maxRows > 0 ? maxRows : Long.MAX_VALUE;
+        this.autoFixMaxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        return this;
+    }
+
+    /**
+     * 没有自动执行的变更写入的迁移计划文件，见 {@link DeferredMigrationPlan}
+     *
+     * @param deferredPlanFile 为 null 时只输出日志
+     * @return
+     */
+    public SchemaChecker setDeferredPlanFile(Path deferredPlanFile) {
+        this.deferredPlanFile = deferredPlanFile;
+        return this;
+    }
+
+    /**
+     * 自动修复时，只因需要 ALGORITHM=COPY 而不能直接执行的列修改通过影子表在线执行，见 {@link ShadowTableMigrator}
+     * <p>
+     * 影子表迁移不阻塞写入，不受自动修复的表大小上限限制，而是使用 {@link #setShadowTableLimits(long, long)}
+     *
+     * @param shadowTableMigrator 为 null 时不使用
+     * @return
+     */
+    public SchemaChecker setShadowTableMigrator(ShadowTableMigrator shadowTableMigrator) {
+        this.shadowTableMigrator = shadowTableMigrator;
+        return this;
+    }
+
+    /**
+     * 影子表迁移的表大小上限，超过任一上限的表写入迁移计划
+     * <p>
+     * 复制数据期间原表仍然可以读写，但复制的耗时与表的大小成正比，并且在检查所在的线程中同步执行，
+     * 同步检查时会相应地推迟启动
+     *
+     * @param maxRows  小于等于 0 时不限制
+     * @param maxBytes 小于等于 0 时不限制
+     * @return
+     */
+    public SchemaChecker setShadowTableLimits(long maxRows, long maxBytes) {
+        this.shadowMaxRows = maxRows > 0 ? maxRows : Long.MAX_VALUE;
+        this.shadowMaxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        return this;
+    }
+
+    /**
+     * 自动修复时，将可空列改为非空之前先用 {@link cc.ddrpa.dorian.elias.core.annotation.DefaultValue} 回填已有的 NULL，见 {@link NullBackfiller}
+     *
+     * @param nullBackfiller 为 null 时不回填，存在 NULL 时修改会失败
+     * @return
+     */
+    public SchemaChecker setNullBackfiller(NullBackfiller nullBackfiller) {
+        this.nullBackfiller = nullBackfiller;
+        return this;
+    }
+
     public boolean check() throws IOException {
-        SQLGenerator generator = new MySQL57Generator().setDropIfExists(false);
+        ServerVersion onlineDDLVersion = onlineDDL ? serverVersion : null;
+        SQLGenerator generator = new MySQL57Generator().setDropIfExists(false)
+                .setServerVersion(onlineDDLVersion);
+        SchemaFingerprintStore fingerprintStore = skipUnchanged
+                ? new SchemaFingerprintStore(jdbcTemplate, schema).setCreateTable(autoFix)
+                .setIgnoreTableNameCase(ignoreTableNameCase)
+                : null;
+        // 表名取自 INFORMATION_SCHEMA，大小写可能与实体类中声明的不同（例如 lower_case_table_names=1），
+        // 只有服务端不区分表名大小写时才按不区分大小写的方式查找
+        Map<String, SchemaFingerprintStore.Fingerprint> liveFingerprints = newTableNameMap();
+        Map<String, Map<String, ColumnProperties>> metadata = newTableNameMap();
+        List<TableSpec> candidates = tableSpecList;
+        if (Objects.nonNull(restartState)) {
+            candidates = tableSpecList.stream()
+                    .filter(tableSpec -> !restartState.hasPassed(tableSpec))
+                    .toList();
+            logger.info("{} of {} tables passed before restart and unchanged, skipped.",
+                    tableSpecList.size() - candidates.size(), tableSpecList.size());
+        }
+        List<TableSpec> specsToCheck = candidates;
+        List<List<Finding>> results;
+        Map<String, DeferredMigrationPlan.TableSize> tableSizes = newTableNameMap();
+        int effectiveParallelism = effectiveParallelism();
+        // 获取元数据、比对列定义、生成 SQL 这些步骤在不同的表之间互不依赖，可以并发执行
+        // 输出日志和自动修复仍然按照表的顺序串行进行，保证日志和执行顺序稳定
+        ExecutorService executor = effectiveParallelism > 1 ? newExecutor(effectiveParallelism)
+                : null;
+        // 读取元数据期间同时占用的连接数不超过并行度
+        MetadataSession session = new MetadataSession(jdbcTemplate, effectiveParallelism);
+        try {
+            Semaphore permits = new Semaphore(effectiveParallelism);
+            if (Objects.nonNull(fingerprintStore)) {
+                Map<String, SchemaFingerprintStore.Fingerprint> stored = fingerprintStore.load();
+                runAll(executor, permits, chunkTableNames(candidates), chunk -> {
+                    fingerprintStore.fetchLive(session, chunk, liveFingerprints);
+                    return chunk;
+                });
+                specsToCheck = new ArrayList<>(candidates.size());
+                for (TableSpec tableSpec : candidates) {
+                    SchemaFingerprintStore.Fingerprint live = liveFingerprints.get(
+                            tableSpec.getName());
+                    if (Objects.nonNull(live)) {
+                        live = live.withSpecFingerprint(
+                                SchemaFingerprintStore.specFingerprint(tableSpec));
+                        liveFingerprints.put(tableSpec.getName(), live);
+                        SchemaFingerprintStore.Fingerprint last = stored.get(tableSpec.getName());
+                        if (Objects.nonNull(last) && last.matches(live)) {
+                            if (Objects.nonNull(restartState)) {
+                                restartState.record(tableSpec, true);
+                            }
+                            continue;
+                        }
+                    }
+                    specsToCheck.add(tableSpec);
+                }
+                logger.info("{} of {} tables unchanged since last check, skipped.",
+                        candidates.size() - specsToCheck.size(), candidates.size());
+            }
+            runAll(executor, permits, chunkTableNames(specsToCheck), chunk -> {
+                fetchMetadata(session, chunk, metadata);
+                return chunk;
+            });
+            results = runAll(executor, permits, specsToCheck,
+                    tableSpec -> inspect(tableSpec, metadata.get(tableSpec.getName()),
+                            generator, onlineDDLVersion));
+            if (autoFix || Objects.nonNull(deferredPlanFile)) {
+                // 执行或推迟变更之前，获取需要修改的表的大小
+                List<String> alteredTables = results.stream()
+                        .flatMap(List::stream)
+                        .filter(finding -> finding.kind == Finding.Kind.ALTER_TABLE)
+                        .map(finding -> finding.tableName)
+                        .distinct()
+                        .toList();
+                runAll(executor, permits, chunk(alteredTables), chunk -> {
+                    fetchTableSizes(session, chunk, tableSizes);
+                    return chunk;
+                });
+            }
+        } finally {
+            if (Objects.nonNull(executor)) {
+                executor.shutdownNow();
+            }
+            // 自动修复和保存指纹使用 JdbcTemplate，在此之前归还元数据连接
+            session.close();
+        }
         boolean somethingBadHappened = false;
-        for (TableSpec tableSpec : tableSpecList) {
-            List<ISpecMismatch> mismatches = tableCheck(tableSpec);
-            if (mismatches.isEmpty()) {
-                continue;
+        DeferredMigrationPlan plan = new DeferredMigrationPlan();
+        Map<String, SchemaFingerprintStore.Fingerprint> passed = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            List<Finding> findings = results.get(i);
+            if (Objects.nonNull(restartState)) {
+                restartState.record(specsToCheck.get(i), findings.isEmpty());
             }
-            somethingBadHappened = true;
-            if (mismatches.get(0) instanceof TableNotExistMismatch mismatch) {
-                // 表不存在，创建表
-                String createTableSql = generator.createTable(mismatch.getExpectedTableSpec());
-                errorAndRecommend(mismatch.errorMessage(), createTableSql);
-                if (autoFix) {
-                    autoFixCreateTable(mismatch.getExpectedTableSpec().getName(), createTableSql);
+            if (findings.isEmpty()) {
+                String tableName = specsToCheck.get(i).getName();
+                if (liveFingerprints.containsKey(tableName)) {
+                    passed.put(tableName, liveFingerprints.get(tableName));
                 }
-                // 因为表不存在，显然就不会有什么列定义不匹配的问题了，跳过后续处理
                 continue;
             }
-            for (ISpecMismatch mismatch : mismatches) {
-                if (mismatch instanceof ColumnNotExistMismatch columnNotExistMismatch) {
-                    // 缺列，创建列
-                    String addColumnSql = generator.addColumn(
-                            columnNotExistMismatch.getTableName(),
-                            columnNotExistMismatch.getColumnSpec());
-                    errorAndRecommend(mismatch.errorMessage(), addColumnSql);
-                    if (autoFix) {
-                        autoFixAddColumn(
-                                columnNotExistMismatch.getTableName(),
-                                columnNotExistMismatch.getColumnSpec().getName(),
-                                addColumnSql);
-                    }
-                } else if (mismatch instanceof ColumnSpecMismatch columnSpecMismatch) {
-                    // 列的属性不匹配
-                    ColumnModifySpec columnModifySpecResult = ColumnModifySpecBuilder.build(
-                            columnSpecMismatch);
-                    String modifyColumnSql = generator.modifyColumn(
-                            columnSpecMismatch.getTableName(),
-                            columnSpecMismatch.getColumnName(),
+            somethingBadHappened = true;
+            for (Finding finding : findings) {
+                report(finding, tableSizes.get(finding.tableName), plan);
+            }
+        }
+        if (Objects.nonNull(deferredPlanFile)) {
+            plan.write(deferredPlanFile);
+            if (!plan.isEmpty()) {
+                logger.warn("{} deferred change(s) written to migration plan {}", plan.size(),
+                        deferredPlanFile);
+            }
+        }
+        if (Objects.nonNull(fingerprintStore)) {
+            // 只记录检查通过的表，存在差异（包括已经自动修复）的表在下次启动时仍需要完整检查
+            fingerprintStore.save(passed);
+        }
+        return somethingBadHappened;
+    }
+
+    private static List<List<String>> chunkTableNames(List<TableSpec> tableSpecs) {
+        return chunk(tableSpecs.stream()
+                .map(TableSpec::getName)
+                .distinct()
+                .toList());
+    }
+
+    private static List<List<String>> chunk(List<String> tableNames) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < tableNames.size(); from += TABLE_NAME_CHUNK_SIZE) {
+            chunks.add(tableNames.subList(from,
+                    Math.min(from + TABLE_NAME_CHUNK_SIZE, tableNames.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 检查一张表，返回发现的问题以及建议执行的 SQL，不会输出日志或修改数据库
+     *
+     * @param tableSpec
+     * @param sqlColumnMap
+     * @param generator
+     * @param onlineDDLVersion 不为 null 时，需要复制整张表的变更不会被自动修复
+     * @return
+     * @throws IOException
+     */
+    private List<Finding> inspect(TableSpec tableSpec, Map<String, ColumnProperties> sqlColumnMap,
+                                  SQLGenerator generator, ServerVersion onlineDDLVersion)
+            throws IOException {
+        List<ISpecMismatch> mismatches = tableCheck(tableSpec, sqlColumnMap);
+        if (mismatches.isEmpty()) {
+            return List.of();
+        }
+        if (mismatches.get(0) instanceof TableNotExistMismatch mismatch) {
+            // 表不存在，创建表
+            TableSpec expected = mismatch.getExpectedTableSpec();
+            // 因为表不存在，显然就不会有什么列定义不匹配的问题了，跳过后续处理
+            return List.of(new Finding(Finding.Kind.CREATE_TABLE, expected.getName(), 1, null,
+                    false, null, mismatch.errorMessage(), generator.createTable(expected),
+                    generator.createTableStatements(expected), List.of()));
+        }
+        // 同一张表的变更合并为一条 ALTER TABLE，表至多重建一次
+        // 存在风险的变更不能和可以自动修复的变更一起执行，单独合并为一条语句
+        String tableName = tableSpec.getName();
+        TableAlterSpec safeChanges = new TableAlterSpec(tableName);
+        TableAlterSpec riskyChanges = new TableAlterSpec(tableName);
+        List<String> safeMessages = new ArrayList<>();
+        List<String> riskyMessages = new ArrayList<>();
+        Set<String> warnings = new LinkedHashSet<>();
+        for (ISpecMismatch mismatch : mismatches) {
+            if (mismatch instanceof ColumnNotExistMismatch columnNotExistMismatch) {
+                // 缺列，创建列
+                ColumnSpec columnSpec = columnNotExistMismatch.getColumnSpec();
+                if (Objects.nonNull(onlineDDLVersion)
+                        && AlterAlgorithm.forAddColumn(onlineDDLVersion, columnSpec)
+                        == AlterAlgorithm.COPY) {
+                    riskyChanges.addColumn(columnSpec);
+                    riskyMessages.add(mismatch.errorMessage());
+                    warnings.add(COPY_ALGORITHM_WARNING);
+                } else {
+                    safeChanges.addColumn(columnSpec);
+                    safeMessages.add(mismatch.errorMessage());
+                }
+            } else if (mismatch instanceof ColumnSpecMismatch columnSpecMismatch) {
+                // 列的属性不匹配
+                ColumnModifySpec columnModifySpecResult = ColumnModifySpecBuilder.build(
+                        columnSpecMismatch);
+                // TODO is autofix enabled and autoFix is processable?
+                List<String> columnWarnings = new ArrayList<>();
+                if (!columnModifySpecResult.isAutoFixEnabled()) {
+                    columnWarnings.addAll(columnModifySpecResult.getWarnings());
+                }
+                if (Objects.nonNull(onlineDDLVersion)
+                        && AlterAlgorithm.forModifyColumn(onlineDDLVersion,
+                        columnModifySpecResult) == AlterAlgorithm.COPY) {
+                    columnWarnings.add(COPY_ALGORITHM_WARNING);
+                }
+                if (columnWarnings.isEmpty()) {
+                    safeChanges.modifyColumn(columnSpecMismatch.getColumnName(),
                             columnModifySpecResult);
-                    // TODO is autofix enabled and autoFix is processable?
-                    if (columnModifySpecResult.isAutoFixEnabled()) {
-                        errorAndRecommend(mismatch.errorMessage(), modifyColumnSql);
-                        if (autoFix) {
-                            autoFixModifyColumn(
-                                    columnSpecMismatch.getTableName(),
-                                    columnSpecMismatch.getColumnName(),
-                                    modifyColumnSql);
-                        }
-                    } else {
-                        logger.warn(
-                                "{}\nAuto-fix is not recommended due to:\n{}\nEnsure all values fit within the new constraints and try:\n{}",
-                                mismatch.errorMessage(),
-                                String.join("\n", columnModifySpecResult.getWarnings()),
-                                modifyColumnSql);
-                    }
+                    safeMessages.add(mismatch.errorMessage());
+                } else {
+                    riskyChanges.modifyColumn(columnSpecMismatch.getColumnName(),
+                            columnModifySpecResult);
+                    riskyMessages.add(mismatch.errorMessage());
+                    warnings.addAll(columnWarnings);
                 }
             }
         }
-        return somethingBadHappened;
+        List<Finding> findings = new ArrayList<>(2);
+        if (!safeChanges.isEmpty()) {
+            findings.add(new Finding(Finding.Kind.ALTER_TABLE, tableName, safeChanges.size(),
+                    algorithm(onlineDDLVersion, safeChanges),
+                    AlterAlgorithm.isInstantEligible(serverVersion, safeChanges), safeChanges,
+                    String.join("\n", safeMessages), generator.alterTable(safeChanges),
+                    generator.alterTableStatements(safeChanges), List.of()));
+        }
+        if (!riskyChanges.isEmpty()) {
+            findings.add(new Finding(Finding.Kind.ALTER_TABLE, tableName, riskyChanges.size(),
+                    algorithm(onlineDDLVersion, riskyChanges),
+                    AlterAlgorithm.isInstantEligible(serverVersion, riskyChanges), riskyChanges,
+                    String.join("\n", riskyMessages), generator.alterTable(riskyChanges),
+                    generator.alterTableStatements(riskyChanges), List.copyOf(warnings)));
+        }
+        return findings;
+    }
+
+    private static AlterAlgorithm algorithm(ServerVersion onlineDDLVersion,
+                                            TableAlterSpec tableAlterSpec) {
+        return Objects.isNull(onlineDDLVersion) ? null
+                : AlterAlgorithm.forAlterTable(onlineDDLVersion, tableAlterSpec);
+    }
+
+    private void report(Finding finding, DeferredMigrationPlan.TableSize tableSize,
+                        DeferredMigrationPlan plan) throws IOException {
+        if (autoFix && Objects.nonNull(shadowTableMigrator)
+                && Objects.nonNull(finding.tableAlterSpec)
+                && ShadowTableMigrator.supports(finding.tableAlterSpec)
+                && finding.warnings.equals(List.of(COPY_ALGORITHM_WARNING))) {
+            // 唯一的风险是重建期间阻塞写入，通过影子表在线执行
+            // 复制期间不阻塞写入，不适用自动修复的上限，只受影子表迁移自己的上限限制
+            if (deferIfTooLarge(finding, tableSize, plan, shadowMaxRows, shadowMaxBytes,
+                    "shadow migration")) {
+                return;
+            }
+            Optional<String> refusal = shadowTableMigrator.checkTable(finding.tableName);
+            if (refusal.isEmpty()) {
+                logger.warn("{}\nApplying auto-fix with shadow table migration instead of:\n{}",
+                        finding.errorMessage, finding.sql);
+                shadowTableMigrator.migrate(finding.tableAlterSpec);
+                return;
+            }
+            logger.warn("Shadow table migration of `{}` skipped:\n{}", finding.tableName,
+                    refusal.get());
+        }
+        if (!finding.warnings.isEmpty()) {
+            logger.warn(
+                    "{}\nAuto-fix is not recommended due to:\n{}\nEnsure all values fit within the new constraints and try:\n{}",
+                    finding.errorMessage,
+                    String.join("\n", finding.warnings),
+                    finding.sql);
+            plan.add(finding.tableName, tableSize, finding.algorithm, finding.warnings,
+                    finding.sql);
+            return;
+        }
+        errorAndRecommend(finding.errorMessage, finding.sql);
+        if (!autoFix) {
+            return;
+        }
+        if (!finding.instant && deferIfTooLarge(finding, tableSize, plan, autoFixMaxRows,
+                autoFixMaxBytes, "auto-fix")) {
+            return;
+        }
+        switch (finding.kind) {
+            case CREATE_TABLE -> autoFixCreateTable(finding.tableName, finding.statements);
+            case ALTER_TABLE -> autoFixAlterTable(finding.tableAlterSpec, finding.changes,
+                    finding.statements);
+        }
+    }
+
+    /**
+     * 表的大小超过上限时，将修改表的变更写入迁移计划
+     *
+     * @param finding
+     * @param tableSize  未知时为 null，不限制
+     * @param plan
+     * @param maxRows
+     * @param maxBytes
+     * @param limitName  写入日志和迁移计划的上限名称
+     * @return 变更是否被推迟
+     */
+    private boolean deferIfTooLarge(Finding finding, DeferredMigrationPlan.TableSize tableSize,
+                                    DeferredMigrationPlan plan, long maxRows, long maxBytes,
+                                    String limitName) {
+        if (finding.kind != Finding.Kind.ALTER_TABLE || Objects.isNull(tableSize)
+                || (tableSize.getRows() <= maxRows && tableSize.getTotalLength() <= maxBytes)) {
+            return false;
+        }
+        String reason = String.format(
+                "* Table exceeds the %s limit (~%d rows, %s), change deferred.", limitName,
+                tableSize.getRows(),
+                DeferredMigrationPlan.formatBytes(tableSize.getTotalLength()));
+        logger.warn("Skipping auto-fix for table `{}`: {}", finding.tableName, reason);
+        plan.add(finding.tableName, tableSize, finding.algorithm, List.of(reason), finding.sql);
+        return true;
+    }
+
+    /**
+     * 获取一批表的大小
+     *
+     * @param session
+     * @param tableNames 不超过 {@link #TABLE_NAME_CHUNK_SIZE} 个表名
+     * @param tableSizes Map&lt;TableName, TableSize&gt;
+     */
+    private void fetchTableSizes(MetadataSession session, List<String> tableNames,
+                                 Map<String, DeferredMigrationPlan.TableSize> tableSizes) {
+        String sql = String.format(FETCH_TABLE_SIZE_SQL,
+                String.join(", ", Collections.nCopies(tableNames.size(), "?")));
+        List<Object> args = new ArrayList<>(tableNames.size() + 1);
+        args.add(this.schema);
+        args.addAll(tableNames);
+        session.query(sql, args, rs -> tableSizes.put(rs.getString("TABLE_NAME"),
+                new DeferredMigrationPlan.TableSize(rs.getLong("TABLE_ROWS"),
+                        rs.getLong("DATA_LENGTH"), rs.getLong("INDEX_LENGTH"))));
     }
 
-    private List<ISpecMismatch> tableCheck(TableSpec tableSpec) {
-        // 对指定表，获取数据库中的元数据
-        List<Map<String, Object>> rawColumnDetails = jdbcTemplate.queryForList(FETCH_METADATA_SQL,
-                this.schema, tableSpec.getName());
-        if (rawColumnDetails.isEmpty()) {
+    /**
+     * 获取一批表的列元数据
+     *
+     * @param session
+     * @param tableNames 不超过 {@link #TABLE_NAME_CHUNK_SIZE} 个表名
+     * @param metadata   Map&lt;TableName, Map&lt;ColumnName, ColumnProperties&gt;&gt;，数据库中不存在的表不会出现在结果中
+     */
+    private void fetchMetadata(MetadataSession session, List<String> tableNames,
+                               Map<String, Map<String, ColumnProperties>> metadata) {
+        ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+        String sql = String.format(FETCH_METADATA_SQL,
+                String.join(", ", Collections.nCopies(tableNames.size(), "?")));
+        List<Object> args = new ArrayList<>(tableNames.size() + 1);
+        args.add(this.schema);
+        args.addAll(tableNames);
+        session.query(sql, args, rs -> {
+            ColumnProperties column = new ColumnProperties(rowMapper.mapRow(rs, 0));
+            metadata.computeIfAbsent(rs.getString("TABLE_NAME"), k -> new HashMap<>())
+                    .put(column.getName(), column);
+        });
+    }
+
+    /**
+     * 按输入顺序返回每个任务的结果，executor 为 null 时在当前线程中顺序执行
+     */
+    private <T, R> List<R> runAll(ExecutorService executor, Semaphore permits, List<T> inputs,
+                                  CheckTask<T, R> task) throws IOException {
+        List<R> results = new ArrayList<>(inputs.size());
+        if (Objects.isNull(executor)) {
+            for (T input : inputs) {
+                results.add(task.apply(input));
+            }
+            return results;
+        }
+        List<Future<R>> futures = new ArrayList<>(inputs.size());
+        for (T input : inputs) {
+            futures.add(executor.submit(() -> {
+                // 虚拟线程不受线程池大小的限制，通过信号量控制同时占用的数据库连接数
+                permits.acquire();
+                try {
+                    return task.apply(input);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Schema validation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    private int effectiveParallelism() {
+        if (parallelism <= 1) {
+            return 1;
+        }
+        int effective = Math.min(parallelism, Math.max(tableSpecList.size(), 1));
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        if (Objects.nonNull(dataSource)) {
+            BeanWrapper wrapper = new BeanWrapperImpl(dataSource);
+            // HikariCP、Tomcat JDBC Pool 和 DBCP2 的最大连接数属性
+            for (String property : List.of("maximumPoolSize", "maxActive", "maxTotal")) {
+                if (wrapper.isReadableProperty(property)
+                        && wrapper.getPropertyValue(property) instanceof Integer poolSize
+                        && poolSize > 0) {
+                    effective = Math.min(effective, poolSize);
+                    break;
+                }
+            }
+        }
+        return effective;
+    }
+
+    private static ExecutorService newExecutor(int parallelism) {
+        try {
+            // Java 21 及以上版本
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable,
+                        "elias-schema-check-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private List<ISpecMismatch> tableCheck(TableSpec tableSpec,
+                                           Map<String, ColumnProperties> sqlColumnMap) {
+        if (Objects.isNull(sqlColumnMap)) {
             // 数据库中不存在这个表
             return List.of(new TableNotExistMismatch(tableSpec));
         }
         List<ISpecMismatch> mismatches = new ArrayList<>();
-        // 将表转换为 Map<ColumnName, ColumnProperties>
-        Map<String, ColumnProperties> sqlColumnMap = rawColumnDetails.stream()
-                .map(ColumnProperties::new)
-                .collect(Collectors.toMap(ColumnProperties::getName, column -> column));
         // 遍历实体类的所有属性，检查类型等定义
         for (ColumnSpec columnSpec : tableSpec.getColumns()) {
             if (!sqlColumnMap.containsKey(columnSpec.getName())) {
@@ -141,23 +711,73 @@ public class SchemaChecker {
         logger.warn("{}\nRecommending fix with:\n{}", errorMessage, recommendation);
     }
 
-    private void autoFixCreateTable(String tableName, String sql) {
-        executeMultiSQL(sql);
+    private void autoFixCreateTable(String tableName, List<String> statements) {
+        statements.forEach(jdbcTemplate::execute);
         logger.warn("Applying auto-fix…… Table `{}` created.", tableName);
     }
 
-    private void autoFixAddColumn(String tableName, String columnName, String sql) {
-        executeMultiSQL(sql);
-        logger.warn("Applying auto-fix…… Column `{}` added in table `{}`.", tableName, columnName);
+    private void autoFixAlterTable(TableAlterSpec tableAlterSpec, int changes,
+                                   List<String> statements) {
+        if (Objects.nonNull(nullBackfiller)) {
+            for (Map.Entry<String, ColumnModifySpec> e : tableAlterSpec.getModifyColumns()
+                    .entrySet()) {
+                if (e.getValue().isNullBackfillable()) {
+                    nullBackfiller.backfill(tableAlterSpec.getTableName(), e.getKey(),
+                            e.getValue().getDefaultValue());
+                }
+            }
+        }
+        statements.forEach(jdbcTemplate::execute);
+        logger.warn("Applying auto-fix…… Table `{}` altered with {} change(s).",
+                tableAlterSpec.getTableName(), changes);
     }
 
-    private void autoFixModifyColumn(String tableName, String columnName, String sql) {
-        executeMultiSQL(sql);
-        logger.warn("Applying auto-fix…… Column `{}` modified in table `{}`.", tableName,
-                columnName);
+    @FunctionalInterface
+    private interface CheckTask<T, R> {
+
+        R apply(T input) throws IOException;
     }
 
-    private void executeMultiSQL(String sql) {
-        Arrays.stream(sql.split(";")).filter(s -> !s.isBlank()).forEach(jdbcTemplate::execute);
+    /**
+     * 检查发现的一个问题
+     */
+    private static class Finding {
+
+        private final Kind kind;
+        private final String tableName;
+        // 合并在一条语句中的变更数量
+        private final int changes;
+        // 未开启 Online DDL 或不是 ALTER TABLE 时为 null
+        private final AlterAlgorithm algorithm;
+        // 只修改元数据，不受自动修复的表大小上限限制，见 AlterAlgorithm#isInstantEligible
+        private final boolean instant;
+        // 不是 ALTER TABLE 时为 null
+        private final TableAlterSpec tableAlterSpec;
+        private final String errorMessage;
+        // 用于输出日志和写入迁移计划
+        private final String sql;
+        // 自动修复时逐条执行，不需要按分号拆分 sql
+        private final List<String> statements;
+        // 不为空时不会自动修复
+        private final List<String> warnings;
+
+        private Finding(Kind kind, String tableName, int changes, AlterAlgorithm algorithm,
+                        boolean instant, TableAlterSpec tableAlterSpec, String errorMessage,
+                        String sql, List<String> statements, List<String> warnings) {
+            this.kind = kind;
+            this.tableName = tableName;
+            this.changes = changes;
+            this.algorithm = algorithm;
+            this.instant = instant;
+            this.tableAlterSpec = tableAlterSpec;
+            this.errorMessage = errorMessage;
+            this.sql = sql;
+            this.statements = statements;
+            this.warnings = warnings;
+        }
+
+        private enum Kind {
+            CREATE_TABLE, ALTER_TABLE
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.core.cache.TableSpecCodec;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+/**
+ * 记录每张表上一次检查通过时的指纹，两侧都没有变化的表可以跳过检查
+ * <p>
+ * 指纹由两部分组成：实体类一侧为 TableSpec 的 SHA-256，数据库一侧为 INFORMATION_SCHEMA 中表的 CREATE_TIME
+ * 和所有列定义的 CRC32 之和。指纹保存在数据库的 {@value #TABLE_NAME} 表中。
+ * <p>
+ * 只有允许建表时才会在首次使用时创建该表，否则该表不存在时视为没有指纹，也不会保存本次的结果
+ */
+public class SchemaFingerprintStore {
+
+    public static final String TABLE_NAME = "elias_schema_fingerprint";
+    // 修改检查规则或指纹的计算方式时需要递增，使已经保存的指纹全部失效
+    private static final String FINGERPRINT_VERSION = "1";
+    private static final String CREATE_TABLE_SQL = """
+            create table if not exists `%s` (
+              `table_name` varchar(64) character set utf8mb4 collate utf8mb4_bin not null primary key,
+              `spec_fingerprint` char(64) not null,
+              `column_checksum` varchar(32) not null,
+              `create_time` varchar(32) null,
+              `checked_at` datetime not null
+            )""".formatted(TABLE_NAME);
+    private static final String TABLE_EXISTS_SQL = "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = ? and TABLE_NAME = ?";
+    private static final String LOAD_SQL = "select table_name, spec_fingerprint, column_checksum, create_time from `%s`"
+            .formatted(TABLE_NAME);
+    private static final String SAVE_SQL = "insert into `%s` (table_name, spec_fingerprint, column_checksum, create_time, checked_at) values (?, ?, ?, ?, now()) on duplicate key update spec_fingerprint = values(spec_fingerprint), column_checksum = values(column_checksum), create_time = values(create_time), checked_at = values(checked_at)"
+            .formatted(TABLE_NAME);
+    private static final String FETCH_CHECKSUM_SQL = "select c.TABLE_NAME, t.CREATE_TIME, count(*) as COLUMN_COUNT, sum(crc32(concat_ws('|', c.COLUMN_NAME, c.ORDINAL_POSITION, c.COLUMN_TYPE, c.IS_NULLABLE, ifnull(c.COLUMN_DEFAULT, '<null>')))) as COLUMN_CHECKSUM from INFORMATION_SCHEMA.COLUMNS c join INFORMATION_SCHEMA.TABLES t on t.TABLE_SCHEMA = c.TABLE_SCHEMA and t.TABLE_NAME = c.TABLE_NAME where c.TABLE_SCHEMA = ? and c.TABLE_NAME in (%s) group by c.TABLE_NAME, t.CREATE_TIME";
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaFingerprintStore.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final String schema;
+    private boolean createTable = false;
+    private boolean ignoreTableNameCase = true;
+    // 指纹表是否存在，首次使用时查询
+    private Boolean tableExists = null;
+
+    public SchemaFingerprintStore(JdbcTemplate jdbcTemplate, String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = schema;
+    }
+
+    /**
+     * 指纹表不存在时是否创建，默认为 false
+     *
+     * @param createTable
+     * @return
+     */
+    public SchemaFingerprintStore setCreateTable(boolean createTable) {
+        this.createTable = createTable;
+        return this;
+    }
+
+    /**
+     * 查找指纹时是否忽略表名的大小写，默认为 true，服务端区分表名大小写（lower_case_table_names=0）时应当关闭
+     *
+     * @param ignoreTableNameCase
+     * @return
+     */
+    public SchemaFingerprintStore setIgnoreTableNameCase(boolean ignoreTableNameCase) {
+        this.ignoreTableNameCase = ignoreTableNameCase;
+        return this;
+    }
+
+    /**
+     * 计算实体类一侧的指纹
+     *
+     * @param tableSpec
+     * @return
+     */
+    public static String specFingerprint(TableSpec tableSpec) {
+        return HexFormat.of().formatHex(TableSpecCodec.digest(tableSpec));
+    }
+
+    /**
+     * 读取上一次保存的指纹，指纹表不存在且不允许建表时返回空的 Map
+     *
+     * @return Map&lt;TableName, Fingerprint&gt;
+     */
+    public Map<String, Fingerprint> load() {
+        Map<String, Fingerprint> stored = ignoreTableNameCase
+                ? new TreeMap<>(String.CASE_INSENSITIVE_ORDER) : new TreeMap<>();
+        if (!ensureTable()) {
+            logger.info("Fingerprint table `{}` not found, all tables will be checked.",
+                    TABLE_NAME);
+            return stored;
+        }
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            stored.put(rs.getString("table_name"), new Fingerprint(
+                    rs.getString("spec_fingerprint"),
+                    rs.getString("column_checksum"),
+                    rs.getString("create_time")));
+        });
+        return stored;
+    }
+
+    /**
+     * 获取数据库一侧的指纹，结果中不包含实体类指纹
+     *
+     * @param session
+     * @param tableNames
+     * @param live       Map&lt;TableName, Fingerprint&gt;，数据库中不存在的表不会出现在结果中。
+     *                   表名取自 INFORMATION_SCHEMA，大小写可能与请求的不同，服务端不区分表名大小写时调用方应当提供不区分大小写的 Map
+     */
+    public void fetchLive(MetadataSession session, List<String> tableNames,
+                          Map<String, Fingerprint> live) {
+        String sql = String.format(FETCH_CHECKSUM_SQL,
+                String.join(", ", Collections.nCopies(tableNames.size(), "?")));
+        List<Object> args = new ArrayList<>(tableNames.size() + 1);
+        args.add(schema);
+        args.addAll(tableNames);
+        session.query(sql, args, rs -> {
+            live.put(rs.getString("TABLE_NAME"), new Fingerprint(null,
+                    FINGERPRINT_VERSION + ":" + rs.getLong("COLUMN_COUNT") + ":"
+                            + rs.getString("COLUMN_CHECKSUM"),
+                    rs.getString("CREATE_TIME")));
+        });
+    }
+
+    /**
+     * 保存检查通过的表的指纹，指纹表不存在且不允许建表时不保存
+     *
+     * @param fingerprints Map&lt;TableName, Fingerprint&gt;
+     */
+    public void save(Map<String, Fingerprint> fingerprints) {
+        if (fingerprints.isEmpty() || !ensureTable()) {
+            return;
+        }
+        List<Object[]> batchArgs = fingerprints.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue().specFingerprint,
+                        e.getValue().columnChecksum, e.getValue().createTime})
+                .toList();
+        jdbcTemplate.batchUpdate(SAVE_SQL, batchArgs);
+    }
+
+    private boolean ensureTable() {
+        if (Objects.isNull(tableExists)) {
+            tableExists = jdbcTemplate.queryForObject(TABLE_EXISTS_SQL, Long.class, schema,
+                    TABLE_NAME) > 0;
+            if (!tableExists && createTable) {
+                jdbcTemplate.execute(CREATE_TABLE_SQL);
+                tableExists = true;
+            }
+        }
+        return tableExists;
+    }
+
+    public static class Fingerprint {
+
+        private final String specFingerprint;
+        private final String columnChecksum;
+        private final String createTime;
+
+        public Fingerprint(String specFingerprint, String columnChecksum, String createTime) {
+            this.specFingerprint = specFingerprint;
+            this.columnChecksum = columnChecksum;
+            this.createTime = createTime;
+        }
+
+        /**
+         * 使用实体类指纹补全数据库一侧的指纹
+         *
+         * @param specFingerprint
+         * @return
+         */
+        public Fingerprint withSpecFingerprint(String specFingerprint) {
+            return new Fingerprint(specFingerprint, columnChecksum, createTime);
+        }
+
+        /**
+         * 实体类和数据库两侧是否都没有变化
+         *
+         * @param other
+         * @return
+         */
+        public boolean matches(Fingerprint other) {
+            return Objects.equals(specFingerprint, other.specFingerprint)
+                    && Objects.equals(columnChecksum, other.columnChecksum)
+                    && Objects.equals(createTime, other.createTime);
+        }
+    }
+}
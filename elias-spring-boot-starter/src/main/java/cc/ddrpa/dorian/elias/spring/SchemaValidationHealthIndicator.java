@@ -0,0 +1,48 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+import java.util.Objects;
+
+/**
+ * 后台 schema 检查的健康状态
+ * <p>
+ * 检查完成前为 OUT_OF_SERVICE，检查失败（或是发现差异且开启了 stopOnMismatch）时为 DOWN。
+ * readiness 状态由 {@link SchemaValidationRunner} 控制，这里只用于展示检查的进度和结果，
+ * 也可以通过 {@code management.endpoint.health.group.readiness.include=readinessState,elias} 加入 readiness 探针
+ */
+public class SchemaValidationHealthIndicator extends AbstractHealthIndicator {
+
+    private final SchemaValidationRunner runner;
+
+    public SchemaValidationHealthIndicator(SchemaValidationRunner runner) {
+        super("Schema validation health check failed");
+        this.runner = runner;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        SchemaValidationRunner.Status status = runner.getStatus();
+        switch (status) {
+            case PENDING, RUNNING -> builder.outOfService();
+            case PASSED -> builder.up();
+            case MISMATCH -> {
+                if (runner.isRefusingTraffic()) {
+                    builder.down();
+                } else {
+                    builder.up();
+                }
+            }
+            case FAILED -> builder.down();
+        }
+        builder.withDetail("status", status);
+        if (Objects.nonNull(runner.getStartedAt())) {
+            builder.withDetail("startedAt", runner.getStartedAt())
+                    .withDetail("durationMillis", runner.getDuration().toMillis());
+        }
+        if (Objects.nonNull(runner.getError())) {
+            builder.withDetail("error", runner.getError().toString());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 在后台线程中执行 schema 检查，应用启动不需要等待检查完成
+ * <p>
+ * readiness 状态只由这里控制：检查在 ApplicationContext 刷新完成后开始，同时发布 {@link ReadinessState#REFUSING_TRAFFIC}；
+ * 检查完成之前，或是检查失败（或是发现差异且开启了 stopOnMismatch）时，之后发布的 {@link ReadinessState#ACCEPTING_TRAFFIC}
+ * （例如 Spring Boot 在应用就绪时发布的事件）会被重新置为拒绝流量。
+ * 检查通过时，如果应用已经就绪则发布 {@link ReadinessState#ACCEPTING_TRAFFIC}，否则等待 Spring Boot 在应用就绪时发布
+ */
+public class SchemaValidationRunner implements ApplicationListener<ApplicationEvent>,
+        ApplicationContextAware, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaValidationRunner.class);
+
+    private final Callable<Boolean> schemaCheck;
+    private final boolean stopOnMismatch;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "elias-schema-validation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ApplicationContext applicationContext;
+    private volatile Status status = Status.PENDING;
+    private volatile Instant startedAt = null;
+    private volatile Instant finishedAt = null;
+    private volatile Throwable error = null;
+    // 是否已经收到 ApplicationReadyEvent，由 this 保护
+    private boolean applicationReady = false;
+
+    /**
+     * @param schemaCheck    执行检查，返回是否发现了差异
+     * @param stopOnMismatch 发现差异时是否拒绝流量
+     */
+    public SchemaValidationRunner(Callable<Boolean> schemaCheck, boolean stopOnMismatch) {
+        this.schemaCheck = schemaCheck;
+        this.stopOnMismatch = stopOnMismatch;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ContextRefreshedEvent refreshedEvent
+                && refreshedEvent.getApplicationContext() == applicationContext
+                && started.compareAndSet(false, true)) {
+            refuseTraffic();
+            executor.execute(this::run);
+        } else if (event instanceof ApplicationReadyEvent readyEvent
+                && readyEvent.getApplicationContext() == applicationContext) {
+            // Spring Boot 在 ApplicationReadyEvent 之后才发布 ACCEPTING_TRAFFIC，检查尚未通过时需要重新覆盖。
+            // 顺序相同的监听器按注册顺序执行，此时所有单例都已创建，这里注册的监听器排在 ApplicationAvailabilityBean 之后，
+            // 覆盖的结果不会被它再次改写
+            synchronized (this) {
+                applicationReady = true;
+            }
+            readyEvent.getApplicationContext().addApplicationListener(this::reassertRefusal);
+        }
+    }
+
+    private synchronized void reassertRefusal(ApplicationEvent event) {
+        if (event instanceof AvailabilityChangeEvent<?> availabilityChangeEvent
+                && availabilityChangeEvent.getState() == ReadinessState.ACCEPTING_TRAFFIC
+                && !isAcceptingTraffic()) {
+            refuseTraffic();
+        }
+    }
+
+    private void run() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+        logger.info("Schema validation started in background.");
+        Status result;
+        try {
+            boolean somethingBadHappened = schemaCheck.call();
+            finishedAt = Instant.now();
+            result = somethingBadHappened ? Status.MISMATCH : Status.PASSED;
+            logger.info("Schema validation finished in {} ms, mismatch found: {}",
+                    getDuration().toMillis(), somethingBadHappened);
+        } catch (Throwable e) {
+            finishedAt = Instant.now();
+            error = e;
+            result = Status.FAILED;
+            logger.error("Schema validation failed.", e);
+        }
+        finish(result);
+    }
+
+    /**
+     * 更新检查结果和发布 readiness 状态在同一个锁中进行，不会与 {@link #reassertRefusal(ApplicationEvent)} 交错
+     */
+    private synchronized void finish(Status result) {
+        status = result;
+        if (isRefusingTraffic()) {
+            logger.error(
+                    "Schema validation failed, refusing traffic due to configuration. See logs for details.");
+        } else if (applicationReady) {
+            // 应用就绪时发布的 ACCEPTING_TRAFFIC 已经被覆盖，检查通过后重新发布
+            AvailabilityChangeEvent.publish(applicationContext, this,
+                    ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    private void refuseTraffic() {
+        AvailabilityChangeEvent.publish(applicationContext, this,
+                ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    /**
+     * 检查结果是否要求应用拒绝流量
+     *
+     * @return
+     */
+    public boolean isRefusingTraffic() {
+        return status == Status.FAILED || (stopOnMismatch && status == Status.MISMATCH);
+    }
+
+    /**
+     * 检查已经完成，并且结果允许应用接收流量
+     *
+     * @return
+     */
+    public boolean isAcceptingTraffic() {
+        return (status == Status.PASSED || status == Status.MISMATCH) && !isRefusingTraffic();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * 检查已经耗费或总共耗费的时间
+     *
+     * @return 尚未开始时返回 {@link Duration#ZERO}
+     */
+    public Duration getDuration() {
+        if (Objects.isNull(startedAt)) {
+            return Duration.ZERO;
+        }
+        return Duration.between(startedAt,
+                Objects.requireNonNullElseGet(finishedAt, Instant::now));
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public enum Status {
+        /**
+         * 等待 ApplicationContext 刷新
+         */
+        PENDING,
+        RUNNING,
+        /**
+         * 没有发现差异
+         */
+        PASSED,
+        /**
+         * 发现了差异
+         */
+        MISMATCH,
+        /**
+         * 检查过程中出现异常
+         */
+        FAILED
+    }
+}
@@ -0,0 +1,300 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
+import cc.ddrpa.dorian.elias.core.spec.TableAlterSpec;
+import cc.ddrpa.dorian.elias.generator.MySQL57Generator;
+import cc.ddrpa.dorian.elias.generator.SQLGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * 通过影子表在线修改列定义，用于需要以 ALGORITHM=COPY 重建的变更，例如将 int 主键改为 bigint
+ * <p>
+ * 执行步骤：
+ * <ol>
+ *     <li>以 {@code CREATE TABLE ... LIKE} 创建影子表，保留原表未在实体类中声明的列、索引和表选项，再在空的影子表上修改列定义</li>
+ *     <li>在原表上创建 INSERT / UPDATE / DELETE 触发器，将复制期间的写入同步到影子表</li>
+ *     <li>按主键分批将原表的数据复制到影子表，每批之间暂停指定的时间</li>
+ *     <li>以一条 {@code RENAME TABLE} 原子地交换原表和影子表，然后删除触发器</li>
+ * </ol>
+ * 要求原表有单列主键，并且既没有外键也没有被其他表的外键引用，见 {@link #checkTable(String)}。
+ * 交换之前失败时会删除触发器和影子表，原表不受影响；原表交换后保留为 {@code _<表名>_old}，
+ * 除非开启了 {@link #setDropOldTable(boolean)}。
+ * 触发器使用 MySQL 的存储程序语法，只能在 MySQL / MariaDB 上执行
+ */
+public class ShadowTableMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShadowTableMigrator.class);
+    private static final int MAX_IDENTIFIER_LENGTH = 64;
+    private static final String FETCH_COLUMNS_SQL = "select COLUMN_NAME, EXTRA from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = ? and TABLE_NAME = ? order by ORDINAL_POSITION";
+    private static final String FETCH_PRIMARY_KEY_SQL = "select COLUMN_NAME from INFORMATION_SCHEMA.KEY_COLUMN_USAGE where TABLE_SCHEMA = ? and TABLE_NAME = ? and CONSTRAINT_NAME = 'PRIMARY' order by ORDINAL_POSITION";
+    private static final String TABLE_EXISTS_SQL = "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = ? and TABLE_NAME = ?";
+    private static final String FETCH_FOREIGN_KEYS_SQL = "select count(*) from INFORMATION_SCHEMA.KEY_COLUMN_USAGE where TABLE_SCHEMA = ? and TABLE_NAME = ? and REFERENCED_TABLE_NAME is not null";
+    private static final String FETCH_REFERENCING_KEYS_SQL = "select count(*) from INFORMATION_SCHEMA.KEY_COLUMN_USAGE where REFERENCED_TABLE_SCHEMA = ? and REFERENCED_TABLE_NAME = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String schema;
+    private final SQLGenerator generator = new MySQL57Generator().setDropIfExists(false);
+    private int batchSize = 1000;
+    private Duration sleep = Duration.ZERO;
+    private boolean dropOldTable = false;
+
+    public ShadowTableMigrator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = jdbcTemplate.execute((ConnectionCallback<String>) Connection::getCatalog);
+    }
+
+    /**
+     * 每批复制的行数，默认为 1000
+     *
+     * @param batchSize
+     * @return
+     */
+    public ShadowTableMigrator setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 每批复制之间暂停的时间，用于降低对主库和复制延迟的影响，默认不暂停
+     *
+     * @param sleep
+     * @return
+     */
+    public ShadowTableMigrator setSleep(Duration sleep) {
+        this.sleep = Objects.requireNonNull(sleep);
+        return this;
+    }
+
+    /**
+     * 交换完成后删除原表，默认保留为 {@code _<表名>_old} 以便回滚
+     *
+     * @param dropOldTable
+     * @return
+     */
+    public ShadowTableMigrator setDropOldTable(boolean dropOldTable) {
+        this.dropOldTable = dropOldTable;
+        return this;
+    }
+
+    /**
+     * 影子表迁移只能执行修改列定义的变更
+     * <p>
+     * 不支持将可空列改为非空，INSERT IGNORE 会把 NULL 静默转换为隐式默认值，触发器同步的写入也会因此失败。
+     * 同样不支持缩小类型或长度的变更，以及其他不允许自动修复的变更，INSERT IGNORE 会静默截断超出范围的值
+     *
+     * @param tableAlterSpec
+     * @return
+     */
+    public static boolean supports(TableAlterSpec tableAlterSpec) {
+        return tableAlterSpec.getAddColumns().isEmpty() && tableAlterSpec.getAddIndexes().isEmpty()
+                && !tableAlterSpec.getModifyColumns().isEmpty()
+                && tableAlterSpec.getModifyColumns().values().stream()
+                .noneMatch(spec -> !spec.isAutoFixEnabled() || spec.isLossy()
+                        || (spec.isAlterNullable() && spec.isActualNullable()));
+    }
+
+    /**
+     * 检查表是否满足影子表迁移的前提
+     * <ul>
+     *     <li>单列主键，用于分批复制和触发器同步</li>
+     *     <li>没有外键，{@code CREATE TABLE ... LIKE} 不会复制外键</li>
+     *     <li>没有被其他表的外键引用，重命名后这些外键会跟随原表指向 {@code _<表名>_old}</li>
+     * </ul>
+     *
+     * @param tableName
+     * @return 不满足时返回原因
+     */
+    public Optional<String> checkTable(String tableName) {
+        if (jdbcTemplate.queryForList(FETCH_PRIMARY_KEY_SQL, String.class, schema, tableName)
+                .size() != 1) {
+            return Optional.of("* Shadow table migration requires a single-column primary key.");
+        }
+        if (jdbcTemplate.queryForObject(FETCH_FOREIGN_KEYS_SQL, Long.class, schema, tableName)
+                > 0) {
+            return Optional.of(
+                    "* Table has foreign keys, which are not copied to the shadow table.");
+        }
+        if (jdbcTemplate.queryForObject(FETCH_REFERENCING_KEYS_SQL, Long.class, schema, tableName)
+                > 0) {
+            return Optional.of(
+                    "* Table is referenced by foreign keys, which would follow the original table when it is renamed.");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 执行迁移
+     *
+     * @param tableAlterSpec 只包含修改列定义的变更
+     * @throws IOException
+     */
+    public void migrate(TableAlterSpec tableAlterSpec) throws IOException {
+        if (!supports(tableAlterSpec)) {
+            throw new IllegalArgumentException(
+                    "Shadow table migration only supports modifying columns: " + tableAlterSpec
+                            .getTableName());
+        }
+        String table = tableAlterSpec.getTableName();
+        Optional<String> refusal = checkTable(table);
+        if (refusal.isPresent()) {
+            throw new IllegalStateException(
+                    "Table `" + table + "` can not be migrated with a shadow table:\n"
+                            + refusal.get());
+        }
+        String shadow = identifier("_", table, "_new");
+        String old = identifier("_", table, "_old");
+        List<String> triggers = List.of(identifier("_elias_", table, "_del"),
+                identifier("_elias_", table, "_upd"), identifier("_elias_", table, "_ins"));
+        List<String> columns = new ArrayList<>();
+        Set<String> autoIncrementColumns = new HashSet<>();
+        jdbcTemplate.query(FETCH_COLUMNS_SQL, rs -> {
+            columns.add(rs.getString("COLUMN_NAME"));
+            if (String.valueOf(rs.getString("EXTRA")).contains("auto_increment")) {
+                autoIncrementColumns.add(rs.getString("COLUMN_NAME"));
+            }
+        }, schema, table);
+        List<String> primaryKey = jdbcTemplate.queryForList(FETCH_PRIMARY_KEY_SQL, String.class,
+                schema, table);
+        for (String name : List.of(shadow, old)) {
+            if (jdbcTemplate.queryForObject(TABLE_EXISTS_SQL, Long.class, schema, name) > 0) {
+                throw new IllegalStateException("Table `" + name
+                        + "` already exists, a previous migration may not have been cleaned up");
+            }
+        }
+        String pk = quote(primaryKey.get(0));
+        String columnList = columns.stream().map(ShadowTableMigrator::quote)
+                .collect(Collectors.joining(", "));
+        String newValues = columns.stream().map(c -> "NEW." + quote(c))
+                .collect(Collectors.joining(", "));
+        Instant startedAt = Instant.now();
+        logger.warn("Starting shadow table migration of `{}` via `{}`.", table, shadow);
+        boolean swapped = false;
+        try {
+            jdbcTemplate.execute("create table " + quote(shadow) + " like " + quote(table));
+            TableAlterSpec shadowChanges = new TableAlterSpec(shadow);
+            for (Map.Entry<String, ColumnModifySpec> e : tableAlterSpec.getModifyColumns()
+                    .entrySet()) {
+                shadowChanges.modifyColumn(e.getKey(), e.getValue());
+            }
+            // 影子表为空，修改列定义不需要复制数据
+            generator.alterTableStatements(shadowChanges).forEach(jdbcTemplate::execute);
+            for (Map.Entry<String, ColumnModifySpec> e : shadowChanges.getModifyColumns()
+                    .entrySet()) {
+                // MODIFY COLUMN 会去掉 auto_increment 属性，需要重新声明
+                if (autoIncrementColumns.contains(e.getKey())) {
+                    jdbcTemplate.execute("alter table " + quote(shadow) + " modify column "
+                            + quote(e.getKey()) + " " + e.getValue().getColumnType()
+                            + " not null auto_increment");
+                }
+            }
+            jdbcTemplate.execute("create trigger " + quote(triggers.get(0)) + " after delete on "
+                    + quote(table) + " for each row delete ignore from " + quote(shadow)
+                    + " where " + pk + " <=> OLD." + pk);
+            jdbcTemplate.execute("create trigger " + quote(triggers.get(1)) + " after update on "
+                    + quote(table) + " for each row begin delete ignore from " + quote(shadow)
+                    + " where !(OLD." + pk + " <=> NEW." + pk + ") and " + pk + " <=> OLD." + pk
+                    + "; replace into " + quote(shadow) + " (" + columnList + ") values ("
+                    + newValues + "); end");
+            jdbcTemplate.execute("create trigger " + quote(triggers.get(2)) + " after insert on "
+                    + quote(table) + " for each row replace into " + quote(shadow) + " ("
+                    + columnList + ") values (" + newValues + ")");
+            long copied = copyRows(table, shadow, pk, columnList);
+            jdbcTemplate.execute("rename table " + quote(table) + " to " + quote(old) + ", "
+                    + quote(shadow) + " to " + quote(table));
+            swapped = true;
+            logger.warn("Shadow table migration of `{}` finished in {} ms, {} rows copied.", table,
+                    Duration.between(startedAt, Instant.now()).toMillis(), copied);
+        } finally {
+            for (String trigger : triggers) {
+                jdbcTemplate.execute("drop trigger if exists " + quote(trigger));
+            }
+            if (!swapped) {
+                jdbcTemplate.execute("drop table if exists " + quote(shadow));
+                logger.error("Shadow table migration of `{}` aborted, shadow table dropped.",
+                        table);
+            }
+        }
+        if (dropOldTable) {
+            jdbcTemplate.execute("drop table " + quote(old));
+        } else {
+            logger.warn("Original table kept as `{}`, drop it once the migration is verified.",
+                    old);
+        }
+    }
+
+    /**
+     * 按主键分批复制，已经由触发器写入影子表的行不会被覆盖
+     *
+     * @return 复制的行数
+     */
+    private long copyRows(String table, String shadow, String pk, String columnList) {
+        String firstBoundSql = "select max(" + pk + ") from (select " + pk + " from "
+                + quote(table) + " order by " + pk + " limit ?) chunk";
+        String nextBoundSql = "select max(" + pk + ") from (select " + pk + " from "
+                + quote(table) + " where " + pk + " > ? order by " + pk + " limit ?) chunk";
+        String firstCopySql = "insert ignore into " + quote(shadow) + " (" + columnList
+                + ") select " + columnList + " from " + quote(table) + " where " + pk
+                + " <= ? lock in share mode";
+        String nextCopySql = "insert ignore into " + quote(shadow) + " (" + columnList
+                + ") select " + columnList + " from " + quote(table) + " where " + pk + " > ? and "
+                + pk + " <= ? lock in share mode";
+        long copied = 0;
+        Object lowerBound = null;
+        while (true) {
+            Object upperBound = Objects.isNull(lowerBound)
+                    ? jdbcTemplate.queryForObject(firstBoundSql, Object.class, batchSize)
+                    : jdbcTemplate.queryForObject(nextBoundSql, Object.class, lowerBound, batchSize);
+            if (Objects.isNull(upperBound)) {
+                return copied;
+            }
+            copied += Objects.isNull(lowerBound)
+                    ? jdbcTemplate.update(firstCopySql, upperBound)
+                    : jdbcTemplate.update(nextCopySql, lowerBound, upperBound);
+            logger.debug("Copied rows of `{}` up to {} = {}", table, pk, upperBound);
+            lowerBound = upperBound;
+            if (!sleep.isZero()) {
+                try {
+                    Thread.sleep(sleep.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Shadow table migration interrupted", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在不超过 MySQL 标识符长度限制的前提下，为表名添加前缀和后缀
+     * <p>
+     * 表名过长时截断，并附加完整表名的 CRC32，避免前缀相同的两张表得到同一个标识符
+     */
+    static String identifier(String prefix, String table, String suffix) {
+        int available = MAX_IDENTIFIER_LENGTH - prefix.length() - suffix.length();
+        if (table.length() <= available) {
+            return prefix + table + suffix;
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(table.getBytes(StandardCharsets.UTF_8));
+        String hash = String.format("%08x", crc32.getValue());
+        return prefix + table.substring(0, available - hash.length() - 1) + "_" + hash + suffix;
+    }
+
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -2,30 +2,45 @@ package cc.ddrpa.dorian.elias.spring.autoconfigure;
 
 import cc.ddrpa.dorian.elias.core.EntitySearcher;
 import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.cache.TableSpecCache;
+import cc.ddrpa.dorian.elias.core.naming.NamingStrategy;
 import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import cc.ddrpa.dorian.elias.spring.NullBackfiller;
+import cc.ddrpa.dorian.elias.spring.RestartStateHolder;
 import cc.ddrpa.dorian.elias.spring.SchemaChecker;
+import cc.ddrpa.dorian.elias.spring.SchemaValidationHealthIndicator;
+import cc.ddrpa.dorian.elias.spring.SchemaValidationRunner;
+import cc.ddrpa.dorian.elias.spring.ShadowTableMigrator;
 import com.baomidou.mybatisplus.annotation.TableName;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 
 @Configuration
 @ConditionalOnClass(DataSource.class)
 @ConditionalOnExpression("${elias.validate.enable}")
 @EnableConfigurationProperties(EliasProperties.class)
-public class EliasAutoConfiguration implements InitializingBean {
+public class EliasAutoConfiguration implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(EliasAutoConfiguration.class);
     private static final String ASCII_ART = """
@@ -42,42 +57,125 @@ public class EliasAutoConfiguration implements InitializingBean {
     private final EliasProperties properties;
     private final JdbcTemplate jdbcTemplate;
 
-    public EliasAutoConfiguration(EliasProperties properties, DataSource dataSource) {
+    public EliasAutoConfiguration(EliasProperties properties, DataSource dataSource,
+                                  ObjectProvider<NamingStrategy> namingStrategy) {
         this.properties = properties;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // 应用中声明了 NamingStrategy bean 时，使用它推导表名和列名
+        namingStrategy.ifAvailable(SpecMaker::setNamingStrategy);
         logger.info(ASCII_ART);
     }
 
     protected void schemaCheck() throws SQLException, IOException {
+        boolean somethingBadHappened = runSchemaCheck();
+        if (properties.isStopOnMismatch() && somethingBadHappened) {
+            logger.error(
+                    "Schema validation failed, starting terminated due to configuration. See logs for details.\n\n");
+            throw new IllegalStateException(
+                    "Schema validation failed, starting terminated due to configuration. See logs for details.");
+        }
+    }
+
+    /**
+     * 扫描实体类并检查
+     *
+     * @return 是否发现了差异
+     * @throws SQLException
+     * @throws IOException
+     */
+    protected boolean runSchemaCheck() throws SQLException, IOException {
         List<String> includePackages = properties.getScan().getIncludes();
         if (includePackages.isEmpty()) {
             logger.warn("No package to scan, skip schema validation.");
-            return;
+            return false;
         }
         EntitySearcher searcher = new EntitySearcher()
-                .addPackages(includePackages);
+                .addPackages(includePackages)
+                .setUseIndex(properties.getScan().isUseIndex());
         if (properties.getScan().getAcceptMybatisPlusTableNameAnnotation()) {
             searcher.useAnnotation(TableName.class);
         }
-        List<TableSpec> tableSpecList = searcher
-                .search()
-                .stream()
-                .map(SpecMaker::makeTableSpec)
-                .collect(Collectors.toList());
+        RestartStateHolder restartState =
+                properties.isDevtoolsRestartCache() && RestartStateHolder.isDevToolsPresent()
+                        ? RestartStateHolder.getInstance()
+                        : null;
+        List<TableSpec> tableSpecList;
+        if (Objects.nonNull(restartState)) {
+            tableSpecList = restartState.getOrMake(searcher.search(), this::makeTableSpecs);
+        } else {
+            tableSpecList = makeTableSpecs(searcher.search());
+        }
         SchemaChecker checker = new SchemaChecker(jdbcTemplate)
                 .addTableSpecies(tableSpecList)
-                .setAutoFix(properties.isAutoFix());
-        boolean somethingBadHappened = checker.check();
-        if (properties.isStopOnMismatch() && somethingBadHappened) {
-            logger.error(
-                    "Schema validation failed, starting terminated due to configuration. See logs for details.\n\n");
-            throw new IllegalStateException(
-                    "Schema validation failed, starting terminated due to configuration. See logs for details.");
+                .setAutoFix(properties.isAutoFix())
+                .setParallelism(properties.getParallelism())
+                .setSkipUnchanged(properties.isSkipUnchanged())
+                .setRestartState(restartState)
+                .setOnlineDDL(properties.isOnlineDdl())
+                .setAutoFixLimits(properties.getAutoFixMaxRows(), properties.getAutoFixMaxBytes())
+                .setDeferredPlanFile(StringUtils.isBlank(properties.getDeferredPlanFile()) ? null
+                        : Path.of(properties.getDeferredPlanFile()));
+        EliasProperties.ShadowMigrationProperties shadowMigration = properties.getShadowMigration();
+        if (shadowMigration.isEnable()) {
+            checker.setShadowTableMigrator(new ShadowTableMigrator(jdbcTemplate)
+                            .setBatchSize(shadowMigration.getBatchSize())
+                            .setSleep(shadowMigration.getSleep())
+                            .setDropOldTable(shadowMigration.isDropOldTable()))
+                    .setShadowTableLimits(shadowMigration.getMaxRows(),
+                            shadowMigration.getMaxBytes());
+        }
+        if (properties.getNullBackfill().isEnable()) {
+            checker.setNullBackfiller(new NullBackfiller(jdbcTemplate)
+                    .setBatchSize(properties.getNullBackfill().getBatchSize()));
         }
+        return checker.check();
+    }
+
+    private List<TableSpec> makeTableSpecs(Collection<Class<?>> classes) {
+        if (StringUtils.isBlank(properties.getSpecCache())) {
+            return SpecMaker.makeTableSpecs(classes);
+        }
+        TableSpecCache specCache = TableSpecCache.open(Path.of(properties.getSpecCache()));
+        List<TableSpec> tableSpecList = specCache.getOrMake(classes);
+        try {
+            specCache.save();
+        } catch (IOException e) {
+            logger.warn("Unable to write TableSpec cache {}", properties.getSpecCache(), e);
+        }
+        return tableSpecList;
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
+        if (properties.isAsync()) {
+            // 由 SchemaValidationRunner 在 ApplicationContext 刷新后执行
+            return;
+        }
         schemaCheck();
     }
+
+    @Override
+    public void destroy() {
+        if (properties.isDevtoolsRestartCache() && RestartStateHolder.isDevToolsPresent()) {
+            RestartStateHolder.getInstance().beforeRestart();
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "elias.validate", name = "async", havingValue = "true")
+    public SchemaValidationRunner eliasSchemaValidationRunner() {
+        return new SchemaValidationRunner(this::runSchemaCheck, properties.isStopOnMismatch());
+    }
+
+    @Configuration
+    @ConditionalOnClass(HealthIndicator.class)
+    @ConditionalOnProperty(prefix = "elias.validate", name = "async", havingValue = "true")
+    static class SchemaValidationHealthConfiguration {
+
+        @Bean
+        public SchemaValidationHealthIndicator eliasHealthIndicator(
+                SchemaValidationRunner eliasSchemaValidationRunner) {
+            return new SchemaValidationHealthIndicator(eliasSchemaValidationRunner);
+        }
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package cc.ddrpa.dorian.elias.spring.autoconfigure;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,6 +27,62 @@ public class EliasProperties {
      * 自动应用增量型修改
      */
     private boolean autoFix = false;
+    /**
+     * TableSpec 缓存文件路径，为空时不使用缓存
+     * <p>
+     * 实体类字节码没有变化时直接从缓存中读取表定义，跳过反射分析
+     */
+    private String specCache = null;
+    /**
+     * 同时检查的表数量，默认逐张表顺序检查
+     * <p>
+     * 实际并行度不会超过数据源连接池的最大连接数
+     */
+    private int parallelism = 1;
+    /**
+     * 在后台执行检查，不阻塞应用启动
+     * <p>
+     * 此时 stopOnMismatch 不会终止启动，而是将 readiness 状态置为 REFUSING_TRAFFIC
+     */
+    private boolean async = false;
+    /**
+     * 跳过上一次检查通过后，实体类和数据库两侧都没有变化的表
+     * <p>
+     * 指纹记录在数据库的 elias_schema_fingerprint 表中，只有开启 autoFix 时才会自动创建该表
+     */
+    private boolean skipUnchanged = false;
+    /**
+     * 类路径上存在 Spring Boot DevTools 时，在重启之间保留 TableSpec 和检查结果
+     * <p>
+     * 重启后只重新分析字节码有变化的实体类，只重新检查定义有变化或上一次未通过的表
+     */
+    private boolean devtoolsRestartCache = true;
+    /**
+     * 根据服务端版本为 ALTER TABLE 语句声明 ALGORITHM 和 LOCK 子句
+     * <p>
+     * 需要复制整张表、会阻塞写入的变更不会被自动修复
+     */
+    private boolean onlineDdl = true;
+    /**
+     * 自动修复的表行数上限，超过时需要重建表的变更写入迁移计划而不是在启动时执行，小于等于 0 时不限制
+     */
+    private long autoFixMaxRows = 1_000_000;
+    /**
+     * 自动修复的表大小上限（数据与索引之和，字节），超过时需要重建表的变更写入迁移计划而不是在启动时执行，小于等于 0 时不限制
+     */
+    private long autoFixMaxBytes = 1L << 30;
+    /**
+     * 迁移计划文件路径，没有自动执行的变更会连同表的大小和预计开销写入这个文件，为空时只输出日志
+     */
+    private String deferredPlanFile = null;
+    /**
+     * 影子表在线迁移，开启自动修复时用于执行需要复制整张表的列修改
+     */
+    private ShadowMigrationProperties shadowMigration = new ShadowMigrationProperties();
+    /**
+     * 开启自动修复时，将可空列改为非空之前先用默认值分批回填已有的 NULL
+     */
+    private NullBackfillProperties nullBackfill = new NullBackfillProperties();
 
     public boolean isEnable() {
         return enable;
@@ -64,6 +121,105 @@ public class EliasProperties {
         return this;
     }
 
+    public String getSpecCache() {
+        return specCache;
+    }
+
+    public EliasProperties setSpecCache(String specCache) {
+        this.specCache = specCache;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public EliasProperties setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public EliasProperties setAsync(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    public EliasProperties setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+        return this;
+    }
+
+    public boolean isDevtoolsRestartCache() {
+        return devtoolsRestartCache;
+    }
+
+    public EliasProperties setDevtoolsRestartCache(boolean devtoolsRestartCache) {
+        this.devtoolsRestartCache = devtoolsRestartCache;
+        return this;
+    }
+
+    public boolean isOnlineDdl() {
+        return onlineDdl;
+    }
+
+    public EliasProperties setOnlineDdl(boolean onlineDdl) {
+        this.onlineDdl = onlineDdl;
+        return this;
+    }
+
+    public long getAutoFixMaxRows() {
+        return autoFixMaxRows;
+    }
+
+    public EliasProperties setAutoFixMaxRows(long autoFixMaxRows) {
+        this.autoFixMaxRows = autoFixMaxRows;
+        return this;
+    }
+
+    public long getAutoFixMaxBytes() {
+        return autoFixMaxBytes;
+    }
+
+    public EliasProperties setAutoFixMaxBytes(long autoFixMaxBytes) {
+        this.autoFixMaxBytes = autoFixMaxBytes;
+        return this;
+    }
+
+    public String getDeferredPlanFile() {
+        return deferredPlanFile;
+    }
+
+    public EliasProperties setDeferredPlanFile(String deferredPlanFile) {
+        this.deferredPlanFile = deferredPlanFile;
+        return this;
+    }
+
+    public ShadowMigrationProperties getShadowMigration() {
+        return shadowMigration;
+    }
+
+    public EliasProperties setShadowMigration(ShadowMigrationProperties shadowMigration) {
+        this.shadowMigration = shadowMigration;
+        return this;
+    }
+
+    public NullBackfillProperties getNullBackfill() {
+        return nullBackfill;
+    }
+
+    public EliasProperties setNullBackfill(NullBackfillProperties nullBackfill) {
+        this.nullBackfill = nullBackfill;
+        return this;
+    }
+
     public static class ScanProperties {
 
         /**
@@ -74,6 +230,10 @@ public class EliasProperties {
          * 如果类使用 {@link com.baomidou.mybatisplus.annotation.TableName} 修饰，也会被记录
          */
         private Boolean acceptMybatisPlusTableNameAnnotation = true;
+        /**
+         * 使用编译期生成的实体类索引，没有索引的 jar 或目录仍然会被扫描
+         */
+        private boolean useIndex = true;
 
         public List<String> getIncludes() {
             return includes;
@@ -93,5 +253,125 @@ public class EliasProperties {
             this.acceptMybatisPlusTableNameAnnotation = acceptMybatisPlusTableNameAnnotation;
             return this;
         }
+
+        public boolean isUseIndex() {
+            return useIndex;
+        }
+
+        public ScanProperties setUseIndex(boolean useIndex) {
+            this.useIndex = useIndex;
+            return this;
+        }
+    }
+    public static class ShadowMigrationProperties {
+
+        /**
+         * 开启影子表在线迁移，需要 MySQL 或 MariaDB
+         */
+        private boolean enable = false;
+        /**
+         * 每批复制的行数
+         */
+        private int batchSize = 1000;
+        /**
+         * 每批复制之间暂停的时间
+         */
+        private Duration sleep = Duration.ZERO;
+        /**
+         * 交换完成后删除原表，默认保留为 _&lt;表名&gt;_old
+         */
+        private boolean dropOldTable = false;
+        /**
+         * 影子表迁移的表行数上限，超过时写入迁移计划，小于等于 0 时不限制。不使用 autoFixMaxRows，复制期间不阻塞写入
+         */
+        private long maxRows = 0;
+        /**
+         * 影子表迁移的表大小上限（数据与索引之和，字节），超过时写入迁移计划，小于等于 0 时不限制
+         */
+        private long maxBytes = 0;
+
+        public boolean isEnable() {
+            return enable;
+        }
+
+        public ShadowMigrationProperties setEnable(boolean enable) {
+            this.enable = enable;
+            return this;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public ShadowMigrationProperties setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Duration getSleep() {
+            return sleep;
+        }
+
+        public ShadowMigrationProperties setSleep(Duration sleep) {
+            this.sleep = sleep;
+            return this;
+        }
+
+        public boolean isDropOldTable() {
+            return dropOldTable;
+        }
+
+        public ShadowMigrationProperties setDropOldTable(boolean dropOldTable) {
+            this.dropOldTable = dropOldTable;
+            return this;
+        }
+
+        public long getMaxRows() {
+            return maxRows;
+        }
+
+        public ShadowMigrationProperties setMaxRows(long maxRows) {
+            this.maxRows = maxRows;
+            return this;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public ShadowMigrationProperties setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+    }
+
+    public static class NullBackfillProperties {
+
+        /**
+         * 开启 NULL 回填，只对声明了 @DefaultValue 的列生效
+         */
+        private boolean enable = false;
+        /**
+         * 每批回填扫描的主键范围大小
+         */
+        private int batchSize = 1000;
+
+        public boolean isEnable() {
+            return enable;
+        }
+
+        public NullBackfillProperties setEnable(boolean enable) {
+            this.enable = enable;
+            return this;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public NullBackfillProperties setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
     }
-}
\ No newline at end of file
+}
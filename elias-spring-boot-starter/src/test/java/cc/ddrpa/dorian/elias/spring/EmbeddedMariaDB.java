@@ -0,0 +1,52 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试使用的嵌入式 MariaDB，同一个测试进程中只启动一次，每次调用 {@link #newDatabase()} 创建一个新的数据库
+ * <p>
+ * 以 lower_case_table_names=1 启动，与 Windows、macOS 以及多数云数据库的默认配置一致，表名在服务端统一保存为小写
+ */
+final class EmbeddedMariaDB {
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+    private static DB db;
+
+    private EmbeddedMariaDB() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static synchronized JdbcTemplate newDatabase() throws ManagedProcessException {
+        if (db == null) {
+            DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder()
+                    .setPort(0)
+                    .addArg("--lower-case-table-names=1");
+            if ("root".equals(System.getProperty("user.name"))) {
+                config.addArg("--user=root");
+            }
+            db = DB.newEmbeddedDB(config.build());
+            db.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    db.stop();
+                } catch (ManagedProcessException ignored) {
+                }
+            }));
+        }
+        String database = "elias_test_" + DATABASE_COUNTER.incrementAndGet();
+        new JdbcTemplate(dataSource("mysql")).execute("create database " + database);
+        return new JdbcTemplate(dataSource(database));
+    }
+
+    private static DriverManagerDataSource dataSource(String database) {
+        return new DriverManagerDataSource(
+                "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/" + database,
+                "root", "");
+    }
+}
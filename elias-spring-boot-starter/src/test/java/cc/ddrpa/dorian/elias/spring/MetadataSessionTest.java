@@ -0,0 +1,112 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataSessionTest {
+
+    /**
+     * 关闭会话时，等待连接的调用立即失败，正在执行的查询结束后归还连接
+     */
+    @Test
+    void closeReleasesWaitingCallers() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        MetadataSession session = new MetadataSession(jdbcTemplate, 1);
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(
+                () -> session.query("select 1", List.of(), rs -> {
+                    querying.countDown();
+                    try {
+                        closed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(querying.await(30, TimeUnit.SECONDS));
+        // 唯一的连接正在使用，第二个查询等待连接
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(
+                () -> session.query("select 2", List.of(), rs -> {
+                }));
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+
+        session.close();
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> waiting.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        closed.countDown();
+        running.get(30, TimeUnit.SECONDS);
+        assertThrows(IllegalStateException.class,
+                () -> session.query("select 3", List.of(), rs -> {
+                }));
+    }
+
+    /**
+     * 从数据源借出连接时不持有锁，借出很慢时其他线程仍然可以归还和复用已借出的连接
+     */
+    @Test
+    void slowBorrowDoesNotBlockReuse() throws Exception {
+        DataSource dataSource = EmbeddedMariaDB.newDatabase().getDataSource();
+        AtomicInteger borrowed = new AtomicInteger();
+        CountDownLatch borrowing = new CountDownLatch(1);
+        CountDownLatch poolReady = new CountDownLatch(1);
+        DataSource slowDataSource = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (borrowed.incrementAndGet() == 2) {
+                    // 第二个连接模拟仍在预热的连接池
+                    borrowing.countDown();
+                    try {
+                        poolReady.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getConnection();
+            }
+        };
+        MetadataSession session = new MetadataSession(new JdbcTemplate(slowDataSource), 2);
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(
+                () -> session.query("select 1", List.of(), rs -> {
+                    querying.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(querying.await(30, TimeUnit.SECONDS));
+        // 第一个连接正在使用，第二个查询借出新的连接
+        CompletableFuture<Void> second = CompletableFuture.runAsync(
+                () -> session.query("select 2", List.of(), rs -> {
+                }));
+        assertTrue(borrowing.await(30, TimeUnit.SECONDS));
+        finish.countDown();
+        first.get(30, TimeUnit.SECONDS);
+        // 复用第一个查询归还的连接
+        session.query("select 3", List.of(), rs -> {
+        });
+        assertFalse(second.isDone());
+
+        poolReady.countDown();
+        second.get(30, TimeUnit.SECONDS);
+        assertEquals(2, borrowed.get());
+        session.close();
+    }
+}
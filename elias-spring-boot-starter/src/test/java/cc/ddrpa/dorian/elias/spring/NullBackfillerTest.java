@@ -0,0 +1,117 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.annotation.DefaultValue;
+import cc.ddrpa.dorian.elias.generator.MySQL57Generator;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import jakarta.validation.constraints.NotNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NullBackfillerTest {
+
+    private static final String COUNT_NULL_SQL = "select count(*) from tbl_backfill where note is null";
+    private static final String IS_NULLABLE_SQL = "select IS_NULLABLE from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = database() and TABLE_NAME = 'tbl_backfill' and COLUMN_NAME = 'note'";
+
+    @Test
+    void emptyTable() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        jdbcTemplate.execute("create table tbl_backfill (id bigint not null primary key, note varchar(32) null)");
+        jdbcTemplate.execute("create table tbl_heap (note varchar(32) null)");
+        NullBackfiller backfiller = new NullBackfiller(jdbcTemplate).setBatchSize(4);
+        assertEquals(0, backfiller.backfill("tbl_backfill", "note", "x"));
+        assertEquals(0, backfiller.backfill("tbl_heap", "note", "x"));
+    }
+
+    /**
+     * 主键不连续，最后一批不满，范围外和已有值的行不受影响
+     */
+    @Test
+    void sparsePrimaryKeys() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        jdbcTemplate.execute("create table tbl_backfill (id bigint not null primary key, note varchar(32) null)");
+        long expected = 0;
+        for (int id = 3; id <= 90; id += 7) {
+            boolean hasValue = id % 2 == 0;
+            jdbcTemplate.update("insert into tbl_backfill (id, note) values (?, ?)", id,
+                    hasValue ? "kept" + id : null);
+            expected += hasValue ? 0 : 1;
+        }
+        long updated = new NullBackfiller(jdbcTemplate).setBatchSize(4)
+                .backfill("tbl_backfill", "note", "filled");
+        assertEquals(expected, updated);
+        assertEquals(0, jdbcTemplate.queryForObject(COUNT_NULL_SQL, Long.class));
+        assertEquals("kept10", jdbcTemplate.queryForObject(
+                "select note from tbl_backfill where id = 10", String.class));
+        // 最后一批只有一行
+        assertEquals("filled", jdbcTemplate.queryForObject(
+                "select note from tbl_backfill where id = 87", String.class));
+    }
+
+    @Test
+    void withoutPrimaryKey() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        jdbcTemplate.execute("create table tbl_backfill (id bigint not null, note varchar(32) null)");
+        for (int id = 1; id <= 10; id++) {
+            jdbcTemplate.update("insert into tbl_backfill (id, note) values (?, ?)", id,
+                    id == 5 ? "kept" : null);
+        }
+        assertEquals(9, new NullBackfiller(jdbcTemplate).setBatchSize(4)
+                .backfill("tbl_backfill", "note", "filled"));
+        assertEquals(0, jdbcTemplate.queryForObject(COUNT_NULL_SQL, Long.class));
+    }
+
+    /**
+     * 自动修复时先回填再改为非空，回填的值与 DDL 中的默认值一致
+     */
+    @Test
+    void backfillBeforeNotNullModify() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        jdbcTemplate.execute("create table tbl_backfill (id bigint not null primary key, note varchar(255) null)");
+        for (int id = 1; id <= 10; id++) {
+            jdbcTemplate.update("insert into tbl_backfill (id, note) values (?, ?)", id,
+                    id % 2 == 0 ? "kept" : null);
+        }
+        List<String> nullableDuringBackfill = new ArrayList<>();
+        NullBackfiller backfiller = new NullBackfiller(jdbcTemplate) {
+            @Override
+            public long backfill(String tableName, String columnName, String defaultValue) {
+                nullableDuringBackfill.add(
+                        jdbcTemplate.queryForObject(IS_NULLABLE_SQL, String.class));
+                return super.backfill(tableName, columnName, defaultValue);
+            }
+        };
+        new SchemaChecker(jdbcTemplate)
+                .addTableSpecies(List.of(SpecMaker.makeTableSpec(BackfillEntity.class)))
+                .setAutoFix(true)
+                .setNullBackfiller(backfiller)
+                .check();
+        assertEquals(List.of("YES"), nullableDuringBackfill);
+        assertEquals("NO", jdbcTemplate.queryForObject(IS_NULLABLE_SQL, String.class));
+        assertEquals(0, jdbcTemplate.queryForObject(COUNT_NULL_SQL, Long.class));
+        String columnDefault = jdbcTemplate.queryForObject(
+                "select COLUMN_DEFAULT from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = database() and TABLE_NAME = 'tbl_backfill' and COLUMN_NAME = 'note'",
+                String.class);
+        assertEquals("'" + MySQL57Generator.escape("a&b") + "'", columnDefault);
+        assertEquals(MySQL57Generator.escape("a&b"), jdbcTemplate.queryForObject(
+                "select note from tbl_backfill where id = 1", String.class));
+        assertEquals("kept", jdbcTemplate.queryForObject(
+                "select note from tbl_backfill where id = 2", String.class));
+    }
+
+    @TableName("tbl_backfill")
+    static class BackfillEntity {
+
+        @TableId
+        private Long id;
+        @NotNull
+        @DefaultValue("a&b")
+        private String note;
+    }
+}
@@ -0,0 +1,79 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.core.FieldDescriptor;
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.factory.SpecBuilderFactory;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestartStateHolderTest {
+
+    private final AtomicInteger made = new AtomicInteger();
+    private final RestartStateHolder holder = RestartStateHolder.getInstance();
+
+    @AfterEach
+    void tearDown() {
+        SpecMaker.clearFactories();
+        holder.clear();
+    }
+
+    @Test
+    void returnsCopies() {
+        holder.clear();
+        TableSpec first = holder.getOrMake(List.of(Sample.class), this::make).get(0);
+        first.setName("changed");
+        first.getColumns().clear();
+        TableSpec second = holder.getOrMake(List.of(Sample.class), this::make).get(0);
+        assertEquals(1, made.get());
+        assertNotSame(first, second);
+        assertEquals("sample", second.getName());
+        assertEquals(2, second.getColumns().size());
+        assertNotSame(second, holder.getOrMake(List.of(Sample.class), this::make).get(0));
+    }
+
+    /**
+     * 重启后应用代码再次注册同一个 factory，不会重复注册，也不会使保存的 TableSpec 失效
+     */
+    @Test
+    void factoriesRegisteredAgainAfterRestart() {
+        holder.clear();
+        SpecMaker.registerFactory(new NeverFitFactory());
+        holder.getOrMake(List.of(Sample.class), this::make);
+        holder.beforeRestart();
+        assertTrue(SpecMaker.getFactories().stream()
+                .noneMatch(NeverFitFactory.class::isInstance));
+
+        SpecMaker.registerFactory(new NeverFitFactory());
+        holder.getOrMake(List.of(Sample.class), this::make);
+        assertEquals(1, made.get());
+        assertEquals(1, SpecMaker.getFactories().stream()
+                .filter(NeverFitFactory.class::isInstance)
+                .count());
+    }
+
+    private List<TableSpec> make(Collection<Class<?>> classes) {
+        made.addAndGet(classes.size());
+        return SpecMaker.makeTableSpecs(classes);
+    }
+
+    static class NeverFitFactory implements SpecBuilderFactory {
+
+        @Override
+        public boolean fit(FieldDescriptor field) {
+            return false;
+        }
+    }
+
+    static class Sample {
+
+        private Long id;
+        private String userName;
+    }
+}
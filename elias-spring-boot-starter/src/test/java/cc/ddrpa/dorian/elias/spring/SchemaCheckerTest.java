@@ -0,0 +1,158 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.spec.TableSpec;
+import cc.ddrpa.dorian.elias.generator.MySQL57Generator;
+import cc.ddrpa.dorian.elias.generator.ServerVersion;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import jakarta.validation.constraints.NotNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaCheckerTest {
+
+    @Test
+    void onlineDDLOnlyForMySQLAndMariaDB() {
+        // H2 的版本号会被误认为 MySQL 2.x
+        assertNull(SchemaChecker.parseServerVersion("H2", "2.1.214 (2022-06-13)"));
+        ServerVersion mysql = SchemaChecker.parseServerVersion("MySQL", "8.0.36");
+        assertTrue(mysql.isAtLeast(8, 0, 12));
+        assertFalse(mysql.isMariaDB());
+        // MySQL Connector/J 连接 MariaDB 时产品名称仍然是 MySQL
+        assertTrue(SchemaChecker.parseServerVersion("MySQL", "5.5.5-10.11.5-MariaDB").isMariaDB());
+        assertTrue(SchemaChecker.parseServerVersion("MariaDB", "10.11.5-MariaDB").isMariaDB());
+    }
+
+    @Test
+    void tableNameCaseFollowsServer() {
+        assertFalse(SchemaChecker.ignoreTableNameCase(0));
+        assertTrue(SchemaChecker.ignoreTableNameCase(1));
+        assertTrue(SchemaChecker.ignoreTableNameCase(2));
+        // 不是 MySQL 或 MariaDB，或者无法读取
+        assertTrue(SchemaChecker.ignoreTableNameCase(null));
+    }
+
+    /**
+     * lower_case_table_names=1 时 INFORMATION_SCHEMA 中的表名为小写，仍然要能匹配到实体类声明的表名
+     */
+    @Test
+    void mixedCaseTableName() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        TableSpec tableSpec = SpecMaker.makeTableSpec(MixedCaseEntity.class);
+        jdbcTemplate.execute(new MySQL57Generator().setDropIfExists(false).createTable(tableSpec));
+        SchemaChecker checker = new SchemaChecker(jdbcTemplate)
+                .addTableSpecies(List.of(tableSpec))
+                .setAutoFix(true)
+                .setSkipUnchanged(true);
+        assertFalse(checker.check());
+        // 检查通过的表需要记录指纹
+        assertEquals(List.of("Account_Log"), jdbcTemplate.queryForList(
+                "select table_name from " + SchemaFingerprintStore.TABLE_NAME, String.class));
+        assertFalse(checker.check());
+    }
+
+    /**
+     * 没有开启自动修复时不创建指纹表，指纹表已经存在时仍然读取和保存指纹
+     */
+    @Test
+    void fingerprintTableCreatedOnlyWithAutoFix() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        TableSpec tableSpec = SpecMaker.makeTableSpec(MixedCaseEntity.class);
+        jdbcTemplate.execute(new MySQL57Generator().setDropIfExists(false).createTable(tableSpec));
+        SchemaChecker readOnly = new SchemaChecker(jdbcTemplate)
+                .addTableSpecies(List.of(tableSpec))
+                .setSkipUnchanged(true);
+        assertFalse(readOnly.check());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = database() and TABLE_NAME = ?",
+                Long.class, SchemaFingerprintStore.TABLE_NAME));
+
+        new SchemaChecker(jdbcTemplate)
+                .addTableSpecies(List.of())
+                .setAutoFix(true)
+                .setSkipUnchanged(true)
+                .check();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from " + SchemaFingerprintStore.TABLE_NAME, Long.class));
+        assertFalse(readOnly.check());
+        assertEquals(List.of("Account_Log"), jdbcTemplate.queryForList(
+                "select table_name from " + SchemaFingerprintStore.TABLE_NAME, String.class));
+    }
+
+    /**
+     * 支持 INSTANT 添加列时，只添加可空列的变更不受自动修复的表大小上限限制
+     */
+    @Test
+    void instantAddColumnIgnoresAutoFixLimits() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        TableSpec tableSpec = SpecMaker.makeTableSpec(NullableColumnEntity.class);
+        jdbcTemplate.execute(new MySQL57Generator().setDropIfExists(false).createTable(tableSpec));
+        jdbcTemplate.execute("alter table `Account_Log` drop column `remark`");
+        jdbcTemplate.execute("insert into `Account_Log` (`id`) values (1), (2), (3)");
+        jdbcTemplate.execute("analyze table `Account_Log`");
+        SchemaChecker checker = new SchemaChecker(jdbcTemplate)
+                .addTableSpecies(List.of(tableSpec))
+                .setAutoFix(true)
+                .setAutoFixLimits(1, 1);
+        assertTrue(checker.check());
+        assertEquals(List.of("id", "remark"), jdbcTemplate.queryForList(
+                "select column_name from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = database() and TABLE_NAME = 'account_log' order by ORDINAL_POSITION",
+                String.class));
+    }
+
+    /**
+     * 缩小数据类型可能截断数据，即使不需要复制整张表也不会自动修复
+     */
+    @Test
+    void narrowingTypeIsNotAutoFixed() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        TableSpec tableSpec = SpecMaker.makeTableSpec(AmountEntity.class);
+        jdbcTemplate.execute(new MySQL57Generator().setDropIfExists(false).createTable(tableSpec));
+        jdbcTemplate.execute("alter table `tbl_amount` modify column `amount` bigint not null");
+        jdbcTemplate.execute("insert into `tbl_amount` (`amount`) values (5000000000)");
+        SchemaChecker checker = new SchemaChecker(jdbcTemplate)
+                .addTableSpecies(List.of(tableSpec))
+                .setAutoFix(true)
+                .setOnlineDDL(false);
+        assertTrue(checker.check());
+        assertEquals("bigint", jdbcTemplate.queryForObject(
+                "select DATA_TYPE from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = database() and TABLE_NAME = 'tbl_amount' and COLUMN_NAME = 'amount'",
+                String.class));
+        assertEquals(5000000000L, jdbcTemplate.queryForObject(
+                "select `amount` from `tbl_amount`", Long.class));
+    }
+
+    @TableName("tbl_amount")
+    static class AmountEntity {
+
+        @TableId
+        private Long id;
+        @NotNull
+        private Integer amount;
+    }
+
+    @TableName("Account_Log")
+    static class NullableColumnEntity {
+
+        @TableId
+        private Long id;
+        private String remark;
+    }
+
+    @TableName("Account_Log")
+    static class MixedCaseEntity {
+
+        @TableId
+        private Long id;
+        @NotNull
+        private String remark;
+    }
+}
@@ -0,0 +1,191 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.spring.autoconfigure.EliasAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.availability.ApplicationAvailabilityAutoConfiguration;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaValidationRunnerTest {
+
+    /**
+     * 检查在应用就绪之前失败，Spring Boot 随后发布的 ACCEPTING_TRAFFIC 不能覆盖拒绝流量的状态
+     */
+    @Test
+    void failureBeforeReadyKeepsRefusingTraffic() {
+        try (ConfigurableApplicationContext context = run(
+                "elias.validate.scan.includes=cc.ddrpa.dorian.elias.spring")) {
+            assertEquals(SchemaValidationRunner.Status.FAILED,
+                    context.getBean(SchemaValidationRunner.class).getStatus());
+            assertEquals(ReadinessState.REFUSING_TRAFFIC,
+                    context.getBean(ApplicationAvailability.class).getReadinessState());
+        }
+    }
+
+    @Test
+    void passedCheckAcceptsTraffic() {
+        try (ConfigurableApplicationContext context = run()) {
+            assertEquals(SchemaValidationRunner.Status.PASSED,
+                    context.getBean(SchemaValidationRunner.class).getStatus());
+            assertEquals(ReadinessState.ACCEPTING_TRAFFIC,
+                    context.getBean(ApplicationAvailability.class).getReadinessState());
+        }
+    }
+
+    /**
+     * 检查完成之前不接收流量，即使没有把 elias 加入 readiness 分组；检查通过后发布 ACCEPTING_TRAFFIC
+     */
+    @Test
+    void refuseTrafficUntilCheckPasses() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                SlowCheckConfiguration.class).web(WebApplicationType.NONE).run()) {
+            ApplicationAvailability availability = context.getBean(ApplicationAvailability.class);
+            SchemaValidationRunner runner = context.getBean(SchemaValidationRunner.class);
+            assertEquals(SchemaValidationRunner.Status.RUNNING, runner.getStatus());
+            assertEquals(ReadinessState.REFUSING_TRAFFIC, availability.getReadinessState());
+
+            context.getBean(CountDownLatch.class).countDown();
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+            while (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+                assertTrue(Instant.now().isBefore(deadline), "Readiness was not restored in time");
+                Thread.sleep(10);
+            }
+            assertEquals(SchemaValidationRunner.Status.PASSED, runner.getStatus());
+        }
+    }
+
+    private static ConfigurableApplicationContext run(String... properties) {
+        return new SpringApplicationBuilder(UnreachableDatabaseConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties("elias.validate.enable=true", "elias.validate.async=true",
+                        "elias.validate.devtools-restart-cache=false")
+                .properties(properties)
+                .run();
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({ApplicationAvailabilityAutoConfiguration.class,
+            EliasAutoConfiguration.class})
+    static class UnreachableDatabaseConfiguration {
+
+        @Bean
+        DataSource dataSource() {
+            return new AbstractDataSource() {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    throw new SQLException("Connection refused");
+                }
+
+                @Override
+                public Connection getConnection(String username, String password)
+                        throws SQLException {
+                    return getConnection();
+                }
+            };
+        }
+
+        @Bean
+        AwaitValidation awaitValidation(SchemaValidationRunner runner) {
+            return new AwaitValidation(runner);
+        }
+    }
+
+    @Configuration
+    @ImportAutoConfiguration(ApplicationAvailabilityAutoConfiguration.class)
+    static class SlowCheckConfiguration {
+
+        @Bean
+        CountDownLatch checkLatch() {
+            return new CountDownLatch(1);
+        }
+
+        @Bean
+        SchemaValidationRunner schemaValidationRunner(CountDownLatch checkLatch) {
+            return new SchemaValidationRunner(() -> {
+                checkLatch.await();
+                return false;
+            }, true);
+        }
+
+        @Bean
+        AwaitRunning awaitRunning(SchemaValidationRunner runner) {
+            return new AwaitRunning(runner);
+        }
+    }
+
+    /**
+     * 在 ApplicationReadyEvent 中等待后台检查开始，使 ACCEPTING_TRAFFIC 总是在检查期间发布
+     */
+    static class AwaitRunning implements ApplicationListener<ApplicationReadyEvent> {
+
+        private final SchemaValidationRunner runner;
+
+        AwaitRunning(SchemaValidationRunner runner) {
+            this.runner = runner;
+        }
+
+        @Override
+        public void onApplicationEvent(ApplicationReadyEvent event) {
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+            while (runner.getStatus() == SchemaValidationRunner.Status.PENDING) {
+                if (Instant.now().isAfter(deadline)) {
+                    throw new IllegalStateException("Schema validation did not start in time");
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在 ApplicationReadyEvent 中等待后台检查结束，使检查结果总是先于 ACCEPTING_TRAFFIC 产生
+     */
+    static class AwaitValidation implements ApplicationListener<ApplicationReadyEvent> {
+
+        private final SchemaValidationRunner runner;
+
+        AwaitValidation(SchemaValidationRunner runner) {
+            this.runner = runner;
+        }
+
+        @Override
+        public void onApplicationEvent(ApplicationReadyEvent event) {
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+            while (runner.getStatus() == SchemaValidationRunner.Status.PENDING
+                    || runner.getStatus() == SchemaValidationRunner.Status.RUNNING) {
+                if (Instant.now().isAfter(deadline)) {
+                    throw new IllegalStateException("Schema validation did not finish in time");
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
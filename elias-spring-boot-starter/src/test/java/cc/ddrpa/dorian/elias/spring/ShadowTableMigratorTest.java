@@ -0,0 +1,187 @@
+package cc.ddrpa.dorian.elias.spring;
+
+import cc.ddrpa.dorian.elias.core.SpecMaker;
+import cc.ddrpa.dorian.elias.core.spec.ColumnModifySpec;
+import cc.ddrpa.dorian.elias.core.spec.TableAlterSpec;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import jakarta.validation.constraints.NotNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShadowTableMigratorTest {
+
+    private static final String TRIGGER_COUNT_SQL = "select count(*) from INFORMATION_SCHEMA.TRIGGERS where EVENT_OBJECT_SCHEMA = database() and EVENT_OBJECT_TABLE = 'tbl_order'";
+
+    /**
+     * 分批复制期间的写入由触发器同步到影子表，交换后的表包含全部数据和新的列定义
+     */
+    @Test
+    void migrateWithConcurrentWrites() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        jdbcTemplate.execute("create table tbl_order (id int not null auto_increment primary key, amount int not null, note varchar(32) null)");
+        // 主键不连续，最后一批不满
+        for (int id = 1; id <= 50; id += 2) {
+            jdbcTemplate.update("insert into tbl_order (id, amount, note) values (?, ?, ?)", id,
+                    id * 10, "note;" + id);
+        }
+        ShadowTableMigrator migrator = new ShadowTableMigrator(jdbcTemplate)
+                .setBatchSize(4)
+                .setSleep(Duration.ofMillis(100));
+        CompletableFuture<Void> writes = CompletableFuture.runAsync(() -> {
+            awaitTriggers(jdbcTemplate);
+            jdbcTemplate.update("insert into tbl_order (amount, note) values (1, 'inserted')");
+            jdbcTemplate.update("update tbl_order set amount = -1 where id = 49");
+            jdbcTemplate.update("update tbl_order set id = 100 where id = 47");
+            jdbcTemplate.update("delete from tbl_order where id = 1");
+        });
+        migrator.migrate(new TableAlterSpec("tbl_order").modifyColumn("amount",
+                new ColumnModifySpec().setAlterColumnType(true).setColumnType("bigint")
+                        .setDataType("bigint").setNullable(false)));
+        writes.get();
+
+        assertEquals("bigint", jdbcTemplate.queryForObject(
+                "select DATA_TYPE from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = database() and TABLE_NAME = 'tbl_order' and COLUMN_NAME = 'amount'",
+                String.class));
+        assertEquals(0, jdbcTemplate.queryForObject(TRIGGER_COUNT_SQL, Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = database() and TABLE_NAME = '_tbl_order_new'",
+                Long.class));
+        // 原表保留，其中的数据与交换后的表一致
+        List<Map<String, Object>> migrated = jdbcTemplate.queryForList(
+                "select id, amount, note from tbl_order order by id");
+        List<Map<String, Object>> original = jdbcTemplate.queryForList(
+                "select id, amount, note from _tbl_order_old order by id");
+        assertEquals(original.toString(), migrated.toString());
+        assertEquals(25, migrated.size());
+        assertTrue(migrated.stream().noneMatch(row -> row.get("id").equals(1)));
+        assertTrue(migrated.stream().noneMatch(row -> row.get("id").equals(47)));
+        assertEquals(-1L, jdbcTemplate.queryForObject(
+                "select amount from tbl_order where id = 49", Long.class));
+        assertEquals("note;47", jdbcTemplate.queryForObject(
+                "select note from tbl_order where id = 100", String.class));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "select amount from tbl_order where note = 'inserted'", Long.class));
+        // auto_increment 在影子表上重新声明
+        jdbcTemplate.update("insert into tbl_order (amount) values (2)");
+        assertEquals(101, jdbcTemplate.queryForObject("select max(id) from tbl_order",
+                Integer.class));
+    }
+
+    @Test
+    void refuseTablesWithForeignKeys() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        jdbcTemplate.execute("create table tbl_parent (id bigint not null primary key, amount int not null)");
+        jdbcTemplate.execute("create table tbl_child (id bigint not null primary key, parent_id bigint not null, amount int not null, foreign key (parent_id) references tbl_parent (id))");
+        jdbcTemplate.execute("create table tbl_plain (id bigint not null primary key, amount int not null)");
+        ShadowTableMigrator migrator = new ShadowTableMigrator(jdbcTemplate);
+        assertTrue(migrator.checkTable("tbl_parent").isPresent());
+        assertTrue(migrator.checkTable("tbl_child").isPresent());
+        assertTrue(migrator.checkTable("tbl_plain").isEmpty());
+        assertThrows(IllegalStateException.class, () -> migrator.migrate(
+                new TableAlterSpec("tbl_child").modifyColumn("amount",
+                        new ColumnModifySpec().setAlterColumnType(true).setColumnType("bigint")
+                                .setDataType("bigint").setNullable(false))));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = database() and TABLE_NAME like '%tbl_child%'",
+                Integer.class));
+    }
+
+    /**
+     * 缩小列长度可能截断数据，即使只需要 ALGORITHM=COPY 也不能交给影子表迁移
+     */
+    @Test
+    void lossyChangesAreNotMigrated() throws Exception {
+        JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+        jdbcTemplate.execute("create table tbl_remark (id bigint not null primary key, remark varchar(1000) not null)");
+        jdbcTemplate.update("insert into tbl_remark (id, remark) values (1, ?)", "x".repeat(1000));
+        SchemaChecker checker = new SchemaChecker(jdbcTemplate)
+                .addTableSpecies(List.of(SpecMaker.makeTableSpec(RemarkEntity.class)))
+                .setAutoFix(true)
+                .setShadowTableMigrator(new ShadowTableMigrator(jdbcTemplate));
+        assertTrue(checker.check());
+
+        assertEquals(1000L, jdbcTemplate.queryForObject(
+                "select CHARACTER_MAXIMUM_LENGTH from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = database() and TABLE_NAME = 'tbl_remark' and COLUMN_NAME = 'remark'",
+                Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = database() and TABLE_NAME like '%tbl_remark%'",
+                Integer.class));
+        assertEquals(1000, jdbcTemplate.queryForObject(
+                "select char_length(remark) from tbl_remark where id = 1", Integer.class));
+    }
+
+    /**
+     * 影子表迁移不受自动修复的表大小上限限制，只受自己的上限限制
+     */
+    @Test
+    void shadowMigrationHasItsOwnLimits() throws Exception {
+        for (boolean limited : new boolean[]{false, true}) {
+            JdbcTemplate jdbcTemplate = EmbeddedMariaDB.newDatabase();
+            jdbcTemplate.execute("create table tbl_total (id bigint not null primary key, amount int not null)");
+            jdbcTemplate.execute("insert into tbl_total (id, amount) values (1, 10), (2, 20)");
+            SchemaChecker checker = new SchemaChecker(jdbcTemplate)
+                    .addTableSpecies(List.of(SpecMaker.makeTableSpec(TotalEntity.class)))
+                    .setAutoFix(true)
+                    .setAutoFixLimits(1, 1)
+                    .setShadowTableMigrator(new ShadowTableMigrator(jdbcTemplate));
+            if (limited) {
+                checker.setShadowTableLimits(1, 1);
+            }
+            assertTrue(checker.check());
+            assertEquals(limited ? "int" : "bigint", jdbcTemplate.queryForObject(
+                    "select DATA_TYPE from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = database() and TABLE_NAME = 'tbl_total' and COLUMN_NAME = 'amount'",
+                    String.class));
+        }
+    }
+
+    @Test
+    void longTableNamesDoNotCollide() {
+        String prefix = "t".repeat(60);
+        String first = ShadowTableMigrator.identifier("_", prefix + "_first", "_new");
+        String second = ShadowTableMigrator.identifier("_", prefix + "_second", "_new");
+        assertNotEquals(first, second);
+        assertEquals(64, first.length());
+        assertEquals("_tbl_order_new", ShadowTableMigrator.identifier("_", "tbl_order", "_new"));
+    }
+
+    private static void awaitTriggers(JdbcTemplate jdbcTemplate) {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (jdbcTemplate.queryForObject(TRIGGER_COUNT_SQL, Long.class) < 3) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Triggers were not created in time");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @TableName("tbl_total")
+    static class TotalEntity {
+
+        @TableId
+        private Long id;
+        @NotNull
+        private Long amount;
+    }
+
+    @TableName("tbl_remark")
+    static class RemarkEntity {
+
+        @TableId
+        private Long id;
+        @NotNull
+        private String remark;
+    }
+}